@@ -0,0 +1,240 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * A small microbenchmark harness: runs an operation in timed iterations after
+ * warming it up, and reports its throughput and how much it allocates.
+ *
+ * <p>The operation is run in batches. Before each batch the harness gets the
+ * operation from a supplier, outside the timed region, so an operation that
+ * changes its state (removing vertices, say) can undo the previous batch and
+ * start each batch from the same state; an operation that does not can be
+ * returned by the supplier every time.
+ * Results of the operation should be passed to {@link #consume(int)} so the
+ * JIT compiler cannot discard the work that produced them.
+ *
+ * <p>Allocation is measured per thread with com.sun.management.ThreadMXBean
+ * where the JVM provides it, and reported as unknown otherwise.
+ */
+public final class Harness {
+
+    /**
+     * An operation to measure.
+     */
+    public interface Op {
+        /**
+         * Run the operation once.
+         *
+         * @param i number of this run within its batch, from 0; for choosing inputs
+         */
+        void run(int i);
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static int sink;
+
+    private final int warmups;
+    private final int iterations;
+    private final long iterationNanos;
+
+    // Abstraction function:
+    //   AF(warmups, iterations, iterationNanos) = a harness that runs warmups
+    //     untimed and then iterations timed iterations of about iterationNanos
+    //     of timed work each
+    // Representation invariant:
+    //   warmups >= 0, and the other fields are positive
+    // Safety from rep exposure:
+    //   all fields are private, final and primitive
+
+    /**
+     * Make a harness.
+     *
+     * @param warmups iterations to run before measuring, at least 0
+     * @param iterations iterations to measure, at least 1
+     * @param iterationMillis how long each iteration runs, not counting the
+     *        time spent getting operations, at least 1
+     */
+    public Harness(int warmups, int iterations, long iterationMillis) {
+        if (warmups < 0 || iterations < 1 || iterationMillis < 1) {
+            throw new IllegalArgumentException("bad harness settings");
+        }
+        this.warmups = warmups;
+        this.iterations = iterations;
+        this.iterationNanos = iterationMillis * 1_000_000;
+    }
+
+    /**
+     * Keep a result alive, so the work that produced it is not optimized away.
+     *
+     * @param value result of the operation being measured
+     */
+    public static void consume(int value) {
+        sink += value;
+    }
+
+    /**
+     * Keep a result alive, so the work that produced it is not optimized away.
+     *
+     * @param value result of the operation being measured, may be null
+     */
+    public static void consume(Object value) {
+        sink += System.identityHashCode(value);
+    }
+
+    /**
+     * Measure an operation.
+     *
+     * @param batchSize runs of the operation per batch, at least 1
+     * @param fresh supplies the operation before each batch; not timed
+     * @return throughput and allocation of the operation
+     */
+    public Result measure(int batchSize, Supplier<Op> fresh) {
+        if (batchSize < 1) throw new IllegalArgumentException("batch size must be positive: " + batchSize);
+        for (int i = 0; i < warmups; i++) {
+            iteration(batchSize, fresh);
+        }
+        double[] opsPerSecond = new double[iterations];
+        long runs = 0;
+        long allocated = 0;
+        for (int i = 0; i < iterations; i++) {
+            long[] measured = iteration(batchSize, fresh);
+            opsPerSecond[i] = measured[0] * 1e9 / measured[1];
+            runs += measured[0];
+            allocated += measured[2];
+        }
+        double mean = 0;
+        for (double x : opsPerSecond) {
+            mean += x / iterations;
+        }
+        double variance = 0;
+        for (double x : opsPerSecond) {
+            variance += (x - mean) * (x - mean) / Math.max(1, iterations - 1);
+        }
+        double bytesPerOp = allocated < 0 ? Double.NaN : (double) allocated / runs;
+        return new Result(mean, Math.sqrt(variance), bytesPerOp);
+    }
+
+    // runs batches for about iterationNanos of timed work;
+    // returns { runs, timed nanos, allocated bytes or -1 if unknown }
+    private long[] iteration(int batchSize, Supplier<Op> fresh) {
+        long runs = 0;
+        long nanos = 0;
+        long allocated = 0;
+        while (nanos < iterationNanos) {
+            Op op = fresh.get();
+            long bytesBefore = allocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < batchSize; i++) {
+                op.run(i);
+            }
+            nanos += System.nanoTime() - start;
+            long bytesAfter = allocatedBytes();
+            runs += batchSize;
+            allocated = bytesBefore < 0 || allocated < 0 ? -1 : allocated + bytesAfter - bytesBefore;
+        }
+        return new long[] { runs, nanos, allocated };
+    }
+
+    // bytes allocated by this thread so far, or -1 if the JVM cannot tell
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Collect garbage and start tracking peak heap use afresh, for
+     * {@link #peakHeap()}.
+     */
+    public static void resetPeakHeap() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+    }
+
+    /**
+     * @return bytes of heap in use at its peak since the last
+     *         {@link #resetPeakHeap()}, as the sum of the peaks of the heap's
+     *         memory pools, which may have peaked at different times, so an
+     *         upper bound
+     */
+    public static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+    /**
+     * @param bytes a number of bytes
+     * @return bytes in human-readable units, e.g. "1.5 MB"
+     */
+    public static String formatBytes(double bytes) {
+        if (Double.isNaN(bytes)) return "?";
+        String[] units = { "B", "KB", "MB", "GB", "TB" };
+        int unit = 0;
+        while (Math.abs(bytes) >= 1024 && unit < units.length - 1) {
+            bytes /= 1024;
+            unit++;
+        }
+        return String.format(Locale.ROOT, unit == 0 ? "%.0f %s" : "%.1f %s", bytes, units[unit]);
+    }
+
+    @Override
+    public String toString() {
+        return "Harness(" + warmups + " warmups, " + iterations + " iterations of "
+                + iterationNanos / 1_000_000 + " ms)";
+    }
+
+    /**
+     * Immutable result of measuring an operation.
+     */
+    public static final class Result {
+        private final double opsPerSecond;
+        private final double error;
+        private final double bytesPerOp;
+
+        Result(double opsPerSecond, double error, double bytesPerOp) {
+            this.opsPerSecond = opsPerSecond;
+            this.error = error;
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        /** @return mean operations per second over the measured iterations */
+        public double opsPerSecond() {
+            return opsPerSecond;
+        }
+
+        /** @return standard deviation of operations per second between iterations */
+        public double error() {
+            return error;
+        }
+
+        /** @return bytes allocated per operation, or NaN if unknown */
+        public double bytesPerOp() {
+            return bytesPerOp;
+        }
+
+        /**
+         * @return e.g. "1234567 ops/s +- 2345, 48 B/op"
+         */
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%12.0f ops/s +- %-10.0f %10s/op",
+                    opsPerSecond, error, formatBytes(bytesPerOp));
+        }
+    }
+}
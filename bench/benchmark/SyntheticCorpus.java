@@ -0,0 +1,140 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * An immutable generator of synthetic corpus text: words drawn independently
+ * from a Zipf distribution over a fixed vocabulary, so that a few words are
+ * very common, as in natural text. The same generator always writes the same
+ * text, so benchmarks on different machines or at different times read
+ * exactly the same corpus.
+ *
+ * <p>The word of rank r is made of syllables, e.g. "ba", "ke", "bake", and is
+ * sometimes capitalized or followed by punctuation; lines are about a dozen
+ * words long. The text is ASCII, so its length in characters is its length in
+ * bytes.
+ */
+public final class SyntheticCorpus {
+
+    private static final String CONSONANTS = "bcdfghjklmnprstvwxyz";
+    private static final String VOWELS = "aeiou";
+    private static final int SYLLABLES = CONSONANTS.length() * VOWELS.length();
+
+    private final Zipf words;
+    private final long seed;
+
+    // Abstraction function:
+    //   AF(words, seed) = the text of words drawn from the distribution words
+    //     over the vocabulary word(0) .. word(words.size()-1), with decoration,
+    //     using the random sequence of seed
+    // Representation invariant:
+    //   true
+    // Safety from rep exposure:
+    //   all fields are private and final, and words is immutable
+
+    /**
+     * Make a corpus generator.
+     *
+     * @param vocabulary number of distinct words (before decoration), at least 1
+     * @param exponent Zipf exponent of word frequencies, at least 0; about 1 is
+     *        typical of natural text
+     * @param seed seed of the text; generators with the same arguments
+     *        generate the same text
+     */
+    public SyntheticCorpus(int vocabulary, double exponent, long seed) {
+        this.words = new Zipf(vocabulary, exponent);
+        this.seed = seed;
+    }
+
+    /**
+     * @param rank rank of a word, at least 0
+     * @return the undecorated word of that rank: lower-case letters, distinct
+     *         for distinct ranks
+     */
+    public static String word(int rank) {
+        if (rank < 0) throw new IllegalArgumentException("negative rank: " + rank);
+        StringBuilder word = new StringBuilder();
+        int r = rank;
+        do {
+            int syllable = r % SYLLABLES;
+            word.append(CONSONANTS.charAt(syllable / VOWELS.length()))
+                .append(VOWELS.charAt(syllable % VOWELS.length()));
+            r /= SYLLABLES;
+        } while (r > 0);
+        return word.toString();
+    }
+
+    /**
+     * Write this generator's text to a file.
+     *
+     * @param file file to write, replaced if it exists
+     * @param bytes length of the text to write; the text is cut at the first
+     *        line end at or after this length
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file, long bytes) throws IOException {
+        Random random = new Random(seed);
+        try (BufferedWriter out = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.US_ASCII), 1 << 16)) {
+            StringBuilder line = new StringBuilder();
+            for (long written = 0; written < bytes; written += line.length()) {
+                line.setLength(0);
+                appendLine(random, line);
+                out.append(line);
+            }
+        }
+    }
+
+    /**
+     * Generate text from this generator's vocabulary, e.g. for poem inputs.
+     *
+     * @param random source of randomness
+     * @param count number of words, at least 0
+     * @return count words separated by single spaces
+     */
+    public String text(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) text.append(' ');
+            appendWord(random, text);
+        }
+        return text.toString();
+    }
+
+    // appends a line of 8 to 16 words, ending in a line separator
+    private void appendLine(Random random, StringBuilder line) {
+        int count = 8 + random.nextInt(9);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) line.append(' ');
+            appendWord(random, line);
+        }
+        line.append(random.nextInt(8) == 0 ? "\r\n" : "\n");
+    }
+
+    // appends a word drawn from the vocabulary, sometimes decorated
+    private void appendWord(Random random, StringBuilder text) {
+        String word = word(words.next(random));
+        int decoration = random.nextInt(32);
+        if (decoration == 0) {
+            text.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+        } else {
+            text.append(word);
+        }
+        if (decoration == 1) text.append(',');
+        if (decoration == 2) text.append('.');
+    }
+
+    @Override
+    public String toString() {
+        return "SyntheticCorpus(" + words + ", seed " + seed + ")";
+    }
+}
@@ -0,0 +1,78 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * An immutable Zipf distribution over the ranks 0 .. n-1: rank r is drawn with
+ * probability proportional to 1 / (r + 1)^exponent. An exponent of 0 gives the
+ * uniform distribution.
+ */
+public final class Zipf {
+
+    private final double[] cumulative;
+    private final double exponent;
+
+    // Abstraction function:
+    //   AF(cumulative, exponent) = the distribution over ranks 0 .. n-1, where
+    //     n = cumulative.length, that draws rank r with probability
+    //     cumulative[r] - cumulative[r-1] (with cumulative[-1] = 0)
+    // Representation invariant:
+    //   cumulative is nonempty and nondecreasing, and ends at 1
+    // Safety from rep exposure:
+    //   all fields are private and final, and cumulative is never returned
+
+    /**
+     * Make a Zipf distribution.
+     *
+     * @param n number of ranks, at least 1
+     * @param exponent skew of the distribution, at least 0
+     */
+    public Zipf(int n, double exponent) {
+        if (n < 1) throw new IllegalArgumentException("need at least one rank: " + n);
+        if (!(exponent >= 0)) throw new IllegalArgumentException("exponent must be nonnegative: " + exponent);
+        this.exponent = exponent;
+        this.cumulative = new double[n];
+        double total = 0;
+        for (int r = 0; r < n; r++) {
+            total += Math.pow(r + 1, -exponent);
+            cumulative[r] = total;
+        }
+        for (int r = 0; r < n; r++) {
+            cumulative[r] /= total;
+        }
+        cumulative[n - 1] = 1;
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert cumulative.length > 0 && cumulative[cumulative.length - 1] == 1;
+    }
+
+    /**
+     * @return number of ranks
+     */
+    public int size() {
+        return cumulative.length;
+    }
+
+    /**
+     * Draw a rank.
+     *
+     * @param random source of randomness
+     * @return a rank in [0, size()), drawn from this distribution
+     */
+    public int next(Random random) {
+        int r = Arrays.binarySearch(cumulative, random.nextDouble());
+        // the first rank whose cumulative probability exceeds the draw
+        return r >= 0 ? r + 1 : -r - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "Zipf(" + cumulative.length + ", " + exponent + ")";
+    }
+}
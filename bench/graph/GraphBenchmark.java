@@ -0,0 +1,261 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import benchmark.Harness;
+import benchmark.Zipf;
+
+/**
+ * Microbenchmarks of the Graph operations on every implementation.
+ *
+ * <p>Each implementation is measured on synthetic graphs of string labels,
+ * for every combination of vertex count, average out-degree, and degree
+ * skew: uniform, where every vertex is equally likely to be an endpoint, or
+ * zipf, where endpoints are drawn from a Zipf distribution over the vertices
+ * so that a few hubs have most of the edges. Every implementation is built
+ * with checking off, so the numbers are those of the operations themselves.
+ *
+ * <p>Operations measured:
+ * <ul><li> add: add a new vertex
+ *     <li> set: change the weight of an existing edge
+ *     <li> remove: remove a vertex, with its edges
+ *     <li> sources, targets: get the map for a vertex and sum its weights
+ *     <li> vertices: get the vertex set and look up a vertex in it
+ *     <li> top8: get the 8 heaviest targets of a vertex, on implementations
+ *          of RankedGraph </ul>
+ * <p>Throughput is reported in operations per second, and allocation in bytes
+ * per operation. An operation whose cost grows with the number of edges shows
+ * up as throughput that falls as the graph grows. Added and removed vertices
+ * are put back between batches of operations, outside the timed region, so
+ * every batch starts from the same graph.
+ *
+ * <p>Run from the project root, with assertions off:
+ * <pre>
+ *   javac -d bin $(find src bench -name '*.java')
+ *   java -cp bin graph.GraphBenchmark [--vertices=1000,10000] [--degree=4,16]
+ *       [--skew=uniform,zipf] [--impl=ConcreteEdgesGraph,...] [--quick]
+ * </pre>
+ * To measure a new implementation, add it to {@link #IMPLEMENTATIONS}.
+ */
+public final class GraphBenchmark {
+
+    /**
+     * A graph implementation to measure.
+     */
+    private static final class Implementation {
+        final String name;
+        final Function<GraphBuilder<String>, Graph<String>> build;
+        final boolean mutable;
+
+        Implementation(String name, Function<GraphBuilder<String>, Graph<String>> build, boolean mutable) {
+            this.name = name;
+            this.build = build;
+            this.mutable = mutable;
+        }
+    }
+
+    private static final List<Implementation> IMPLEMENTATIONS = List.of(
+            new Implementation("ConcreteEdgesGraph",
+                    content -> new ConcreteEdgesGraph(content, CheckPolicy.off()), true),
+            new Implementation("ConcreteVerticesGraph",
+                    content -> new ConcreteVerticesGraph(content, CheckPolicy.off()), true),
+            new Implementation("HashGraph",
+                    content -> new HashGraph<>(content, CheckPolicy.off()), true),
+            new Implementation("AdaptiveGraph",
+                    content -> new AdaptiveGraph<>(content, CheckPolicy.off()), true),
+            new Implementation("InternedGraph",
+                    content -> copy(content, new InternedGraph<>(CheckPolicy.off())), true),
+            new Implementation("ConcurrentGraph",
+                    content -> copy(content, new ConcurrentGraph<>(CheckPolicy.off())), true),
+            new Implementation("FrozenGraph",
+                    content -> FrozenGraph.of(new HashGraph<>(content, CheckPolicy.off())), false));
+
+    /** Operations per batch; also the most vertices added or removed before they are put back. */
+    private static final int BATCH = 256;
+
+    private GraphBenchmark() {
+        throw new AssertionError("uninstantiable");
+    }
+
+    private static Graph<String> copy(GraphBuilder<String> content, Graph<String> graph) {
+        Graph<String> source = new HashGraph<>(content, CheckPolicy.off());
+        for (String v : source.vertices()) {
+            graph.add(v);
+            for (Map.Entry<String, Integer> e : source.targets(v).entrySet()) {
+                graph.set(v, e.getKey(), e.getValue());
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Run the benchmarks.
+     *
+     * @param args options, as described above
+     */
+    public static void main(String[] args) {
+        int[] vertexCounts = { 1000, 10000 };
+        int[] degrees = { 4, 16 };
+        List<String> skews = List.of("uniform", "zipf");
+        List<String> names = new ArrayList<>();
+        Harness harness = new Harness(3, 5, 200);
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--vertices=")) {
+                vertexCounts = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+            } else if (arg.startsWith("--degree=")) {
+                degrees = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+            } else if (arg.startsWith("--skew=")) {
+                skews = List.of(value.split(","));
+            } else if (arg.startsWith("--impl=")) {
+                names = List.of(value.split(","));
+            } else if (arg.equals("--quick")) {
+                harness = new Harness(1, 2, 50);
+            } else {
+                throw new IllegalArgumentException("unknown option: " + arg);
+            }
+        }
+
+        System.out.println(harness);
+        System.out.printf(Locale.ROOT, "%-22s %-8s %6s %4s %-8s %s%n",
+                "implementation", "op", "V", "deg", "skew", "result");
+        for (int vertices : vertexCounts) {
+            for (int degree : degrees) {
+                for (String skew : skews) {
+                    GraphBuilder<String> content = generate(vertices, degree, skew);
+                    for (Implementation impl : IMPLEMENTATIONS) {
+                        if (!names.isEmpty() && !names.contains(impl.name)) continue;
+                        for (Map.Entry<String, Supplier<Harness.Op>> op : operations(impl, content).entrySet()) {
+                            Harness.Result result = harness.measure(BATCH, op.getValue());
+                            System.out.printf(Locale.ROOT, "%-22s %-8s %6d %4d %-8s %s%n",
+                                    impl.name, op.getKey(), vertices, degree, skew, result);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Generate a graph's content deterministically.
+     *
+     * @param vertices number of vertices, named "v0" .. "v(vertices-1)"
+     * @param degree average number of edges out of a vertex
+     * @param skew "uniform" or "zipf", how endpoints are chosen
+     * @return the vertices and edges; edges drawn twice keep the later weight
+     */
+    static GraphBuilder<String> generate(int vertices, int degree, String skew) {
+        Zipf endpoints;
+        switch (skew) {
+        case "uniform": endpoints = new Zipf(vertices, 0); break;
+        case "zipf": endpoints = new Zipf(vertices, 1); break;
+        default: throw new IllegalArgumentException("unknown skew: " + skew);
+        }
+        Random random = new Random(vertices * 31L + degree);
+        GraphBuilder<String> content = new GraphBuilder<>(vertices, (old, weight) -> weight);
+        for (int v = 0; v < vertices; v++) {
+            content.add("v" + v);
+        }
+        for (long e = 0; e < (long) vertices * degree; e++) {
+            content.add("v" + endpoints.next(random), "v" + endpoints.next(random), 1 + random.nextInt(100));
+        }
+        return content;
+    }
+
+    // the operations to measure on an implementation, by name, in order
+    private static Map<String, Supplier<Harness.Op>> operations(Implementation impl, GraphBuilder<String> content) {
+        Graph<String> graph = impl.build.apply(content);
+        String[] vertices = graph.vertices().toArray(new String[0]);
+        List<String[]> edgeList = new ArrayList<>();
+        for (String v : vertices) {
+            for (String t : graph.targets(v).keySet()) {
+                edgeList.add(new String[] { v, t });
+            }
+        }
+        String[][] edges = edgeList.toArray(new String[0][]);
+
+        // inputs for each run of a batch; removed vertices must be distinct
+        Random random = new Random(1);
+        List<String> shuffled = new ArrayList<>(Arrays.asList(vertices));
+        Collections.shuffle(shuffled, random);
+        String[] removals = shuffled.subList(0, Math.min(BATCH, vertices.length)).toArray(new String[0]);
+        String[] picks = new String[BATCH];
+        String[][] edgePicks = new String[BATCH][];
+        String[] added = new String[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            picks[i] = vertices[random.nextInt(vertices.length)];
+            edgePicks[i] = edges.length == 0 ? null : edges[random.nextInt(edges.length)];
+            added[i] = "new" + i;
+        }
+
+        Map<String, Supplier<Harness.Op>> ops = new LinkedHashMap<>();
+        if (impl.mutable) {
+            Graph<String> adding = impl.build.apply(content);
+            ops.put("add", () -> {
+                for (String v : added) {
+                    adding.remove(v);
+                }
+                return i -> Harness.consume(adding.add(added[i]));
+            });
+            if (edges.length > 0) {
+                Harness.Op set = i -> Harness.consume(graph.set(edgePicks[i][0], edgePicks[i][1], 1 + (i & 63)));
+                ops.put("set", () -> set);
+            }
+            Graph<String> original = new HashGraph<>(content, CheckPolicy.off());
+            Graph<String> removing = impl.build.apply(content);
+            ops.put("remove", () -> {
+                for (String v : removals) {
+                    restore(removing, original, v);
+                }
+                return i -> Harness.consume(removing.remove(removals[i % removals.length]));
+            });
+        }
+        Harness.Op sources = i -> Harness.consume(sum(graph.sources(picks[i])));
+        ops.put("sources", () -> sources);
+        Harness.Op targets = i -> Harness.consume(sum(graph.targets(picks[i])));
+        ops.put("targets", () -> targets);
+        Harness.Op vertexSet = i -> {
+            Set<String> all = graph.vertices();
+            Harness.consume(all.contains(picks[i]) ? all.size() : 0);
+        };
+        ops.put("vertices", () -> vertexSet);
+        if (graph instanceof RankedGraph) {
+            RankedGraph<String> ranked = (RankedGraph<String>) graph;
+            Harness.Op top = i -> Harness.consume(ranked.heaviestTargets(picks[i], 8).size());
+            ops.put("top8", () -> top);
+        }
+        return ops;
+    }
+
+    // put a vertex and its edges back into a graph, as they are in original
+    private static void restore(Graph<String> graph, Graph<String> original, String vertex) {
+        graph.add(vertex);
+        for (Map.Entry<String, Integer> e : original.targets(vertex).entrySet()) {
+            graph.set(vertex, e.getKey(), e.getValue());
+        }
+        for (Map.Entry<String, Integer> e : original.sources(vertex).entrySet()) {
+            graph.set(e.getKey(), vertex, e.getValue());
+        }
+    }
+
+    private static int sum(Map<String, Integer> weights) {
+        int total = 0;
+        for (int weight : weights.values()) {
+            total += weight;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,211 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import benchmark.Harness;
+import benchmark.SyntheticCorpus;
+
+/**
+ * End-to-end benchmark of GraphPoet: how long a poet takes to make from a
+ * corpus, how much heap that takes, and how long poems take to generate.
+ *
+ * <p>The corpus is synthetic and deterministic (see {@link SyntheticCorpus}),
+ * so runs on the same hardware compare like with like. It is generated into a
+ * temporary directory, or into the file given by --corpus, which is kept and
+ * read as is by later runs.
+ *
+ * <p>Ways of making the poet measured:
+ * <ul><li> stream: {@link GraphPoet#GraphPoet(File)}
+ *     <li> parallel: {@link GraphPoet#GraphPoet(File, ForkJoinPool)} on the common pool
+ *     <li> snapshot: {@link GraphPoet#loadSnapshot(File)}, from a saved snapshot
+ *     <li> mapped: {@link GraphPoet#openMapped(File)}, from a saved mapped graph </ul>
+ * <p>For each, the time and peak heap to make the poet are reported, and then,
+ * for each input length, the p50, p99 and p999 latency of poem() over inputs
+ * drawn from the corpus vocabulary, and the peak heap while generating them.
+ * Poems are generated once untimed, to warm up, and then timed one by one.
+ * With --hops above 2, poems use {@link GraphPoet#bridgeHops(int) longer
+ * bridges} of up to that many edges.
+ *
+ * <p>Run from the project root, with assertions off and heap enough for the
+ * corpus:
+ * <pre>
+ *   javac -d bin $(find src bench -name '*.java')
+ *   java -Xmx8g -cp bin poet.PoetBenchmark [--size=64M] [--vocabulary=50000]
+ *       [--exponent=1.0] [--seed=1] [--corpus=file]
+ *       [--modes=stream,parallel,snapshot,mapped] [--lengths=2,8,64] [--poems=10000]
+ *       [--hops=2]
+ * </pre>
+ * Sizes take a K, M or G suffix.
+ */
+public final class PoetBenchmark {
+
+    private PoetBenchmark() {
+        throw new AssertionError("uninstantiable");
+    }
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args options, as described above
+     * @throws IOException if the corpus or saved graphs cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        long size = 64L << 20;
+        int vocabulary = 50_000;
+        double exponent = 1.0;
+        long seed = 1;
+        Path corpus = null;
+        List<String> modes = List.of("stream", "parallel", "snapshot", "mapped");
+        int[] lengths = { 2, 8, 64 };
+        int poems = 10_000;
+        int hops = 2;
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--size=")) {
+                size = parseSize(value);
+            } else if (arg.startsWith("--vocabulary=")) {
+                vocabulary = Integer.parseInt(value);
+            } else if (arg.startsWith("--exponent=")) {
+                exponent = Double.parseDouble(value);
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(value);
+            } else if (arg.startsWith("--corpus=")) {
+                corpus = Path.of(value);
+            } else if (arg.startsWith("--modes=")) {
+                modes = List.of(value.split(","));
+            } else if (arg.startsWith("--lengths=")) {
+                lengths = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+            } else if (arg.startsWith("--poems=")) {
+                poems = Integer.parseInt(value);
+            } else if (arg.startsWith("--hops=")) {
+                hops = Integer.parseInt(value);
+            } else {
+                throw new IllegalArgumentException("unknown option: " + arg);
+            }
+        }
+        for (String mode : modes) {
+            if (!List.of("stream", "parallel", "snapshot", "mapped").contains(mode)) {
+                throw new IllegalArgumentException("unknown mode: " + mode);
+            }
+        }
+
+        SyntheticCorpus generator = new SyntheticCorpus(vocabulary, exponent, seed);
+        Path scratch = Files.createTempDirectory("poet-benchmark");
+        try {
+            if (corpus == null) corpus = scratch.resolve("corpus.txt");
+            if (!Files.exists(corpus)) {
+                long start = System.nanoTime();
+                generator.write(corpus, size);
+                System.out.printf(Locale.ROOT, "generated %s in %.1f s%n",
+                        generator, (System.nanoTime() - start) / 1e9);
+            }
+            long bytes = Files.size(corpus);
+            System.out.println("corpus " + corpus + ", " + Harness.formatBytes(bytes));
+            System.out.printf(Locale.ROOT, "%-9s %-10s %10s %10s %10s %10s%n",
+                    "mode", "phase", "time/p50", "p99", "p999", "peak heap");
+
+            File snapshot = scratch.resolve("graph.snapshot").toFile();
+            File mapped = scratch.resolve("graph.mapped").toFile();
+            for (String mode : modes) {
+                if ((mode.equals("snapshot") || mode.equals("mapped")) && !snapshot.exists()) {
+                    // saved once, from a poet that is dropped before measuring
+                    GraphPoet saving = new GraphPoet(corpus.toFile(), ForkJoinPool.commonPool());
+                    saving.saveSnapshot(snapshot);
+                    saving.saveMapped(mapped);
+                }
+
+                Harness.resetPeakHeap();
+                long start = System.nanoTime();
+                GraphPoet poet = make(mode, corpus.toFile(), snapshot, mapped);
+                long nanos = System.nanoTime() - start;
+                poet.bridgeHops(hops);
+                System.out.printf(Locale.ROOT, "%-9s %-10s %10s %10s %10s %10s  (%s/s)%n",
+                        mode, "make", seconds(nanos), "", "", Harness.formatBytes(Harness.peakHeap()),
+                        Harness.formatBytes(bytes * 1e9 / nanos));
+
+                for (int length : lengths) {
+                    List<String> inputs = new ArrayList<>();
+                    Random random = new Random(seed + length);
+                    for (int i = 0; i < poems; i++) {
+                        inputs.add(generator.text(random, length));
+                    }
+                    Harness.resetPeakHeap();
+                    long[] latencies = latencies(poet, inputs);
+                    System.out.printf(Locale.ROOT, "%-9s %-10s %10s %10s %10s %10s%n",
+                            mode, "poem/" + length, micros(percentile(latencies, 0.5)),
+                            micros(percentile(latencies, 0.99)), micros(percentile(latencies, 0.999)),
+                            Harness.formatBytes(Harness.peakHeap()));
+                }
+            }
+        } finally {
+            for (String name : List.of("corpus.txt", "graph.snapshot", "graph.mapped")) {
+                Files.deleteIfExists(scratch.resolve(name));
+            }
+            Files.delete(scratch);
+        }
+    }
+
+    // a poet made from corpus, or from the files saved from it, in a way named by mode
+    private static GraphPoet make(String mode, File corpus, File snapshot, File mapped) throws IOException {
+        switch (mode) {
+        case "stream": return new GraphPoet(corpus);
+        case "parallel": return new GraphPoet(corpus, ForkJoinPool.commonPool());
+        case "snapshot": return GraphPoet.loadSnapshot(snapshot);
+        case "mapped": return GraphPoet.openMapped(mapped);
+        default: throw new IllegalArgumentException("unknown mode: " + mode);
+        }
+    }
+
+    // nanoseconds taken by poem() on each input, in increasing order, after
+    // generating every poem once untimed
+    private static long[] latencies(GraphPoet poet, List<String> inputs) {
+        for (String input : inputs) {
+            Harness.consume(poet.poem(input).length());
+        }
+        long[] latencies = new long[inputs.size()];
+        for (int i = 0; i < latencies.length; i++) {
+            String input = inputs.get(i);
+            long start = System.nanoTime();
+            String poem = poet.poem(input);
+            latencies[i] = System.nanoTime() - start;
+            Harness.consume(poem.length());
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    // the value at or below which a fraction p of the sorted values lie
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.2f s", nanos / 1e9);
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.1f us", nanos / 1e3);
+    }
+
+    // parses e.g. "4096", "64K", "64M", "2G" as a number of bytes
+    private static long parseSize(String size) {
+        String upper = size.toUpperCase(Locale.ROOT);
+        int shift = upper.endsWith("K") ? 10 : upper.endsWith("M") ? 20 : upper.endsWith("G") ? 30 : 0;
+        String digits = shift == 0 ? upper : upper.substring(0, upper.length() - 1);
+        return Long.parseLong(digits) << shift;
+    }
+}
@@ -0,0 +1,394 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * The implementation of Graph returned by {@link Graph#empty()}.
+ *
+ * <p>Starts out as a compact graph that stores its edges in one flat array and
+ * answers queries by scanning it, which is smallest and fastest for a few
+ * dozen vertices. Once the graph grows past {@link #SMALL_VERTICES} vertices or
+ * {@link #SMALL_EDGES} edges it moves its content to a {@link HashGraph} and
+ * stays there. The move is not observable through the Graph operations.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+class AdaptiveGraph<L> implements MergeableGraph<L>, RankedGraph<L> {
+
+    /** Most vertices a graph may have before it switches to hashed adjacency. */
+    static final int SMALL_VERTICES = 32;
+    /** Most edges a graph may have before it switches to hashed adjacency. */
+    static final int SMALL_EDGES = 64;
+
+    private final CheckPolicy policy;
+    private SmallGraph<L> small;
+    private HashGraph<L> hashed = null;
+
+    // Abstraction function:
+    //   AF(small, hashed) = AF(hashed) if hashed != null, otherwise AF(small)
+    //
+    // Representation invariant:
+    //   - exactly one of small and hashed is non-null
+    //   - if small != null, it has at most SMALL_VERTICES vertices and at most
+    //     SMALL_EDGES edges
+    //
+    // Safety from rep exposure:
+    //   - fields are private and never returned
+    //   - every operation returns what the non-null graph returns, and those
+    //     graphs never expose their reps
+
+    /**
+     * Create an empty graph that checks its rep as {@link CheckPolicy#defaultPolicy()} says.
+     */
+    AdaptiveGraph() {
+        this(CheckPolicy.defaultPolicy());
+    }
+
+    /**
+     * Create an empty graph.
+     *
+     * @param policy how much of the rep to check after each mutation
+     */
+    AdaptiveGraph(CheckPolicy policy) {
+        this.policy = policy;
+        this.small = new SmallGraph<>(policy);
+        checkRep();
+    }
+
+    /**
+     * Create a graph with the vertices and edges collected by a builder, starting
+     * in whichever representation fits its size.
+     *
+     * @param content vertices and edges of the new graph
+     * @param policy how much of the rep to check after each mutation
+     */
+    AdaptiveGraph(GraphBuilder<L> content, CheckPolicy policy) {
+        this.policy = policy;
+        if (content.vertexCount() > SMALL_VERTICES || content.edgeCount() > SMALL_EDGES) {
+            this.small = null;
+            this.hashed = new HashGraph<>(content, policy);
+        } else {
+            this.small = new SmallGraph<>(policy);
+            for (Map.Entry<L, Map<L, Integer>> v : content.adjacency().entrySet()) {
+                small.add(v.getKey());
+            }
+            for (Map.Entry<L, Map<L, Integer>> v : content.adjacency().entrySet()) {
+                for (Map.Entry<L, Integer> e : v.getValue().entrySet()) {
+                    small.set(v.getKey(), e.getKey(), e.getValue());
+                }
+            }
+        }
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert (small == null) != (hashed == null);
+        assert small == null || (small.vertexCount() <= SMALL_VERTICES
+                && small.edgeCount() <= SMALL_EDGES);
+    }
+
+    private MergeableGraph<L> rep() {
+        return hashed != null ? hashed : small;
+    }
+
+    // switch to hashed adjacency if the small graph has grown too big
+    private void adapt() {
+        if (small != null && (small.vertexCount() > SMALL_VERTICES || small.edgeCount() > SMALL_EDGES)) {
+            HashGraph<L> grown = new HashGraph<>(policy);
+            small.copyInto(grown);
+            hashed = grown;
+            small = null;
+        }
+        checkRep();
+    }
+
+    /**
+     * @return true iff this graph has switched to hashed adjacency
+     */
+    boolean isHashed() {
+        return hashed != null;
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        boolean added = rep().add(vertex);
+        adapt();
+        return added;
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        int previous = rep().set(source, target, weight);
+        adapt();
+        return previous;
+    }
+
+    @Override
+    public int merge(L source, L target, int weight, IntBinaryOperator remapping) {
+        int updated = rep().merge(source, target, weight, remapping);
+        adapt();
+        return updated;
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        return rep().remove(vertex);
+    }
+
+    @Override
+    public Set<L> vertices() {
+        return rep().vertices();
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        return rep().sources(target);
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        return rep().targets(source);
+    }
+
+    @Override
+    public List<WeightedEdge<L>> heaviestTargets(L source, int k) {
+        // a small graph has too few edges for selection to need more than the default
+        return hashed != null ? hashed.heaviestTargets(source, k) : RankedGraph.super.heaviestTargets(source, k);
+    }
+
+    @Override
+    public List<WeightedEdge<L>> heaviestSources(L target, int k) {
+        return hashed != null ? hashed.heaviestSources(target, k) : RankedGraph.super.heaviestSources(target, k);
+    }
+
+    @Override
+    public String toString() {
+        return rep().toString();
+    }
+}
+
+/**
+ * A graph for a few dozen vertices, stored as a list of labels and one flat
+ * array of edges. Every operation scans, so it is only used while small.
+ *
+ * Internal to AdaptiveGraph.
+ */
+class SmallGraph<L> implements MergeableGraph<L> {
+
+    private final List<L> labels = new ArrayList<>();
+    private int[] edges = new int[3 * 4];
+    private int edgeCount = 0;
+
+    private final CheckPolicy policy;
+    private long mutations = 0;
+
+    // Abstraction function:
+    //   AF(labels, edges, edgeCount) = a directed weighted graph whose vertices
+    //     are the elements of labels, with an edge
+    //       labels[edges[3i]] -> labels[edges[3i + 1]] of weight edges[3i + 2]
+    //     for each 0 <= i < edgeCount
+    //
+    // Representation invariant:
+    //   - labels has no duplicates and no nulls
+    //   - 0 <= edgeCount <= edges.length / 3
+    //   - for each 0 <= i < edgeCount, edges[3i] and edges[3i + 1] are indexes
+    //     into labels and edges[3i + 2] > 0
+    //   - no two edges have the same source and target
+    //
+    // Safety from rep exposure:
+    //   - all fields are private, and labels and edges are never returned
+    //   - vertices(), sources() and targets() return new collections
+
+    SmallGraph(CheckPolicy policy) {
+        this.policy = Objects.requireNonNull(policy);
+        checkWholeRep();
+    }
+
+    // the graph is small, so an incremental check may as well be a full one
+    private void checkRep() {
+        mutations++;
+        if (policy.checksAll(mutations) || policy.checksTouched(mutations)) {
+            checkWholeRep();
+        }
+    }
+
+    private void checkWholeRep() {
+        assert !labels.contains(null);
+        assert new HashSet<>(labels).size() == labels.size();
+        assert edgeCount >= 0 && 3 * edgeCount <= edges.length;
+        for (int i = 0; i < edgeCount; i++) {
+            assert edges[3 * i] < labels.size() && edges[3 * i + 1] < labels.size();
+            assert edges[3 * i + 2] > 0;
+            assert find(edges[3 * i], edges[3 * i + 1]) == i;
+        }
+    }
+
+    int vertexCount() {
+        return labels.size();
+    }
+
+    int edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Add every vertex and edge of this graph to another graph.
+     *
+     * @param graph graph to copy into
+     */
+    void copyInto(Graph<L> graph) {
+        for (L label : labels) {
+            graph.add(label);
+        }
+        for (int i = 0; i < edgeCount; i++) {
+            graph.set(labels.get(edges[3 * i]), labels.get(edges[3 * i + 1]), edges[3 * i + 2]);
+        }
+    }
+
+    // index of the edge between these vertex indexes, or -1 if there is none
+    private int find(int source, int target) {
+        for (int i = 0; i < edgeCount; i++) {
+            if (edges[3 * i] == source && edges[3 * i + 1] == target) return i;
+        }
+        return -1;
+    }
+
+    // index of this label, adding it first if it is not a vertex yet
+    private int indexFor(L label) {
+        if (label == null) throw new IllegalArgumentException("null vertices not allowed");
+        int i = labels.indexOf(label);
+        if (i < 0) {
+            i = labels.size();
+            labels.add(label);
+        }
+        return i;
+    }
+
+    // remove edge i by moving the last edge into its place
+    private void removeEdge(int i) {
+        edgeCount--;
+        System.arraycopy(edges, 3 * edgeCount, edges, 3 * i, 3);
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        if (labels.contains(vertex)) return false;
+        indexFor(vertex);
+        checkRep();
+        return true;
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("weight must be nonnegative");
+        int s = indexFor(source);
+        int t = indexFor(target);
+        int i = find(s, t);
+        int previous = i < 0 ? 0 : edges[3 * i + 2];
+
+        write(i, s, t, weight);
+
+        checkRep();
+        return previous;
+    }
+
+    @Override
+    public int merge(L source, L target, int weight, IntBinaryOperator remapping) {
+        int s = labels.indexOf(source);
+        int t = labels.indexOf(target);
+        int i = s < 0 || t < 0 ? -1 : find(s, t);
+        int updated = MergeableGraph.merged(i < 0 ? 0 : edges[3 * i + 2], weight, remapping);
+
+        write(i, indexFor(source), indexFor(target), updated);
+
+        checkRep();
+        return updated;
+    }
+
+    // give edge i, between vertex indexes s and t, this weight; i is -1 if there is no such edge
+    private void write(int i, int s, int t, int weight) {
+        if (weight > 0 && i >= 0) {
+            edges[3 * i + 2] = weight;
+        } else if (weight > 0) {
+            if (3 * (edgeCount + 1) > edges.length) {
+                edges = Arrays.copyOf(edges, 2 * edges.length);
+            }
+            edges[3 * edgeCount] = s;
+            edges[3 * edgeCount + 1] = t;
+            edges[3 * edgeCount + 2] = weight;
+            edgeCount++;
+        } else if (i >= 0) {
+            removeEdge(i);
+        }
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        int v = labels.indexOf(vertex);
+        if (v < 0) return false;
+
+        for (int i = edgeCount - 1; i >= 0; i--) {
+            if (edges[3 * i] == v || edges[3 * i + 1] == v) removeEdge(i);
+        }
+
+        // move the last label into the freed index, and renumber its edges
+        int last = labels.size() - 1;
+        labels.set(v, labels.get(last));
+        labels.remove(last);
+        for (int i = 0; i < edgeCount; i++) {
+            if (edges[3 * i] == last) edges[3 * i] = v;
+            if (edges[3 * i + 1] == last) edges[3 * i + 1] = v;
+        }
+
+        checkRep();
+        return true;
+    }
+
+    @Override
+    public Set<L> vertices() {
+        return Collections.unmodifiableSet(new HashSet<>(labels));
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        Map<L, Integer> result = new HashMap<>();
+        int t = labels.indexOf(target);
+        for (int i = 0; t >= 0 && i < edgeCount; i++) {
+            if (edges[3 * i + 1] == t) result.put(labels.get(edges[3 * i]), edges[3 * i + 2]);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        Map<L, Integer> result = new HashMap<>();
+        int s = labels.indexOf(source);
+        for (int i = 0; s >= 0 && i < edgeCount; i++) {
+            if (edges[3 * i] == s) result.put(labels.get(edges[3 * i + 1]), edges[3 * i + 2]);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("Vertices: " + labels + ", Edges: [");
+        for (int i = 0; i < edgeCount; i++) {
+            if (i > 0) s.append(", ");
+            s.append(labels.get(edges[3 * i])).append("->").append(labels.get(edges[3 * i + 1]))
+                    .append(" (").append(edges[3 * i + 2]).append(")");
+        }
+        return s.append("]").toString();
+    }
+}
@@ -0,0 +1,127 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * An immutable policy for how much of its rep invariant a graph implementation
+ * validates after each mutation.
+ *
+ * <p>A full check walks the whole rep, so running one after every mutation makes
+ * each mutation cost at least O(E). The cheaper policies trade coverage for speed:
+ * <ul><li> off: never check
+ *     <li> sampled: check the whole rep once every n mutations
+ *     <li> incremental: after each mutation, check only the vertices it touched
+ *     <li> full: check the whole rep after every mutation </ul>
+ */
+public final class CheckPolicy {
+
+    private static final CheckPolicy OFF = new CheckPolicy(0, false);
+    private static final CheckPolicy INCREMENTAL = new CheckPolicy(0, true);
+    private static final CheckPolicy FULL = new CheckPolicy(1, false);
+
+    private final int every;
+    private final boolean touched;
+
+    // Abstraction function:
+    //   AF(every, touched) = a policy that checks the whole rep on every
+    //     `every`-th mutation (never if every == 0), and checks the touched
+    //     part of the rep on every mutation if `touched`
+    //
+    // Representation invariant:
+    //   - every >= 0
+    //   - !(touched && every == 1), since a full check already covers touched
+    //
+    // Safety from rep exposure:
+    //   - all fields are private, final and immutable
+
+    private CheckPolicy(int every, boolean touched) {
+        this.every = every;
+        this.touched = touched;
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert every >= 0;
+        assert !(touched && every == 1);
+    }
+
+    /**
+     * @return a policy that never checks the rep
+     */
+    public static CheckPolicy off() {
+        return OFF;
+    }
+
+    /**
+     * @param n number of mutations between checks, must be positive
+     * @return a policy that checks the whole rep once every n mutations
+     */
+    public static CheckPolicy sampled(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("sample interval must be positive");
+        }
+        return n == 1 ? FULL : new CheckPolicy(n, false);
+    }
+
+    /**
+     * @return a policy that checks only the part of the rep touched by each mutation
+     */
+    public static CheckPolicy incremental() {
+        return INCREMENTAL;
+    }
+
+    /**
+     * @return a policy that checks the whole rep after every mutation
+     */
+    public static CheckPolicy full() {
+        return FULL;
+    }
+
+    /**
+     * The policy used by graphs that are not given one: full checks when Java
+     * assertions are enabled (the checks could not fail otherwise), off when they
+     * are not.
+     *
+     * @return the default policy
+     */
+    public static CheckPolicy defaultPolicy() {
+        boolean assertions = false;
+        assert assertions = true; // intentional side effect
+        return assertions ? FULL : OFF;
+    }
+
+    /**
+     * @param mutation number of mutations made so far, including this one
+     * @return true iff the whole rep should be checked after this mutation
+     */
+    boolean checksAll(long mutation) {
+        return every != 0 && mutation % every == 0;
+    }
+
+    /**
+     * @param mutation number of mutations made so far, including this one
+     * @return true iff only the part of the rep touched by this mutation should
+     *         be checked after it
+     */
+    boolean checksTouched(long mutation) {
+        return touched && !checksAll(mutation);
+    }
+
+    /**
+     * @return true iff this policy checks any part of the rep at some mutation;
+     *         a mutation that touches the whole rep, like a bulk load, should
+     *         then be followed by a full check
+     */
+    boolean checksAny() {
+        return every != 0 || touched;
+    }
+
+    @Override
+    public String toString() {
+        if (every == 0) {
+            return touched ? "incremental" : "off";
+        }
+        return every == 1 ? "full" : "sampled(" + every + ")";
+    }
+}
@@ -3,26 +3,49 @@
  */
 package graph;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.IntBinaryOperator;
 /**
  * An implementation of Graph.
  *
+ * <p>Heaviest-neighbour queries use RankedGraph's default selection from
+ * targets() and sources().
+ *
  * <p>PS2 instructions: you MUST use the provided rep.
  */
-public class ConcreteEdgesGraph implements Graph<String> {
+public class ConcreteEdgesGraph implements MergeableGraph<String>, RankedGraph<String> {
+
+    private Set<String> vertices;
+    private final List<Edge> edges;
+
+    // read-only view of vertices handed out by vertices(), or null if there is none
+    private Set<String> verticesSnapshot = null;
+
+    // indexes over edges, so lookups don't have to scan the whole list
+    private final Map<String, SnapshotMap<String, Edge>> outgoing;
+    private final Map<String, SnapshotMap<String, Edge>> incoming;
+    private final Map<Edge, Integer> slots;
 
-    private final Set<String> vertices = new HashSet<>();
-    private final List<Edge> edges = new ArrayList<>();
+    private final CheckPolicy policy;
+    private long mutations = 0;
 
     // Abstraction function:
     //   AF(vertices, edges) =
     //     a directed weighted graph whose set of vertices is exactly `vertices`,
     //     and whose edges contain exactly these fields: (source, target, weight)
+    //   outgoing, incoming and slots are indexes over edges and add nothing to
+    //   the abstract value.
     //
     // Representation invariant:
     //   - No null vertex appears in vertices.
@@ -31,33 +54,209 @@ public class ConcreteEdgesGraph implements Graph<String> {
     //       * e.weight > 0
     //       * e.source and e.target are in vertices
     //   - For any two vertices, there is only one edge between them
+    //   - outgoing.get(s).get(t) == incoming.get(t).get(s) == e
+    //     for exactly the edges e = (s, t, w) in edges; no index map is empty
+    //   - slots.get(e) is the position of e in edges, for every e in edges
+    //   - verticesSnapshot is null or an unmodifiable view of vertices
     //
     // Safety from rep exposure:
-    //   - vertices and edges fields are private and final.
-    //   - vertices() returns a defensive copy.
-    //   - sources() and targets() return new maps, not internal ones.
+    //   - vertices and edges fields are private, and edges is final.
+    //   - the index fields are private and final, and never returned.
+    //   - policy is immutable.
+    //   - vertices() returns an unmodifiable snapshot; vertices is replaced by a
+    //     copy before it is written to again.
+    //   - sources() and targets() return unmodifiable weight views of index
+    //     snapshots, which SnapshotMap copies away from before writing again.
     //   - Edge is immutable, and references to internal Edge objects are never returned.
 
-    // to validate the rep invariant
-    private void checkRep() {
+    /**
+     * Create an empty graph that checks its rep as {@link CheckPolicy#defaultPolicy()} says.
+     */
+    public ConcreteEdgesGraph() {
+        this(CheckPolicy.defaultPolicy());
+    }
+
+    /**
+     * Create an empty graph.
+     *
+     * @param policy how much of the rep to check after each mutation
+     */
+    public ConcreteEdgesGraph(CheckPolicy policy) {
+        this.policy = Objects.requireNonNull(policy);
+        this.vertices = new HashSet<>();
+        this.edges = new ArrayList<>();
+        this.outgoing = new HashMap<>();
+        this.incoming = new HashMap<>();
+        this.slots = new HashMap<>();
+        checkWholeRep();
+    }
+
+    /**
+     * Create a graph with the vertices and edges collected by a builder, checking
+     * its rep as {@link CheckPolicy#defaultPolicy()} says.
+     *
+     * @param content vertices and edges of the new graph
+     */
+    public ConcreteEdgesGraph(GraphBuilder<String> content) {
+        this(content, CheckPolicy.defaultPolicy());
+    }
+
+    /**
+     * Create a graph with the vertices and edges collected by a builder.
+     * The graph is filled in one pass, and its rep checked once at the end.
+     *
+     * @param content vertices and edges of the new graph
+     * @param policy how much of the rep to check after each mutation
+     */
+    public ConcreteEdgesGraph(GraphBuilder<String> content, CheckPolicy policy) {
+        this.policy = Objects.requireNonNull(policy);
+        int vertexCount = content.vertexCount();
+        int edgeCount = content.edgeCount();
+        this.vertices = new HashSet<>(capacity(vertexCount));
+        this.edges = new ArrayList<>(edgeCount);
+        this.outgoing = new HashMap<>(capacity(vertexCount));
+        this.incoming = new HashMap<>(capacity(vertexCount));
+        this.slots = new HashMap<>(capacity(edgeCount));
+
+        for (Map.Entry<String, Map<String, Integer>> v : content.adjacency().entrySet()) {
+            vertices.add(v.getKey());
+            for (Map.Entry<String, Integer> e : v.getValue().entrySet()) {
+                attach(new Edge(v.getKey(), e.getKey(), e.getValue()));
+            }
+        }
+        if (policy.checksAny()) {
+            checkWholeRep();
+        }
+    }
+
+    // initial capacity for a hash table that will hold n entries
+    private static int capacity(int n) {
+        return Math.max(16, n * 4 / 3 + 1);
+    }
+
+    // to validate the rep invariant after a mutation touching one vertex
+    private void checkRep(String touched) {
+        mutations++;
+        if (policy.checksAll(mutations)) {
+            checkWholeRep();
+        } else if (policy.checksTouched(mutations)) {
+            checkVertexRep(touched);
+        }
+    }
+
+    // to validate the rep invariant after a mutation touching two vertices
+    private void checkRep(String touched, String other) {
+        mutations++;
+        if (policy.checksAll(mutations)) {
+            checkWholeRep();
+        } else if (policy.checksTouched(mutations)) {
+            checkVertexRep(touched);
+            checkVertexRep(other);
+        }
+    }
+
+    private void checkWholeRep() {
         for (String v : vertices) {
             assert v != null;
         }
         for (Edge e : edges) {
-            assert e.getSource() != null;
-            assert e.getTarget() != null;
-            assert vertices.contains(e.getSource());
-            assert vertices.contains(e.getTarget());
-            assert e.getWeight() > 0;
+            checkEdgeRep(e);
+        }
+        assert slots.size() == edges.size();
+    }
+
+    // the part of the rep invariant about one vertex and its edges
+    private void checkVertexRep(String v) {
+        if (!vertices.contains(v)) {
+            assert !outgoing.containsKey(v) : "edge from a removed vertex";
+            assert !incoming.containsKey(v) : "edge to a removed vertex";
+            return;
+        }
+        for (Edge e : edgesAt(outgoing, v)) {
+            checkEdgeRep(e);
+        }
+        for (Edge e : edgesAt(incoming, v)) {
+            checkEdgeRep(e);
+        }
+    }
+
+    // the part of the rep invariant about one edge
+    private void checkEdgeRep(Edge e) {
+        assert e.getSource() != null;
+        assert e.getTarget() != null;
+        assert vertices.contains(e.getSource());
+        assert vertices.contains(e.getTarget());
+        assert e.getWeight() > 0;
+        assert lookup(e.getSource(), e.getTarget()) == e;
+        assert incoming.get(e.getTarget()).get(e.getSource()) == e;
+        assert edges.get(slots.get(e)) == e;
+    }
+
+    // the edge source -> target, or null if there is none
+    private Edge lookup(String source, String target) {
+        SnapshotMap<String, Edge> out = outgoing.get(source);
+        return out == null ? null : out.get(target);
+    }
+
+    // the edges in one vertex's entry of an index
+    private static Collection<Edge> edgesAt(Map<String, SnapshotMap<String, Edge>> index, String v) {
+        SnapshotMap<String, Edge> inner = index.get(v);
+        return inner == null ? Collections.emptyList() : inner.values();
+    }
+
+    // vertices, copied first if a snapshot of it has been handed out
+    private Set<String> writableVertices() {
+        if (verticesSnapshot != null) {
+            vertices = new HashSet<>(vertices);
+            verticesSnapshot = null;
+        }
+        return vertices;
+    }
+
+    // add a new edge to edges and to every index
+    private void attach(Edge e) {
+        slots.put(e, edges.size());
+        edges.add(e);
+        outgoing.computeIfAbsent(e.getSource(), k -> new SnapshotMap<>()).put(e.getTarget(), e);
+        incoming.computeIfAbsent(e.getTarget(), k -> new SnapshotMap<>()).put(e.getSource(), e);
+    }
+
+    // replace an existing edge with one between the same vertices, keeping its position
+    private void replace(Edge old, Edge e) {
+        int slot = slots.remove(old);
+        edges.set(slot, e);
+        slots.put(e, slot);
+        outgoing.get(e.getSource()).put(e.getTarget(), e);
+        incoming.get(e.getTarget()).put(e.getSource(), e);
+    }
+
+    // remove an existing edge from edges and from every index
+    private void detach(Edge e) {
+        // move the last edge into the freed slot so removal doesn't shift the list
+        int slot = slots.remove(e);
+        Edge last = edges.remove(edges.size() - 1);
+        if (last != e) {
+            edges.set(slot, last);
+            slots.put(last, slot);
+        }
+        unindex(outgoing, e.getSource(), e.getTarget());
+        unindex(incoming, e.getTarget(), e.getSource());
+    }
+
+    private static void unindex(Map<String, SnapshotMap<String, Edge>> index, String key, String other) {
+        SnapshotMap<String, Edge> inner = index.get(key);
+        inner.remove(other);
+        if (inner.isEmpty()) {
+            index.remove(key);
         }
     }
 
     @Override
     public boolean add(String vertex) {
-        if (vertex == null) return false;
-        boolean added = vertices.add(vertex);
-        checkRep();
-        return added;
+        if (vertex == null || vertices.contains(vertex)) return false;
+        writableVertices().add(vertex);
+        checkRep(vertex);
+        return true;
     }
 
     @Override
@@ -67,78 +266,163 @@ public class ConcreteEdgesGraph implements Graph<String> {
 
         // add the vertices if they dont exist
         // the specification mentions this
-        vertices.add(source);
-        vertices.add(target);
+        addEndpoints(source, target);
 
         // in case an edge already exists
-        Edge existing = null;
-        for (Edge e : edges) {
-            if (e.getSource().equals(source) && e.getTarget().equals(target)) {
-                existing = e;
-                break;
-            }
-        }
+        Edge existing = lookup(source, target);
 
         int previous = (existing == null ? 0 : existing.getWeight());
+        write(existing, source, target, weight);
 
-        // remove the existing edge if it exists
-        if (existing != null) {
-            edges.remove(existing);
-        }
+        checkRep(source, target);
+        return previous;
+    }
+
+    @Override
+    public int merge(String source, String target, int weight, IntBinaryOperator remapping) {
+        if (source == null || target == null)
+            throw new IllegalArgumentException("null vertices not allowed");
+
+        Edge existing = lookup(source, target);
+        int updated = MergeableGraph.merged(existing == null ? 0 : existing.getWeight(), weight, remapping);
 
-        // add the new edge
+        addEndpoints(source, target);
+        write(existing, source, target, updated);
+
+        checkRep(source, target);
+        return updated;
+    }
+
+    private void addEndpoints(String source, String target) {
+        if (!vertices.contains(source)) writableVertices().add(source);
+        if (!vertices.contains(target)) writableVertices().add(target);
+    }
+
+    // give the edge source -> target this weight, where existing is its current edge or null
+    private void write(Edge existing, String source, String target, int weight) {
         if (weight > 0) {
-            edges.add(new Edge(source, target, weight));
+            Edge e = new Edge(source, target, weight);
+            if (existing != null) {
+                replace(existing, e);
+            } else {
+                attach(e);
+            }
+        } else if (existing != null) {
+            detach(existing);
         }
-
-        checkRep();
-        return previous;
     }
 
     @Override
     public boolean remove(String vertex) {
         if (!vertices.contains(vertex)) return false;
 
-        vertices.remove(vertex);
+        writableVertices().remove(vertex);
 
         // remove edges involving the vertex
-        edges.removeIf(e -> e.getSource().equals(vertex) || e.getTarget().equals(vertex));
+        List<Edge> involved = new ArrayList<>();
+        involved.addAll(edgesAt(outgoing, vertex));
+        involved.addAll(edgesAt(incoming, vertex));
+        for (Edge e : involved) {
+            // a self-loop shows up in both indexes
+            if (slots.containsKey(e)) {
+                detach(e);
+            }
+        }
 
-        checkRep();
+        checkRep(vertex);
         return true;
     }
 
     @Override
     public Set<String> vertices() {
-        return new HashSet<>(vertices);  // defensive copy
+        if (verticesSnapshot == null) {
+            verticesSnapshot = Collections.unmodifiableSet(vertices);
+        }
+        return verticesSnapshot;
     }
 
     @Override
     public Map<String, Integer> sources(String target) {
-        Map<String, Integer> map = new HashMap<>();
-        for (Edge e : edges) {
-            if (e.getTarget().equals(target)) {
-                map.put(e.getSource(), e.getWeight());
-            }
-        }
-        return map; // defensive
+        SnapshotMap<String, Edge> in = incoming.get(target);
+        return in == null ? Collections.emptyMap() : new Weights(in.snapshot());
     }
 
     @Override
     public Map<String, Integer> targets(String source) {
-        Map<String, Integer> map = new HashMap<>();
-        for (Edge e : edges) {
-            if (e.getSource().equals(source)) {
-                map.put(e.getTarget(), e.getWeight());
-            }
-        }
-        return map; // defensive
+        SnapshotMap<String, Edge> out = outgoing.get(source);
+        return out == null ? Collections.emptyMap() : new Weights(out.snapshot());
+    }
+
+    /**
+     * Make an immutable, compact copy of this graph, for when it will not
+     * change again.
+     *
+     * @return a frozen graph with the same vertices and edges as this graph
+     */
+    public FrozenGraph<String> freeze() {
+        return FrozenGraph.of(this);
     }
 
     @Override
     public String toString() {
         return "Vertices: " + vertices + ", Edges: " + edges;
     }
+
+    /**
+     * Read-only view of a map from labels to edges as a map from the same
+     * labels to the weights of those edges.
+     */
+    private static class Weights extends AbstractMap<String, Integer> {
+
+        private final Map<String, Edge> edges;
+
+        Weights(Map<String, Edge> edges) {
+            this.edges = edges;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            Edge e = edges.get(key);
+            return e == null ? null : e.getWeight();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return edges.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return edges.size();
+        }
+
+        @Override
+        public Set<Map.Entry<String, Integer>> entrySet() {
+            return new AbstractSet<Map.Entry<String, Integer>>() {
+                @Override
+                public int size() {
+                    return edges.size();
+                }
+
+                @Override
+                public Iterator<Map.Entry<String, Integer>> iterator() {
+                    Iterator<Map.Entry<String, Edge>> it = edges.entrySet().iterator();
+                    return new Iterator<Map.Entry<String, Integer>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return it.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<String, Integer> next() {
+                            Map.Entry<String, Edge> e = it.next();
+                            return new SimpleImmutableEntry<>(e.getKey(), e.getValue().getWeight());
+                        }
+                    };
+                }
+            };
+        }
+    }
 }
 
 /**
@@ -4,132 +4,245 @@
 package graph;
 
 import java.util.*;
+import java.util.function.IntBinaryOperator;
 
 /**
  * An implementation of Graph using a list of Vertex objects.
  *
  * The graph is represented as:
- *  - A list of Vertex objects
- *  - Each Vertex has a name and a map of outgoing edges (targets)
+ *  - A list of Vertex objects, indexed by name
+ *  - Each Vertex has a name, a map of outgoing edges (targets)
+ *    and a map of incoming edges (sources)
+ *
+ * Heaviest-neighbour queries use RankedGraph's default selection from the
+ * Vertex maps.
  *
  * PS2 instructions: MUST use the provided rep.
  */
-public class ConcreteVerticesGraph implements Graph<String> {
+public class ConcreteVerticesGraph implements MergeableGraph<String>, RankedGraph<String> {
+
+    private final List<Vertex> vertices;
+    private final SnapshotMap<String, Integer> indexOf;
 
-    private final List<Vertex> vertices = new ArrayList<>();
+    private final CheckPolicy policy;
+    private long mutations = 0;
 
     // Abstraction function:
     //   AF(vertices) = a directed graph G where:
     //      - Each Vertex v in the list represents a node named v.name
     //      - For each vertex v, and for each (t, w) in v.targets:
     //              there is an edge (v.name -> t) with weight w
+    //   indexOf and each v.sources are indexes and add nothing to the abstract value.
     //
     // Representation invariant:
     //   - No duplicate vertex names in vertices list
     //   - No null names
     //   - All edge weights > 0
     //   - Every target referenced by any vertex must also appear as a vertex in vertices list
+    //   - indexOf maps exactly the names in vertices to their position in the list
+    //   - For all vertices v, t: v.targets.get(t.name) == t.sources.get(v.name)
     //
     // Safety from rep exposure:
-    //   - vertices field is private and final
+    //   - vertices and indexOf fields are private and final
+    //   - policy is immutable
     //   - Vertex is a private internal class; no outsider can mutate internals directly
-    //   - vertices() returns an unmodifiable copy, not the actual list
-    //   - maps returned by sources() and targets() are defensive copies
+    //   - vertices(), sources() and targets() return unmodifiable snapshots, which
+    //     SnapshotMap copies away from before the graph writes to it again
 
-    // Constructor
+    // Constructor, checking the rep as CheckPolicy.defaultPolicy() says
     public ConcreteVerticesGraph() {
-        checkRep();
+        this(CheckPolicy.defaultPolicy());
     }
 
-    // Check rep invariant
-    private void checkRep() {
+    // Constructor, checking the rep as policy says after each mutation
+    public ConcreteVerticesGraph(CheckPolicy policy) {
+        this.policy = Objects.requireNonNull(policy);
+        this.vertices = new ArrayList<>();
+        this.indexOf = new SnapshotMap<>();
+        checkWholeRep();
+    }
+
+    // Constructor filling the graph with the content of a builder, checking the
+    // rep as CheckPolicy.defaultPolicy() says
+    public ConcreteVerticesGraph(GraphBuilder<String> content) {
+        this(content, CheckPolicy.defaultPolicy());
+    }
+
+    // Constructor filling the graph with the content of a builder in one pass,
+    // checking the rep once at the end as policy says
+    public ConcreteVerticesGraph(GraphBuilder<String> content, CheckPolicy policy) {
+        this.policy = Objects.requireNonNull(policy);
+        this.vertices = new ArrayList<>(content.vertexCount());
+        this.indexOf = new SnapshotMap<>(content.vertexCount());
+
+        for (Map.Entry<String, Map<String, Integer>> v : content.adjacency().entrySet()) {
+            Vertex src = vertexFor(v.getKey());
+            for (Map.Entry<String, Integer> e : v.getValue().entrySet()) {
+                src.setEdge(e.getKey(), e.getValue());
+                vertexFor(e.getKey()).setSource(v.getKey(), e.getValue());
+            }
+        }
+        if (policy.checksAny()) {
+            checkWholeRep();
+        }
+    }
+
+    // Check rep invariant after a mutation touching one vertex
+    private void checkRep(String touched) {
+        mutations++;
+        if (policy.checksAll(mutations)) {
+            checkWholeRep();
+        } else if (policy.checksTouched(mutations)) {
+            checkVertexRep(touched);
+        }
+    }
+
+    // Check rep invariant after a mutation touching two vertices
+    private void checkRep(String touched, String other) {
+        mutations++;
+        if (policy.checksAll(mutations)) {
+            checkWholeRep();
+        } else if (policy.checksTouched(mutations)) {
+            checkVertexRep(touched);
+            checkVertexRep(other);
+        }
+    }
+
+    private void checkWholeRep() {
         Set<String> names = new HashSet<>();
         for (Vertex v : vertices) {
             assert v.getName() != null;
             assert !names.contains(v.getName()) : "duplicate vertex";
             names.add(v.getName());
 
-            for (Map.Entry<String, Integer> e : v.getTargets().entrySet()) {
-                assert e.getValue() > 0;
-                assert names.contains(e.getKey()) ||
-                        containsVertex(e.getKey()) : "referenced vertex missing";
-            }
+            checkVertexRep(v.getName());
         }
+        assert indexOf.size() == vertices.size();
     }
 
-    private boolean containsVertex(String name) {
-        for (Vertex v : vertices) {
-            if (v.getName().equals(name)) return true;
+    // Check the part of the rep invariant about one vertex and its edges
+    private void checkVertexRep(String name) {
+        Vertex v = getVertex(name);
+        if (v == null) return; // its neighbours were checked when they were touched
+
+        assert v.getName().equals(name) : "index out of date";
+
+        for (Map.Entry<String, Integer> e : v.getTargets().entrySet()) {
+            assert e.getValue() > 0;
+            assert containsVertex(e.getKey()) : "referenced vertex missing";
+            assert e.getValue().equals(getVertex(e.getKey()).getSources().get(name))
+                    : "reverse edge missing";
         }
-        return false;
+        for (Map.Entry<String, Integer> e : v.getSources().entrySet()) {
+            assert containsVertex(e.getKey()) : "referenced vertex missing";
+            assert e.getValue().equals(getVertex(e.getKey()).getTargets().get(name))
+                    : "forward edge missing";
+        }
+    }
+
+    private boolean containsVertex(String name) {
+        return indexOf.containsKey(name);
     }
 
     private Vertex getVertex(String name) {
-        for (Vertex v : vertices)
-            if (v.getName().equals(name))
-                return v;
-        return null;
+        Integer i = indexOf.get(name);
+        return i == null ? null : vertices.get(i);
+    }
+
+    // Get the vertex with this name, adding it first if it doesn't exist
+    private Vertex vertexFor(String name) {
+        Vertex v = getVertex(name);
+        if (v == null) {
+            v = new Vertex(name);
+            indexOf.put(name, vertices.size());
+            vertices.add(v);
+        }
+        return v;
     }
 
     @Override
     public boolean add(String vertex) {
         if (containsVertex(vertex)) return false;
-        vertices.add(new Vertex(vertex));
-        checkRep();
+        vertexFor(vertex);
+        checkRep(vertex);
         return true;
     }
 
     @Override
     public int set(String source, String target, int weight) {
-        if (!containsVertex(source)) add(source);
-        if (!containsVertex(target)) add(target);
-
-        Vertex src = getVertex(source);
+        Vertex src = vertexFor(source);
+        Vertex tgt = vertexFor(target);
         int prev = src.setEdge(target, weight);
+        tgt.setSource(source, weight);
 
-        checkRep();
+        checkRep(source, target);
         return prev;
     }
 
+    @Override
+    public int merge(String source, String target, int weight, IntBinaryOperator remapping) {
+        Vertex src = getVertex(source);
+        int updated = MergeableGraph.merged(src == null ? 0 : src.getWeight(target), weight, remapping);
+
+        vertexFor(source).setEdge(target, updated);
+        vertexFor(target).setSource(source, updated);
+
+        checkRep(source, target);
+        return updated;
+    }
+
     @Override
     public boolean remove(String vertex) {
         Vertex v = getVertex(vertex);
         if (v == null) return false;
 
-        // Remove any edges pointing TO the vertex
-        for (Vertex x : vertices) {
-            x.removeEdge(vertex);
+        // Remove any edges pointing TO the vertex, and the reverse entries of edges FROM it
+        for (String source : v.getSources().keySet()) {
+            getVertex(source).removeEdge(vertex);
+        }
+        for (String target : v.getTargets().keySet()) {
+            getVertex(target).removeSource(vertex);
         }
 
-        vertices.remove(v);
+        // move the last vertex into the freed slot so removal doesn't shift the list
+        int slot = indexOf.remove(vertex);
+        Vertex last = vertices.remove(vertices.size() - 1);
+        if (last != v) {
+            vertices.set(slot, last);
+            indexOf.put(last.getName(), slot);
+        }
 
-        checkRep();
+        checkRep(vertex);
         return true;
     }
 
     @Override
     public Set<String> vertices() {
-        Set<String> vs = new HashSet<>();
-        for (Vertex v : vertices)
-            vs.add(v.getName());
-        return Collections.unmodifiableSet(vs);
+        return indexOf.snapshot().keySet();
     }
 
     @Override
     public Map<String, Integer> sources(String target) {
-        Map<String, Integer> result = new HashMap<>();
-        for (Vertex v : vertices) {
-            Integer w = v.getTargets().get(target);
-            if (w != null) result.put(v.getName(), w);
-        }
-        return Collections.unmodifiableMap(result);
+        Vertex v = getVertex(target);
+        if (v == null) return Collections.emptyMap();
+        return v.getSources();
     }
 
     @Override
     public Map<String, Integer> targets(String source) {
         Vertex v = getVertex(source);
         if (v == null) return Collections.emptyMap();
-        return Collections.unmodifiableMap(new HashMap<>(v.getTargets()));
+        return v.getTargets();
+    }
+
+    /**
+     * Make an immutable, compact copy of this graph, for when it will not
+     * change again.
+     *
+     * @return a frozen graph with the same vertices and edges as this graph
+     */
+    public FrozenGraph<String> freeze() {
+        return FrozenGraph.of(this);
     }
 
     @Override
@@ -146,20 +259,25 @@ public class ConcreteVerticesGraph implements Graph<String> {
 class Vertex {
 
     private final String name;
-    private final Map<String, Integer> targets = new HashMap<>();
+    private final SnapshotMap<String, Integer> targets = new SnapshotMap<>();
+    private final SnapshotMap<String, Integer> sources = new SnapshotMap<>();
 
     // Abstraction function:
-    //   AF(name, targets) = a graph node named 'name' with outgoing edges
-    //   to each key in targets with weight targets.get(key)
+    //   AF(name, targets, sources) = a graph node named 'name' with outgoing edges
+    //   to each key in targets with weight targets.get(key), and incoming edges
+    //   from each key in sources with weight sources.get(key)
     //
     // Rep invariant:
     //   - Name is non-null
-    //   - All weights in targets > 0
+    //   - All weights in targets and sources > 0
     //
     // Safety from rep exposure:
     //   - Name is private + immutable
-    //   - Targets is private
-    //   - getTargets() returns unmodifiable view
+    //   - Targets and sources are private
+    //   - getTargets() and getSources() return unmodifiable snapshots
+    //
+    // Mutators only check the entry they wrote; the owning graph checks the rest
+    // as its CheckPolicy says.
 
     public Vertex(String name) {
         this.name = Objects.requireNonNull(name);
@@ -170,6 +288,8 @@ class Vertex {
         assert name != null;
         for (Integer w : targets.values())
             assert w != null && w > 0;
+        for (Integer w : sources.values())
+            assert w != null && w > 0;
     }
 
     public String getName() {
@@ -177,7 +297,18 @@ class Vertex {
     }
 
     public Map<String, Integer> getTargets() {
-        return Collections.unmodifiableMap(targets);
+        return targets.snapshot();
+    }
+
+    /**
+     * Returns weight of edge name -> target, or 0 if none.
+     */
+    public int getWeight(String target) {
+        return targets.getOrDefault(target, 0);
+    }
+
+    public Map<String, Integer> getSources() {
+        return sources.snapshot();
     }
 
     /**
@@ -194,13 +325,34 @@ class Vertex {
             targets.put(target, weight);
         }
 
-        checkRep();
+        assert weight >= 0;
         return prev;
     }
 
     public void removeEdge(String target) {
         targets.remove(target);
-        checkRep();
+    }
+
+    /**
+     * Record the incoming edge source -> name with weight.
+     * If weight = 0, the record is removed.
+     * Returns previous weight or 0 if none.
+     */
+    public int setSource(String source, int weight) {
+        int prev = sources.getOrDefault(source, 0);
+
+        if (weight == 0) {
+            sources.remove(source);
+        } else {
+            sources.put(source, weight);
+        }
+
+        assert weight >= 0;
+        return prev;
+    }
+
+    public void removeSource(String source) {
+        sources.remove(source);
     }
 
     @Override
@@ -0,0 +1,276 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * A thread-safe implementation of Graph.
+ *
+ * <p>Adjacency is kept in concurrent hash maps in both directions, so
+ * vertices(), sources() and targets() never block. Writers to edges out of the
+ * same source are serialized by one of a fixed set of striped locks, which makes
+ * each set() atomic and lets it return the exact previous weight; writers to
+ * different stripes proceed in parallel. remove() excludes all other writers
+ * while it unlinks a vertex.
+ *
+ * <p>The heaviest neighbours of a vertex are selected straight from its
+ * concurrent maps, without copying them.
+ *
+ * <p>Each returned set, map or list is a copy taken without blocking writers: it
+ * reflects every mutation that completed before the call began, and may or may
+ * not reflect mutations running concurrently with it. In particular, while a
+ * set() is in progress, sources() of its target may briefly lag targets() of
+ * its source.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public class ConcurrentGraph<L> implements MergeableGraph<L>, RankedGraph<L> {
+
+    private static final int STRIPES = 64;
+
+    private final ConcurrentHashMap<L, Node<L>> nodes = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final ReentrantReadWriteLock structure = new ReentrantReadWriteLock();
+
+    private final CheckPolicy policy;
+    private final AtomicLong mutations = new AtomicLong();
+
+    // Abstraction function:
+    //   AF(nodes) = a directed weighted graph whose vertices are the keys of
+    //     nodes, with an edge s -> t of weight w for each nodes.get(s).out.get(t) == w
+    //   each Node's in map, stripes and structure add nothing to the abstract value.
+    //
+    // Representation invariant (when no mutation is in progress):
+    //   - no null labels
+    //   - nodes.get(s).out.get(t) == nodes.get(t).in.get(s) for all vertices s, t,
+    //     and every key of an out or in map is a key of nodes
+    //   - all weights > 0
+    //
+    // Thread safety argument:
+    //   - nodes and every out and in map are ConcurrentHashMaps, so reads are safe
+    //     without locking and see each completed write
+    //   - entries with key t in out maps of s, and entries with key s in in maps,
+    //     are only written while holding stripe(s), so the two halves of an edge
+    //     are updated together and set() reads and writes its edge atomically
+    //   - add() and set() hold the read lock of structure, and remove() holds its
+    //     write lock, so no edge is added to a vertex while it is being removed
+    //
+    // Safety from rep exposure:
+    //   - all fields are private and final, and Node is private
+    //   - vertices(), sources() and targets() return unmodifiable copies
+
+    /**
+     * Create an empty graph that checks its rep as {@link CheckPolicy#defaultPolicy()} says.
+     */
+    public ConcurrentGraph() {
+        this(CheckPolicy.defaultPolicy());
+    }
+
+    /**
+     * Create an empty graph.
+     * Other threads may check only the part of the rep a writer holds the lock for,
+     * so the policy's full checks are made only by remove(); at other mutations
+     * any check covers the outgoing edges of the source vertex.
+     *
+     * @param policy how much of the rep to check after each mutation
+     */
+    public ConcurrentGraph(CheckPolicy policy) {
+        this.policy = Objects.requireNonNull(policy);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    // check the outgoing edges of source; caller holds stripe(source)
+    private void checkRep(L source) {
+        long mutation = mutations.incrementAndGet();
+        if (!policy.checksAll(mutation) && !policy.checksTouched(mutation)) return;
+        Node<L> node = nodes.get(source);
+        if (node == null) return;
+        for (Map.Entry<L, Integer> e : node.out.entrySet()) {
+            assert e.getValue() > 0;
+            Node<L> target = nodes.get(e.getKey());
+            assert target != null : "referenced vertex missing";
+            assert e.getValue().equals(target.in.get(source)) : "reverse edge missing";
+        }
+    }
+
+    // check the whole rep; caller holds the write lock of structure
+    private void checkWholeRep() {
+        long mutation = mutations.incrementAndGet();
+        if (!policy.checksAll(mutation) && !policy.checksTouched(mutation)) return;
+        for (Map.Entry<L, Node<L>> v : nodes.entrySet()) {
+            for (Map.Entry<L, Integer> e : v.getValue().out.entrySet()) {
+                assert e.getValue() > 0;
+                assert nodes.containsKey(e.getKey()) : "referenced vertex missing";
+                assert e.getValue().equals(nodes.get(e.getKey()).in.get(v.getKey()));
+            }
+            for (L s : v.getValue().in.keySet()) {
+                assert nodes.containsKey(s) : "referenced vertex missing";
+            }
+        }
+    }
+
+    private ReentrantLock stripe(L source) {
+        int h = source.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    private Node<L> nodeFor(L label) {
+        if (label == null) throw new IllegalArgumentException("null vertices not allowed");
+        return nodes.computeIfAbsent(label, k -> new Node<>());
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        if (vertex == null) throw new IllegalArgumentException("null vertices not allowed");
+        structure.readLock().lock();
+        try {
+            return nodes.putIfAbsent(vertex, new Node<>()) == null;
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("weight must be nonnegative");
+        structure.readLock().lock();
+        try {
+            Node<L> src = nodeFor(source);
+            Node<L> tgt = nodeFor(target);
+            ReentrantLock lock = stripe(source);
+            lock.lock();
+            try {
+                Integer previous;
+                if (weight > 0) {
+                    previous = src.out.put(target, weight);
+                    tgt.in.put(source, weight);
+                } else {
+                    previous = src.out.remove(target);
+                    tgt.in.remove(source);
+                }
+                checkRep(source);
+                return previous == null ? 0 : previous;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int merge(L source, L target, int weight, IntBinaryOperator remapping) {
+        if (source == null || target == null) throw new IllegalArgumentException("null vertices not allowed");
+        structure.readLock().lock();
+        try {
+            ReentrantLock lock = stripe(source);
+            lock.lock();
+            try {
+                Node<L> src = nodes.get(source);
+                Integer previous = src == null ? null : src.out.get(target);
+                int updated = MergeableGraph.merged(previous == null ? 0 : previous, weight, remapping);
+                src = nodeFor(source);
+                Node<L> tgt = nodeFor(target);
+                if (updated > 0) {
+                    src.out.put(target, updated);
+                    tgt.in.put(source, updated);
+                } else {
+                    src.out.remove(target);
+                    tgt.in.remove(source);
+                }
+                checkRep(source);
+                return updated;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        structure.writeLock().lock();
+        try {
+            Node<L> node = vertex == null ? null : nodes.remove(vertex);
+            if (node == null) return false;
+            for (L target : node.out.keySet()) {
+                Node<L> t = nodes.get(target);
+                if (t != null) t.in.remove(vertex);
+            }
+            for (L source : node.in.keySet()) {
+                Node<L> s = nodes.get(source);
+                if (s != null) s.out.remove(vertex);
+            }
+            checkWholeRep();
+            return true;
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<L> vertices() {
+        return Collections.unmodifiableSet(new HashSet<>(nodes.keySet()));
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        Node<L> node = target == null ? null : nodes.get(target);
+        return node == null ? Collections.emptyMap() : Collections.unmodifiableMap(new HashMap<>(node.in));
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        Node<L> node = source == null ? null : nodes.get(source);
+        return node == null ? Collections.emptyMap() : Collections.unmodifiableMap(new HashMap<>(node.out));
+    }
+
+    @Override
+    public List<WeightedEdge<L>> heaviestTargets(L source, int k) {
+        Heaviest.check(source, k);
+        Node<L> node = nodes.get(source);
+        return node == null ? List.of() : Heaviest.targets(source, Heaviest.entries(node.out.entrySet(), k));
+    }
+
+    @Override
+    public List<WeightedEdge<L>> heaviestSources(L target, int k) {
+        Heaviest.check(target, k);
+        Node<L> node = nodes.get(target);
+        return node == null ? List.of() : Heaviest.sources(target, Heaviest.entries(node.in.entrySet(), k));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("Vertices: " + nodes.keySet() + ", Edges: {");
+        String separator = "";
+        for (Map.Entry<L, Node<L>> v : nodes.entrySet()) {
+            s.append(separator).append(v.getKey()).append("=").append(v.getValue().out);
+            separator = ", ";
+        }
+        return s.append("}").toString();
+    }
+
+    /**
+     * The adjacency of one vertex of a ConcurrentGraph.
+     */
+    private static class Node<L> {
+        final ConcurrentHashMap<L, Integer> out = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<L, Integer> in = new ConcurrentHashMap<>();
+    }
+}
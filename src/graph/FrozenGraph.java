@@ -0,0 +1,472 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable weighted directed graph, stored in compact primitive arrays.
+ *
+ * <p>Each vertex has an int id. Labels are found by id in an array, and ids by
+ * label in an open-addressed table of ints. Edges are stored twice in
+ * compressed sparse row form, once grouped by source and once by target, as
+ * parallel int arrays of neighbour ids and weights with each vertex's
+ * neighbours sorted by id, so an edge is found by binary search. Apart from
+ * the labels themselves, a frozen graph holds no object per vertex or per
+ * edge; the maps and sets it returns are views over its arrays. Each vertex's
+ * neighbours are also ranked by weight, as one more int array per direction,
+ * so its k heaviest neighbours are found in O(k).
+ *
+ * <p>The mutators of a FrozenGraph throw UnsupportedOperationException.
+ * A FrozenGraph may be shared by threads without synchronization.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public final class FrozenGraph<L> implements RankedGraph<L> {
+
+    private final Object[] labels;
+    private final int[] table;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] outWeights;
+    private final int[] outRanked;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inWeights;
+    private final int[] inRanked;
+
+    // Abstraction function:
+    //   AF(labels, outOffsets, outTargets, outWeights, ...) = the graph whose
+    //     vertices are the labels, with an edge labels[i] -> labels[outTargets[k]]
+    //     of weight outWeights[k] for each k in [outOffsets[i] .. outOffsets[i+1])
+    //   table, inOffsets, inSources and inWeights index the same vertices and
+    //     edges, and outRanked and inRanked order them; none of them add to
+    //     the abstract value
+    //
+    // Representation invariant:
+    //   - labels are distinct and not null
+    //   - table.length is a power of two greater than labels.length; each
+    //     label's id + 1 is in table, at the first empty-or-matching slot
+    //     probing linearly from slot(label); all other slots are 0
+    //   - outOffsets and inOffsets have labels.length + 1 entries,
+    //     nondecreasing from 0 to the number of edges
+    //   - within each vertex's range, outTargets (inSources) are strictly
+    //     increasing ids in [0, labels.length), and all weights are positive
+    //   - inSources and inWeights hold exactly the edges of outTargets and
+    //     outWeights
+    //   - within each vertex's range, outRanked (inRanked) is a permutation of
+    //     the positions in that range, in nonincreasing order of outWeights
+    //     (inWeights)
+    //
+    // Safety from rep exposure:
+    //   - all fields are private and final, and no array is returned
+    //   - vertices(), sources() and targets() return unmodifiable views
+    //
+    // Thread safety argument:
+    //   - all fields are final and the arrays are never changed after
+    //     construction, so the graph is safely published and immutable
+
+    private FrozenGraph(Object[] labels, int[] table, int[] outOffsets, int[] outTargets, int[] outWeights,
+            int[] inOffsets, int[] inSources, int[] inWeights) {
+        this.labels = labels;
+        this.table = table;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.outWeights = outWeights;
+        this.outRanked = rank(outOffsets, outWeights);
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+        this.inWeights = inWeights;
+        this.inRanked = rank(inOffsets, inWeights);
+        assert checkRep();
+    }
+
+    // walks the whole graph, so returns true to be run as `assert checkRep()`,
+    // only when assertions are enabled
+    private boolean checkRep() {
+        assert Integer.bitCount(table.length) == 1 && table.length > labels.length;
+        for (int id = 0; id < labels.length; id++) {
+            assert labels[id] != null;
+            assert id(labels[id]) == id;
+        }
+        int filled = 0;
+        for (int slot : table) {
+            if (slot != 0) filled++;
+        }
+        assert filled == labels.length;
+        long checksum = 0;
+        for (int id = 0; id < labels.length; id++) {
+            checksum += checkAdjacency(id, outOffsets, outTargets, outWeights, true);
+            checksum -= checkAdjacency(id, inOffsets, inSources, inWeights, false);
+            checkRanked(id, outOffsets, outWeights, outRanked);
+            checkRanked(id, inOffsets, inWeights, inRanked);
+        }
+        assert checksum == 0;
+        return true;
+    }
+
+    private static void checkRanked(int id, int[] offsets, int[] weights, int[] ranked) {
+        boolean[] seen = new boolean[offsets[id + 1] - offsets[id]];
+        for (int r = offsets[id]; r < offsets[id + 1]; r++) {
+            assert offsets[id] <= ranked[r] && ranked[r] < offsets[id + 1];
+            assert !seen[ranked[r] - offsets[id]];
+            seen[ranked[r] - offsets[id]] = true;
+            assert r == offsets[id] || weights[ranked[r - 1]] >= weights[ranked[r]];
+        }
+    }
+
+    // the positions of each vertex's range, ranked by decreasing weight, ties
+    // in increasing order of position
+    private static int[] rank(int[] offsets, int[] weights) {
+        int[] ranked = new int[weights.length];
+        long[] keys = new long[weights.length];
+        for (int k = 0; k < weights.length; k++) {
+            keys[k] = (long) (Integer.MAX_VALUE - weights[k]) << 32 | k;
+        }
+        for (int id = 0; id + 1 < offsets.length; id++) {
+            Arrays.sort(keys, offsets[id], offsets[id + 1]);
+        }
+        for (int k = 0; k < weights.length; k++) {
+            ranked[k] = (int) keys[k];
+        }
+        return ranked;
+    }
+
+    // checks one vertex's adjacency; returns a sum over its edges that is the
+    // same whichever direction they are grouped by
+    private long checkAdjacency(int id, int[] offsets, int[] ids, int[] weights, boolean out) {
+        assert offsets[id] <= offsets[id + 1];
+        long sum = 0;
+        for (int k = offsets[id]; k < offsets[id + 1]; k++) {
+            assert 0 <= ids[k] && ids[k] < labels.length;
+            assert k == offsets[id] || ids[k - 1] < ids[k];
+            assert weights[k] > 0;
+            long edge = out ? (long) id * labels.length + ids[k] : (long) ids[k] * labels.length + id;
+            sum += edge * 31 + weights[k];
+        }
+        return sum;
+    }
+
+    /**
+     * Make an immutable copy of a graph.
+     *
+     * @param <L> type of vertex labels in the graph, must be immutable
+     * @param graph graph to copy, which must not change while this runs
+     * @return a frozen graph with the same vertices and edges as graph; its
+     *         vertices are in the order graph.vertices() had them
+     */
+    public static <L> FrozenGraph<L> of(Graph<L> graph) {
+        Object[] labels = graph.vertices().toArray();
+        int n = labels.length;
+        int[] table = new int[tableSize(n)];
+        for (int id = 0; id < n; id++) {
+            int slot = slot(labels[id], table.length);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & (table.length - 1);
+            }
+            table[slot] = id + 1;
+        }
+
+        // targets of each vertex, as (id << 32 | weight), sorted by id
+        int[] outOffsets = new int[n + 1];
+        for (int id = 0; id < n; id++) {
+            @SuppressWarnings("unchecked")
+            L label = (L) labels[id];
+            outOffsets[id + 1] = outOffsets[id] + graph.targets(label).size();
+        }
+        int edges = outOffsets[n];
+        long[] packed = new long[edges];
+        int[] inOffsets = new int[n + 1];
+        for (int id = 0; id < n; id++) {
+            @SuppressWarnings("unchecked")
+            L label = (L) labels[id];
+            int k = outOffsets[id];
+            for (Map.Entry<L, Integer> e : graph.targets(label).entrySet()) {
+                int target = find(labels, table, e.getKey());
+                packed[k++] = (long) target << 32 | e.getValue();
+                inOffsets[target + 1]++;
+            }
+            Arrays.sort(packed, outOffsets[id], k);
+        }
+        int[] outTargets = new int[edges];
+        int[] outWeights = new int[edges];
+        for (int k = 0; k < edges; k++) {
+            outTargets[k] = (int) (packed[k] >>> 32);
+            outWeights[k] = (int) packed[k];
+        }
+
+        // group the edges by target; sources come out sorted, since edges are
+        // visited in order of source id
+        for (int id = 0; id < n; id++) {
+            inOffsets[id + 1] += inOffsets[id];
+        }
+        int[] next = Arrays.copyOf(inOffsets, n);
+        int[] inSources = new int[edges];
+        int[] inWeights = new int[edges];
+        for (int id = 0; id < n; id++) {
+            for (int k = outOffsets[id]; k < outOffsets[id + 1]; k++) {
+                int slot = next[outTargets[k]]++;
+                inSources[slot] = id;
+                inWeights[slot] = outWeights[k];
+            }
+        }
+        return new FrozenGraph<>(labels, table, outOffsets, outTargets, outWeights,
+                inOffsets, inSources, inWeights);
+    }
+
+    // smallest power of two at least twice n, and at least 2
+    private static int tableSize(int n) {
+        return Math.max(2, Integer.highestOneBit(Math.max(1, n)) << 2);
+    }
+
+    private static int slot(Object label, int tableLength) {
+        int h = label.hashCode();
+        // Fibonacci hashing: the top bits of the product, as many as index the table
+        return (h ^ (h >>> 16)) * 0x9E3779B9 >>> (Integer.numberOfLeadingZeros(tableLength) + 1);
+    }
+
+    // the id of a label in labels, using table, or -1 if it is not there
+    private static int find(Object[] labels, int[] table, Object label) {
+        if (label == null) return -1;
+        for (int slot = slot(label, table.length); table[slot] != 0; slot = (slot + 1) & (table.length - 1)) {
+            int id = table[slot] - 1;
+            if (labels[id].equals(label)) return id;
+        }
+        return -1;
+    }
+
+    private int id(Object label) {
+        return find(labels, table, label);
+    }
+
+    @SuppressWarnings("unchecked")
+    private L label(int id) {
+        return (L) labels[id];
+    }
+
+    private static <L> L requireLabel(L label) {
+        if (label == null) throw new IllegalArgumentException("null vertices not allowed");
+        return label;
+    }
+
+    /**
+     * @return number of edges in this graph
+     */
+    public int edgeCount() {
+        return outTargets.length;
+    }
+
+    /**
+     * Unsupported: a FrozenGraph cannot be changed.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean add(L vertex) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable");
+    }
+
+    /**
+     * Unsupported: a FrozenGraph cannot be changed.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public int set(L source, L target, int weight) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable");
+    }
+
+    /**
+     * Unsupported: a FrozenGraph cannot be changed.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean remove(L vertex) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable");
+    }
+
+    /**
+     * @return an unmodifiable view of the vertices of this graph
+     */
+    @Override
+    public Set<L> vertices() {
+        return new AbstractSet<L>() {
+            @Override
+            public int size() {
+                return labels.length;
+            }
+
+            @Override
+            public boolean contains(Object label) {
+                return id(label) >= 0;
+            }
+
+            @Override
+            public Iterator<L> iterator() {
+                return new Iterator<L>() {
+                    private int next = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < labels.length;
+                    }
+
+                    @Override
+                    public L next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        return label(next++);
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * @return an unmodifiable view of the sources of target, as specified by
+     *         {@link Graph#sources(Object)}
+     */
+    @Override
+    public Map<L, Integer> sources(L target) {
+        int id = id(requireLabel(target));
+        if (id < 0) return Collections.emptyMap();
+        return new Adjacent(inOffsets[id], inOffsets[id + 1], inSources, inWeights);
+    }
+
+    /**
+     * @return an unmodifiable view of the targets of source, as specified by
+     *         {@link Graph#targets(Object)}
+     */
+    @Override
+    public Map<L, Integer> targets(L source) {
+        int id = id(requireLabel(source));
+        if (id < 0) return Collections.emptyMap();
+        return new Adjacent(outOffsets[id], outOffsets[id + 1], outTargets, outWeights);
+    }
+
+    /**
+     * @return the heaviest edges out of source, as specified by
+     *         {@link RankedGraph#heaviestTargets(Object, int)}, found in O(k)
+     *         time; edges of equal weight come in the order of targets()
+     */
+    @Override
+    public List<WeightedEdge<L>> heaviestTargets(L source, int k) {
+        Heaviest.check(source, k);
+        int id = id(source);
+        if (id < 0) return List.of();
+        int from = outOffsets[id];
+        int to = from + Math.min(k, outOffsets[id + 1] - from);
+        List<WeightedEdge<L>> edges = new ArrayList<>(to - from);
+        for (int r = from; r < to; r++) {
+            edges.add(new WeightedEdge<>(source, label(outTargets[outRanked[r]]), outWeights[outRanked[r]]));
+        }
+        return Collections.unmodifiableList(edges);
+    }
+
+    /**
+     * @return the heaviest edges into target, as specified by
+     *         {@link RankedGraph#heaviestSources(Object, int)}, found in O(k)
+     *         time; edges of equal weight come in the order of sources()
+     */
+    @Override
+    public List<WeightedEdge<L>> heaviestSources(L target, int k) {
+        Heaviest.check(target, k);
+        int id = id(target);
+        if (id < 0) return List.of();
+        int from = inOffsets[id];
+        int to = from + Math.min(k, inOffsets[id + 1] - from);
+        List<WeightedEdge<L>> edges = new ArrayList<>(to - from);
+        for (int r = from; r < to; r++) {
+            edges.add(new WeightedEdge<>(label(inSources[inRanked[r]]), target, inWeights[inRanked[r]]));
+        }
+        return Collections.unmodifiableList(edges);
+    }
+
+    @Override
+    public String toString() {
+        return "FrozenGraph(" + labels.length + " vertices, " + outTargets.length + " edges)";
+    }
+
+    /**
+     * Unmodifiable view of one vertex's neighbours: ids[from..to), sorted, with
+     * weights[from..to).
+     */
+    private class Adjacent extends AbstractMap<L, Integer> {
+        private final int from;
+        private final int to;
+        private final int[] ids;
+        private final int[] weights;
+
+        Adjacent(int from, int to, int[] ids, int[] weights) {
+            this.from = from;
+            this.to = to;
+            this.ids = ids;
+            this.weights = weights;
+        }
+
+        // index in ids of a neighbour, or -1 if label is not one
+        private int find(Object label) {
+            int id = id(label);
+            if (id < 0) return -1;
+            int k = Arrays.binarySearch(ids, from, to, id);
+            return k < 0 ? -1 : k;
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        public boolean containsKey(Object label) {
+            return find(label) >= 0;
+        }
+
+        @Override
+        public Integer get(Object label) {
+            int k = find(label);
+            return k < 0 ? null : weights[k];
+        }
+
+        @Override
+        public Set<Map.Entry<L, Integer>> entrySet() {
+            return new AbstractSet<Map.Entry<L, Integer>>() {
+                @Override
+                public int size() {
+                    return to - from;
+                }
+
+                @Override
+                public Iterator<Map.Entry<L, Integer>> iterator() {
+                    return new Iterator<Map.Entry<L, Integer>>() {
+                        private int next = from;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < to;
+                        }
+
+                        @Override
+                        public Map.Entry<L, Integer> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            Map.Entry<L, Integer> e = new AbstractMap.SimpleImmutableEntry<>(
+                                    label(ids[next]), weights[next]);
+                            next++;
+                            return e;
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
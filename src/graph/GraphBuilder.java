@@ -0,0 +1,246 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntBinaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * A mutable collector of vertices and weighted edges, for building a graph
+ * from many edges at once.
+ *
+ * <p>Edges are merged as they arrive: an edge between vertices that already
+ * have one is combined with it by the builder's merge function (by default,
+ * the weights are added, which counts repeated adjacencies). A graph built
+ * from the builder is then filled in one pass with its structures sized up
+ * front, checking its rep once rather than after every edge.
+ *
+ * <p>Graphs can be built from a builder with {@link #build()},
+ * {@link ConcreteEdgesGraph#ConcreteEdgesGraph(GraphBuilder)} or
+ * {@link ConcreteVerticesGraph#ConcreteVerticesGraph(GraphBuilder)}. The
+ * builder stays usable afterwards, and shares no state with the graphs built
+ * from it.
+ *
+ * @param <L> type of vertex labels, must be immutable
+ */
+public final class GraphBuilder<L> {
+
+    private final Map<L, Map<L, Integer>> adjacency;
+    private final IntBinaryOperator merge;
+    private int edgeCount = 0;
+
+    // Abstraction function:
+    //   AF(adjacency, merge, edgeCount) = a graph under construction, whose
+    //     vertices are the keys of adjacency in the order they were first seen,
+    //     with an edge s -> t of weight w for each adjacency.get(s).get(t) == w;
+    //     duplicate edges are combined with merge
+    //
+    // Representation invariant:
+    //   - no null labels; every target in an inner map is a key of adjacency
+    //   - all weights > 0
+    //   - edgeCount is the total size of the inner maps
+    //
+    // Safety from rep exposure:
+    //   - all fields are private and final, or primitive
+    //   - adjacency() is package-private and returns an unmodifiable view
+
+    /**
+     * Create an empty builder that adds the weights of duplicate edges.
+     */
+    public GraphBuilder() {
+        this(16, Integer::sum);
+    }
+
+    /**
+     * Create an empty builder that adds the weights of duplicate edges.
+     *
+     * @param expectedVertices number of vertices the graph is expected to have,
+     *        used to size the builder's structures
+     */
+    public GraphBuilder(int expectedVertices) {
+        this(expectedVertices, Integer::sum);
+    }
+
+    /**
+     * Create an empty builder.
+     *
+     * @param expectedVertices number of vertices the graph is expected to have,
+     *        used to size the builder's structures
+     * @param merge function from the weight an edge has so far and the weight of a
+     *        duplicate of it to the combined weight, which must be positive
+     */
+    public GraphBuilder(int expectedVertices, IntBinaryOperator merge) {
+        this.adjacency = new LinkedHashMap<>(Math.max(16, expectedVertices * 4 / 3 + 1));
+        this.merge = Objects.requireNonNull(merge);
+    }
+
+    /**
+     * Create a builder holding a stream of edges, adding the weights of duplicates.
+     *
+     * @param <L> type of vertex labels, must be immutable
+     * @param edges edges to add, in order
+     * @param expectedVertices number of vertices the graph is expected to have
+     * @return a builder holding the edges
+     */
+    public static <L> GraphBuilder<L> of(Stream<WeightedEdge<L>> edges, int expectedVertices) {
+        return new GraphBuilder<L>(expectedVertices).addAll(edges);
+    }
+
+    // walks every edge built so far, so it runs from every addAll() only as
+    // `assert checkRep()`, keeping chunked builds linear with assertions off
+    private boolean checkRep() {
+        int edges = 0;
+        for (Map.Entry<L, Map<L, Integer>> v : adjacency.entrySet()) {
+            assert v.getKey() != null;
+            for (Map.Entry<L, Integer> e : v.getValue().entrySet()) {
+                assert adjacency.containsKey(e.getKey());
+                assert e.getValue() > 0;
+            }
+            edges += v.getValue().size();
+        }
+        assert edges == edgeCount;
+        return true;
+    }
+
+    private Map<L, Integer> targetsOf(L vertex) {
+        if (vertex == null) throw new IllegalArgumentException("null vertices not allowed");
+        return adjacency.computeIfAbsent(vertex, k -> new LinkedHashMap<>());
+    }
+
+    /**
+     * Add a vertex, if it is not already present.
+     *
+     * @param vertex label of the vertex
+     * @return this builder
+     */
+    public GraphBuilder<L> add(L vertex) {
+        targetsOf(vertex);
+        return this;
+    }
+
+    /**
+     * Add an edge, and its vertices if they are not already present.
+     * If the edge is already present, its weight becomes the merge of its current
+     * weight and this one.
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param weight positive weight
+     * @return this builder
+     * @throws IllegalArgumentException if source or target is null, weight is not
+     *         positive, or the merge of weights is not positive; the builder is
+     *         then unchanged
+     */
+    public GraphBuilder<L> add(L source, L target, int weight) {
+        if (weight <= 0) throw new IllegalArgumentException("weight must be greater than zero");
+        if (source == null || target == null) throw new IllegalArgumentException("null vertices not allowed");
+        // validate before adding any vertex, so a rejected edge changes nothing
+        Map<L, Integer> existing = adjacency.get(source);
+        Integer previous = existing == null ? null : existing.get(target);
+        int updated = previous == null ? weight : merge.applyAsInt(previous, weight);
+        if (updated <= 0) throw new IllegalArgumentException("merged weight must be greater than zero");
+        Map<L, Integer> targets = targetsOf(source);
+        targetsOf(target);
+        targets.put(target, updated);
+        if (previous == null) edgeCount++;
+        return this;
+    }
+
+    /**
+     * Add an edge, as {@link #add(Object, Object, int) add(source, target, weight)}.
+     *
+     * @param edge edge to add
+     * @return this builder
+     */
+    public GraphBuilder<L> add(WeightedEdge<L> edge) {
+        return add(edge.source(), edge.target(), edge.weight());
+    }
+
+    /**
+     * Add edges, in order.
+     *
+     * @param edges edges to add
+     * @return this builder
+     */
+    public GraphBuilder<L> addAll(Iterator<WeightedEdge<L>> edges) {
+        while (edges.hasNext()) {
+            add(edges.next());
+        }
+        assert checkRep();
+        return this;
+    }
+
+    /**
+     * Add edges, in encounter order.
+     *
+     * @param edges edges to add; consumed by this call
+     * @return this builder
+     */
+    public GraphBuilder<L> addAll(Stream<WeightedEdge<L>> edges) {
+        edges.forEachOrdered(this::add);
+        assert checkRep();
+        return this;
+    }
+
+    /**
+     * Add every vertex and edge of another builder, merging edges with this
+     * builder's merge function.
+     *
+     * @param other another builder whose content to add; not modified
+     * @return this builder
+     * @throws IllegalArgumentException if other is this builder
+     */
+    public GraphBuilder<L> addAll(GraphBuilder<L> other) {
+        if (other == this) throw new IllegalArgumentException("cannot add a builder to itself");
+        for (Map.Entry<L, Map<L, Integer>> v : other.adjacency.entrySet()) {
+            add(v.getKey());
+            for (Map.Entry<L, Integer> e : v.getValue().entrySet()) {
+                add(v.getKey(), e.getKey(), e.getValue());
+            }
+        }
+        assert checkRep();
+        return this;
+    }
+
+    /**
+     * @return number of vertices added so far
+     */
+    public int vertexCount() {
+        return adjacency.size();
+    }
+
+    /**
+     * @return number of distinct edges added so far
+     */
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Build a graph of the same kind {@link Graph#empty()} returns.
+     *
+     * @return a new graph with exactly the vertices and edges in this builder
+     */
+    public MergeableGraph<L> build() {
+        return new AdaptiveGraph<>(this, CheckPolicy.defaultPolicy());
+    }
+
+    /**
+     * @return unmodifiable view from each vertex, in the order vertices were first
+     *         added, to its outgoing edges; valid until this builder is next changed
+     */
+    Map<L, Map<L, Integer>> adjacency() {
+        return Collections.unmodifiableMap(adjacency);
+    }
+
+    @Override
+    public String toString() {
+        return "GraphBuilder" + adjacency;
+    }
+}
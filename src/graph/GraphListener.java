@@ -0,0 +1,34 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * Told about each call to a graph wrapped in an {@link InstrumentedGraph}.
+ * A listener may be told about calls from many threads at once, so it must be
+ * thread-safe if the graph is used by more than one thread. It is called on the
+ * thread that made the call, after the call returns, so it should be quick.
+ */
+public interface GraphListener {
+
+    /**
+     * The operations of Graph, and of its MergeableGraph and RankedGraph
+     * extensions; increment() is told as MERGE.
+     */
+    public enum Operation {
+        ADD, SET, REMOVE, VERTICES, SOURCES, TARGETS, MERGE, HEAVIEST_SOURCES, HEAVIEST_TARGETS
+    }
+
+    /**
+     * Called after a call to the graph returns normally.
+     *
+     * @param operation the operation called
+     * @param nanos time the call took, in nanoseconds
+     * @param size for VERTICES, SOURCES and TARGETS, the size of the returned
+     *        set or map; for HEAVIEST_SOURCES and HEAVIEST_TARGETS, the length
+     *        of the returned list; for MERGE, 1 if the edge is left with a
+     *        weight and 0 if it was removed; for the other operations, 1 if
+     *        the call changed the graph and 0 if not
+     */
+    public void called(Operation operation, long nanos, int size);
+}
@@ -0,0 +1,179 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * A thread-safe GraphListener that counts calls to each operation, the time
+ * spent in them, and the sizes of the sets and maps they return. Counting uses
+ * striped adders, so threads calling the graph at once do not contend on the
+ * counts.
+ *
+ * <p>The counts can be read directly, or through JMX once the metrics are
+ * {@link #register(String) registered}.
+ */
+public final class GraphMetrics implements GraphListener, GraphMetricsMBean {
+
+    private static final int OPERATIONS = Operation.values().length;
+
+    private final LongAdder[] calls = new LongAdder[OPERATIONS];
+    private final LongAdder[] nanos = new LongAdder[OPERATIONS];
+    private final LongAdder[] sizes = new LongAdder[OPERATIONS];
+
+    // Abstraction function:
+    //   AF(calls, nanos, sizes) = for each operation op, calls[op.ordinal()]
+    //     calls taking nanos[op.ordinal()] nanoseconds in all, with sizes
+    //     summing to sizes[op.ordinal()]
+    // Representation invariant:
+    //   every array has one non-null adder per operation, and every sum is
+    //   nonnegative (while no reset() is in progress)
+    // Safety from rep exposure:
+    //   all fields are private and final, and only sums are returned
+    // Thread safety argument:
+    //   the arrays are never changed after construction, and LongAdder is
+    //   thread-safe; sums read while calls are counted may be slightly behind
+
+    /**
+     * Create metrics with every count zero.
+     */
+    public GraphMetrics() {
+        for (int i = 0; i < OPERATIONS; i++) {
+            calls[i] = new LongAdder();
+            nanos[i] = new LongAdder();
+            sizes[i] = new LongAdder();
+        }
+        checkRep();
+    }
+
+    private void checkRep() {
+        for (int i = 0; i < OPERATIONS; i++) {
+            assert calls[i] != null && nanos[i] != null && sizes[i] != null;
+        }
+    }
+
+    @Override
+    public void called(Operation operation, long nanos, int size) {
+        int i = operation.ordinal();
+        this.calls[i].increment();
+        this.nanos[i].add(nanos);
+        this.sizes[i].add(size);
+    }
+
+    /**
+     * @param operation an operation
+     * @return number of calls to operation counted
+     */
+    public long calls(Operation operation) {
+        return calls[operation.ordinal()].sum();
+    }
+
+    /**
+     * @param operation an operation
+     * @return nanoseconds spent in the calls to operation counted
+     */
+    public long nanos(Operation operation) {
+        return nanos[operation.ordinal()].sum();
+    }
+
+    /**
+     * @param operation an operation
+     * @return sum of the sizes of the calls to operation counted, as
+     *         {@link GraphListener#called} defines them
+     */
+    public long sizes(Operation operation) {
+        return sizes[operation.ordinal()].sum();
+    }
+
+    @Override
+    public long getSetCalls() {
+        return calls(Operation.SET);
+    }
+
+    @Override
+    public long getSetNanos() {
+        return nanos(Operation.SET);
+    }
+
+    @Override
+    public long getMergeCalls() {
+        return calls(Operation.MERGE);
+    }
+
+    @Override
+    public long getMergeNanos() {
+        return nanos(Operation.MERGE);
+    }
+
+    @Override
+    public long getSourcesCalls() {
+        return calls(Operation.SOURCES);
+    }
+
+    @Override
+    public long getSourcesNanos() {
+        return nanos(Operation.SOURCES);
+    }
+
+    @Override
+    public long getSourcesSize() {
+        return sizes(Operation.SOURCES);
+    }
+
+    @Override
+    public long getTargetsCalls() {
+        return calls(Operation.TARGETS);
+    }
+
+    @Override
+    public long getTargetsNanos() {
+        return nanos(Operation.TARGETS);
+    }
+
+    @Override
+    public long getTargetsSize() {
+        return sizes(Operation.TARGETS);
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < OPERATIONS; i++) {
+            calls[i].reset();
+            nanos[i].reset();
+            sizes[i].reset();
+        }
+    }
+
+    /**
+     * Make these metrics readable through JMX, in the platform MBean server.
+     *
+     * @param name name distinguishing these metrics from other registered
+     *        GraphMetrics, e.g. the name of the graph
+     * @return the name registered: type GraphMetrics in domain graph, with
+     *         the given name, quoted
+     * @throws JMException if the name is malformed or already registered
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("graph:type=GraphMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("GraphMetrics(");
+        for (Operation operation : Operation.values()) {
+            if (operation.ordinal() > 0) s.append(", ");
+            s.append(operation.name().toLowerCase(Locale.ROOT)).append(' ')
+                .append(calls(operation)).append(" calls ")
+                .append(nanos(operation)).append(" ns");
+        }
+        return s.append(')').toString();
+    }
+}
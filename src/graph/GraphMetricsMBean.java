@@ -0,0 +1,46 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * The JMX management interface of {@link GraphMetrics}: the totals it has
+ * counted for the operations on the hot path of graph clients.
+ */
+public interface GraphMetricsMBean {
+
+    /** @return number of calls to set() */
+    public long getSetCalls();
+
+    /** @return nanoseconds spent in set() */
+    public long getSetNanos();
+
+    /** @return number of calls to merge() and increment() */
+    public long getMergeCalls();
+
+    /** @return nanoseconds spent in merge() and increment() */
+    public long getMergeNanos();
+
+    /** @return number of calls to sources() */
+    public long getSourcesCalls();
+
+    /** @return nanoseconds spent in sources() */
+    public long getSourcesNanos();
+
+    /** @return total size of the maps returned by sources() */
+    public long getSourcesSize();
+
+    /** @return number of calls to targets() */
+    public long getTargetsCalls();
+
+    /** @return nanoseconds spent in targets() */
+    public long getTargetsNanos();
+
+    /** @return total size of the maps returned by targets() */
+    public long getTargetsSize();
+
+    /**
+     * Set every count back to zero.
+     */
+    public void reset();
+}
@@ -0,0 +1,225 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Saves graphs with String labels to files, and loads them back, in a compact
+ * binary format.
+ *
+ * <p>A snapshot file holds, in order:
+ * <ul><li> the magic bytes "GRPH" and the format {@link #VERSION}, as a 4-byte
+ *          big-endian int
+ *     <li> the number of vertices and of edges, as varints
+ *     <li> a string table: each label as the varint length of its UTF-8 bytes
+ *          followed by the bytes, in sorted order, so a vertex's id is its
+ *          position in the table
+ *     <li> for each vertex in id order, its adjacency list: the varint number
+ *          of its targets, then for each target in increasing id order the
+ *          varint difference from the previous target's id (or the id itself,
+ *          for the first) and the varint weight
+ *     <li> the CRC-32 of everything before it, as a 4-byte big-endian int </ul>
+ * <p>Varints are unsigned LEB128: seven bits per byte, least significant
+ * first, with the high bit set on every byte but the last.
+ *
+ * <p>Loading reads the file through a memory mapping and decodes it straight
+ * into a {@link GraphBuilder}, from which any implementation can be built
+ * without going through the text the graph was made from.
+ */
+public final class GraphSnapshot {
+
+    /** Version of the format written by {@link #write(Graph, Path) write()}. */
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = { 'G', 'R', 'P', 'H' };
+
+    private GraphSnapshot() {
+        throw new AssertionError("uninstantiable");
+    }
+
+    /**
+     * Save a graph to a snapshot file, replacing the file if it exists.
+     *
+     * @param graph graph to save, which must not change while this runs; its
+     *        labels must be valid UTF-16 (no unpaired surrogates) to be
+     *        loaded back unchanged
+     * @param file where to save it
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Graph<String> graph, Path file) throws IOException {
+        List<String> labels = new ArrayList<>(graph.vertices());
+        Collections.sort(labels);
+        Map<String, Integer> ids = new HashMap<>(labels.size() * 4 / 3 + 1);
+        for (String label : labels) {
+            ids.put(label, ids.size());
+        }
+        long edges = 0;
+        for (String label : labels) {
+            edges += graph.targets(label).size();
+        }
+
+        CRC32 crc = new CRC32();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            CheckedOutputStream checked = new CheckedOutputStream(out, crc);
+            checked.write(MAGIC);
+            writeInt(checked, VERSION);
+            writeVarint(checked, labels.size());
+            writeVarint(checked, edges);
+            for (String label : labels) {
+                byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+                writeVarint(checked, bytes.length);
+                checked.write(bytes);
+            }
+            int[] targets = new int[0];
+            for (String label : labels) {
+                Map<String, Integer> adjacent = graph.targets(label);
+                if (targets.length < adjacent.size()) targets = new int[adjacent.size()];
+                int n = 0;
+                for (String target : adjacent.keySet()) {
+                    targets[n++] = ids.get(target);
+                }
+                Arrays.sort(targets, 0, n);
+                writeVarint(checked, n);
+                int previous = 0;
+                for (int i = 0; i < n; i++) {
+                    writeVarint(checked, targets[i] - previous);
+                    writeVarint(checked, adjacent.get(labels.get(targets[i])));
+                    previous = targets[i];
+                }
+            }
+            writeInt(out, (int) crc.getValue());
+        }
+    }
+
+    /**
+     * Load a graph from a snapshot file.
+     *
+     * @param file snapshot file written by {@link #write(Graph, Path) write()}
+     * @return a builder holding exactly the vertices and edges of the saved graph
+     * @throws IOException if the file cannot be read, or is not a snapshot of
+     *         this version, or its checksum does not match its content
+     */
+    public static GraphBuilder<String> read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("snapshot too large to map: " + size + " bytes");
+            }
+            if (size < MAGIC.length + 8) {
+                throw new IOException("not a graph snapshot: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            for (byte b : MAGIC) {
+                if (buffer.get() != b) throw new IOException("not a graph snapshot: " + file);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported snapshot version " + version + ": " + file);
+            }
+            int end = (int) size - 4;
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().position(0).limit(end));
+            if ((int) crc.getValue() != buffer.getInt(end)) {
+                throw new IOException("snapshot checksum mismatch: " + file);
+            }
+            try {
+                return decode(buffer.limit(end));
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException("corrupt snapshot: " + file, e);
+            }
+        }
+    }
+
+    // decode the rest of a snapshot after its version, up to the checksum
+    private static GraphBuilder<String> decode(ByteBuffer in) throws IOException {
+        int vertexCount = readCount(in);
+        long edgeCount = readVarint(in);
+        GraphBuilder<String> builder = new GraphBuilder<>(vertexCount);
+        String[] labels = new String[vertexCount];
+        byte[] bytes = new byte[64];
+        for (int id = 0; id < vertexCount; id++) {
+            int length = readCount(in);
+            if (bytes.length < length) bytes = new byte[Math.max(length, 2 * bytes.length)];
+            in.get(bytes, 0, length);
+            labels[id] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            if (id > 0 && labels[id - 1].compareTo(labels[id]) >= 0) {
+                throw new IOException("string table out of order in snapshot");
+            }
+            builder.add(labels[id]);
+        }
+        long edges = 0;
+        for (int id = 0; id < vertexCount; id++) {
+            int degree = readCount(in);
+            long target = 0;
+            for (int i = 0; i < degree; i++) {
+                long delta = readVarint(in);
+                if (i > 0 && delta == 0) throw new IOException("duplicate edge in snapshot");
+                target += delta;
+                if (target >= vertexCount) throw new IOException("edge to unknown vertex in snapshot");
+                long weight = readVarint(in);
+                if (weight <= 0 || weight > Integer.MAX_VALUE) {
+                    throw new IOException("edge weight out of range in snapshot: " + weight);
+                }
+                builder.add(labels[id], labels[(int) target], (int) weight);
+            }
+            edges += degree;
+        }
+        if (edges != edgeCount || in.hasRemaining()) {
+            throw new IOException("snapshot does not match its header");
+        }
+        return builder;
+    }
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static void writeVarint(OutputStream out, long value) throws IOException {
+        assert value >= 0;
+        while (value >= 0x80) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IOException("varint too long in snapshot");
+    }
+
+    // a varint that counts something stored in the snapshot, so fits in an int
+    private static int readCount(ByteBuffer in) throws IOException {
+        long count = readVarint(in);
+        if (count > in.remaining()) throw new IOException("count out of range in snapshot: " + count);
+        return (int) count;
+    }
+}
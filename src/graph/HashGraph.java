@@ -0,0 +1,270 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * An implementation of Graph that keeps hashed adjacency maps in both
+ * directions, so every operation costs O(1) or O(degree).
+ *
+ * <p>The heaviest neighbours of a vertex are selected straight from its
+ * adjacency map in O(d log k), allocating only the k edges returned.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+class HashGraph<L> implements MergeableGraph<L>, RankedGraph<L> {
+
+    private final SnapshotMap<L, SnapshotMap<L, Integer>> out;
+    private final Map<L, SnapshotMap<L, Integer>> in;
+    private int edgeCount = 0;
+
+    private final CheckPolicy policy;
+    private long mutations = 0;
+
+    // Abstraction function:
+    //   AF(out, in, edgeCount) = a directed weighted graph whose vertices are
+    //     the keys of out, with an edge s -> t of weight w for each
+    //     out.get(s).get(t) == w.
+    //   in and edgeCount are indexes and add nothing to the abstract value.
+    //
+    // Representation invariant:
+    //   - out.keySet() equals in.keySet(), and contains no null
+    //   - out.get(s).get(t) == in.get(t).get(s) for all vertices s, t
+    //   - all weights > 0
+    //   - edgeCount is the total size of the maps in out
+    //
+    // Safety from rep exposure:
+    //   - all fields are private and final, or primitive
+    //   - vertices(), sources() and targets() return unmodifiable snapshots, which
+    //     SnapshotMap copies away from before the graph writes to it again
+
+    /**
+     * Create an empty graph that checks its rep as {@link CheckPolicy#defaultPolicy()} says.
+     */
+    HashGraph() {
+        this(CheckPolicy.defaultPolicy());
+    }
+
+    /**
+     * Create an empty graph.
+     *
+     * @param policy how much of the rep to check after each mutation
+     */
+    HashGraph(CheckPolicy policy) {
+        this.policy = Objects.requireNonNull(policy);
+        this.out = new SnapshotMap<>();
+        this.in = new HashMap<>();
+        checkWholeRep();
+    }
+
+    /**
+     * Create a graph with the vertices and edges collected by a builder, filled in
+     * one pass with its maps sized up front.
+     *
+     * @param content vertices and edges of the new graph
+     * @param policy how much of the rep to check after each mutation
+     */
+    HashGraph(GraphBuilder<L> content, CheckPolicy policy) {
+        this.policy = Objects.requireNonNull(policy);
+        Map<L, Map<L, Integer>> adjacency = content.adjacency();
+        this.out = new SnapshotMap<>(adjacency.size());
+        this.in = new HashMap<>(Math.max(16, adjacency.size() * 4 / 3 + 1));
+
+        // count in-degrees first, so every in map is created at its final size
+        Map<L, Integer> inDegree = new HashMap<>(Math.max(16, adjacency.size() * 4 / 3 + 1));
+        for (Map<L, Integer> targets : adjacency.values()) {
+            for (L t : targets.keySet()) {
+                inDegree.merge(t, 1, Integer::sum);
+            }
+        }
+        for (Map.Entry<L, Map<L, Integer>> v : adjacency.entrySet()) {
+            out.put(v.getKey(), new SnapshotMap<>(v.getValue().size()));
+            in.put(v.getKey(), new SnapshotMap<>(inDegree.getOrDefault(v.getKey(), 0)));
+        }
+        for (Map.Entry<L, Map<L, Integer>> v : adjacency.entrySet()) {
+            write(out.get(v.getKey()), v.getKey(), v.getValue());
+        }
+        if (policy.checksAny()) {
+            checkWholeRep();
+        }
+    }
+
+    // add edges from source to each of targets, none of which exist yet
+    private void write(SnapshotMap<L, Integer> outOfSource, L source, Map<L, Integer> targets) {
+        for (Map.Entry<L, Integer> e : targets.entrySet()) {
+            outOfSource.put(e.getKey(), e.getValue());
+            in.get(e.getKey()).put(source, e.getValue());
+        }
+        edgeCount += targets.size();
+    }
+
+    private void checkRep(L touched, L other) {
+        mutations++;
+        if (policy.checksAll(mutations)) {
+            checkWholeRep();
+        } else if (policy.checksTouched(mutations)) {
+            checkVertexRep(touched);
+            checkVertexRep(other);
+        }
+    }
+
+    private void checkWholeRep() {
+        assert out.keySet().equals(in.keySet());
+        int edges = 0;
+        for (L v : out.keySet()) {
+            checkVertexRep(v);
+            edges += out.get(v).size();
+        }
+        assert edges == edgeCount;
+    }
+
+    private void checkVertexRep(L v) {
+        if (!out.containsKey(v)) {
+            assert !in.containsKey(v);
+            return;
+        }
+        assert v != null;
+        SnapshotMap<L, Integer> targets = out.get(v);
+        for (L t : targets.keySet()) {
+            assert targets.get(t) > 0;
+            assert targets.get(t).equals(in.get(t).get(v)) : "reverse edge missing";
+        }
+        SnapshotMap<L, Integer> sources = in.get(v);
+        for (L s : sources.keySet()) {
+            assert sources.get(s).equals(out.get(s).get(v)) : "forward edge missing";
+        }
+    }
+
+    /**
+     * @return number of edges in this graph
+     */
+    int edgeCount() {
+        return edgeCount;
+    }
+
+    private SnapshotMap<L, Integer> outOf(L vertex) {
+        if (vertex == null) throw new IllegalArgumentException("null vertices not allowed");
+        SnapshotMap<L, Integer> targets = out.get(vertex);
+        if (targets == null) {
+            targets = new SnapshotMap<>();
+            out.put(vertex, targets);
+            in.put(vertex, new SnapshotMap<>());
+        }
+        return targets;
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        if (out.containsKey(vertex)) return false;
+        outOf(vertex);
+        checkRep(vertex, vertex);
+        return true;
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("weight must be nonnegative");
+        SnapshotMap<L, Integer> targets = outOf(source);
+        outOf(target);
+
+        int previous = write(targets, source, target, weight);
+
+        checkRep(source, target);
+        return previous;
+    }
+
+    @Override
+    public int merge(L source, L target, int weight, IntBinaryOperator remapping) {
+        SnapshotMap<L, Integer> targets = out.get(source);
+        Integer previous = targets == null ? null : targets.get(target);
+        int updated = MergeableGraph.merged(previous == null ? 0 : previous, weight, remapping);
+
+        targets = outOf(source);
+        outOf(target);
+        write(targets, source, target, updated);
+
+        checkRep(source, target);
+        return updated;
+    }
+
+    // give the edge source -> target this weight, where targets is out.get(source)
+    // and target is already a vertex; returns the previous weight
+    private int write(SnapshotMap<L, Integer> targets, L source, L target, int weight) {
+        Integer previous;
+        if (weight > 0) {
+            previous = targets.put(target, weight);
+            in.get(target).put(source, weight);
+            if (previous == null) edgeCount++;
+        } else {
+            previous = targets.remove(target);
+            in.get(target).remove(source);
+            if (previous != null) edgeCount--;
+        }
+        return previous == null ? 0 : previous;
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        SnapshotMap<L, Integer> targets = out.remove(vertex);
+        if (targets == null) return false;
+        SnapshotMap<L, Integer> sources = in.remove(vertex);
+
+        for (L target : targets.keySet()) {
+            SnapshotMap<L, Integer> back = in.get(target);
+            if (back != null) back.remove(vertex); // null for a self-loop
+        }
+        for (L source : sources.keySet()) {
+            SnapshotMap<L, Integer> forward = out.get(source);
+            if (forward != null) forward.remove(vertex);
+        }
+        edgeCount -= targets.size() + sources.size();
+        if (targets.containsKey(vertex)) edgeCount++; // the self-loop was counted twice
+
+        checkRep(vertex, vertex);
+        return true;
+    }
+
+    @Override
+    public Set<L> vertices() {
+        return out.snapshot().keySet();
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        SnapshotMap<L, Integer> sources = in.get(target);
+        return sources == null ? Collections.emptyMap() : sources.snapshot();
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        SnapshotMap<L, Integer> targets = out.get(source);
+        return targets == null ? Collections.emptyMap() : targets.snapshot();
+    }
+
+    @Override
+    public List<WeightedEdge<L>> heaviestTargets(L source, int k) {
+        Heaviest.check(source, k);
+        SnapshotMap<L, Integer> targets = out.get(source);
+        return targets == null ? List.of() : Heaviest.targets(source, Heaviest.entries(targets.entrySet(), k));
+    }
+
+    @Override
+    public List<WeightedEdge<L>> heaviestSources(L target, int k) {
+        Heaviest.check(target, k);
+        SnapshotMap<L, Integer> sources = in.get(target);
+        return sources == null ? List.of() : Heaviest.sources(target, Heaviest.entries(sources.entrySet(), k));
+    }
+
+    @Override
+    public String toString() {
+        return "Vertices: " + out.keySet() + ", Edges: " + out;
+    }
+}
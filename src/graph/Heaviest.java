@@ -0,0 +1,137 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Partial selection of the heaviest edges, for implementations of
+ * {@link RankedGraph}: the k heaviest of d weights are kept in a min-heap of
+ * size k, in O(d log k) time and O(k) space.
+ */
+final class Heaviest {
+
+    private Heaviest() {
+        throw new AssertionError("uninstantiable");
+    }
+
+    /**
+     * Check the arguments of a RankedGraph query.
+     *
+     * @param label vertex label
+     * @param k number of edges asked for
+     * @throws IllegalArgumentException if label is null or k is negative
+     */
+    static void check(Object label, int k) {
+        if (label == null) throw new IllegalArgumentException("null vertices not allowed");
+        if (k < 0) throw new IllegalArgumentException("k must be nonnegative: " + k);
+    }
+
+    /**
+     * @param entries neighbours and positive weights
+     * @param k most entries to return, at least 0
+     * @return the k heaviest entries, heaviest first
+     */
+    static <L> List<Map.Entry<L, Integer>> entries(Iterable<Map.Entry<L, Integer>> entries, int k) {
+        if (k == 0) return List.of();
+        PriorityQueue<Map.Entry<L, Integer>> lightest = new PriorityQueue<>(
+                Math.min(k, 64), (a, b) -> Integer.compare(a.getValue(), b.getValue()));
+        for (Map.Entry<L, Integer> e : entries) {
+            if (lightest.size() < k) {
+                lightest.add(e);
+            } else if (e.getValue() > lightest.peek().getValue()) {
+                lightest.poll();
+                lightest.add(e);
+            }
+        }
+        List<Map.Entry<L, Integer>> heaviest = new ArrayList<>(lightest.size());
+        while (!lightest.isEmpty()) {
+            heaviest.add(lightest.poll());
+        }
+        Collections.reverse(heaviest);
+        return heaviest;
+    }
+
+    /**
+     * @param weightAt weight at each position, or 0 for a position with no edge
+     * @param from first position
+     * @param to position after the last
+     * @param k most positions to return, at least 0
+     * @return the positions of the k heaviest weights in [from, to), heaviest
+     *         first, with equal weights in increasing order of position
+     */
+    static int[] positions(IntUnaryOperator weightAt, int from, int to, int k) {
+        // min-heap of (weight << 32 | ~position), so for equal weights the
+        // later position is the lighter
+        long[] heap = new long[Math.min(k, Math.max(0, to - from))];
+        int size = 0;
+        if (heap.length == 0) return new int[0];
+        for (int p = from; p < to; p++) {
+            int weight = weightAt.applyAsInt(p);
+            if (weight <= 0) continue;
+            long key = (long) weight << 32 | (~p & 0xffffffffL);
+            if (size < heap.length) {
+                heap[size] = key;
+                siftUp(heap, size++);
+            } else if (key > heap[0]) {
+                heap[0] = key;
+                siftDown(heap, 0, size);
+            }
+        }
+        int[] positions = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            positions[i] = ~(int) heap[0];
+            heap[0] = heap[i];
+            siftDown(heap, 0, i);
+        }
+        return positions;
+    }
+
+    private static void siftUp(long[] heap, int i) {
+        long key = heap[i];
+        while (i > 0 && heap[(i - 1) / 2] > key) {
+            heap[i] = heap[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+        heap[i] = key;
+    }
+
+    private static void siftDown(long[] heap, int i, int size) {
+        long key = heap[i];
+        for (int child = 2 * i + 1; child < size; child = 2 * i + 1) {
+            if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+            if (heap[child] >= key) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = key;
+    }
+
+    /**
+     * @return unmodifiable list of the edges from source to each entry's label
+     */
+    static <L> List<WeightedEdge<L>> targets(L source, List<Map.Entry<L, Integer>> entries) {
+        List<WeightedEdge<L>> edges = new ArrayList<>(entries.size());
+        for (Map.Entry<L, Integer> e : entries) {
+            edges.add(new WeightedEdge<>(source, e.getKey(), e.getValue()));
+        }
+        return Collections.unmodifiableList(edges);
+    }
+
+    /**
+     * @return unmodifiable list of the edges from each entry's label to target
+     */
+    static <L> List<WeightedEdge<L>> sources(L target, List<Map.Entry<L, Integer>> entries) {
+        List<WeightedEdge<L>> edges = new ArrayList<>(entries.size());
+        for (Map.Entry<L, Integer> e : entries) {
+            edges.add(new WeightedEdge<>(e.getKey(), target, e.getValue()));
+        }
+        return Collections.unmodifiableList(edges);
+    }
+}
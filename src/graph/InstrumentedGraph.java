@@ -0,0 +1,246 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntBinaryOperator;
+
+import graph.GraphListener.Operation;
+
+/**
+ * A Graph that tells a listener about every call to another graph, with how
+ * long it took.
+ *
+ * <p>Instrumentation is opt-in by wrapping: code that uses a graph directly
+ * pays nothing for it, and a wrapped graph pays two clock reads and a call to
+ * the listener per operation. The wrapper is exactly as thread-safe as the
+ * graph it wraps, provided the listener is thread-safe.
+ *
+ * <p>The wrapper is a RankedGraph: if the wrapped graph is one, heaviest
+ * neighbours are found by it, and otherwise by selecting from its maps.
+ * To keep merging, wrap a MergeableGraph with {@link #mergeable mergeable()}.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public final class InstrumentedGraph<L> implements RankedGraph<L> {
+
+    private final Graph<L> graph;
+    private final GraphListener listener;
+
+    // Abstraction function:
+    //   AF(graph, listener) = the graph AF(graph); listener adds nothing to
+    //     the abstract value
+    // Representation invariant:
+    //   graph and listener are not null
+    // Safety from rep exposure:
+    //   all fields are private and final; the sets, maps and lists returned
+    //   are those graph returns or new unmodifiable lists, which graph's own
+    //   spec and RankedGraph's make safe
+    // Thread safety argument:
+    //   the fields are never changed; every call is made on graph, and listener
+    //   is required to be thread-safe if graph is used by several threads
+
+    /**
+     * Wrap a graph. The graph may still be used directly, but only calls made
+     * through the wrapper are told to the listener.
+     *
+     * @param graph graph to delegate to
+     * @param listener told about each call, after it returns
+     */
+    public InstrumentedGraph(Graph<L> graph, GraphListener listener) {
+        if (graph == null || listener == null) {
+            throw new IllegalArgumentException("graph and listener are required");
+        }
+        this.graph = graph;
+        this.listener = listener;
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert graph != null && listener != null;
+    }
+
+    /**
+     * Wrap a mergeable graph, as {@link #InstrumentedGraph(Graph, GraphListener)}
+     * does, keeping merge() and increment(), which are told as MERGE.
+     *
+     * @param <L> type of vertex labels in the graph, must be immutable
+     * @param graph graph to delegate to
+     * @param listener told about each call, after it returns
+     * @return a wrapper of graph that is also a RankedGraph
+     */
+    public static <L> MergeableGraph<L> mergeable(MergeableGraph<L> graph, GraphListener listener) {
+        return new Mergeable<>(graph, listener);
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        long start = System.nanoTime();
+        boolean added = graph.add(vertex);
+        listener.called(Operation.ADD, System.nanoTime() - start, added ? 1 : 0);
+        return added;
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        long start = System.nanoTime();
+        int previous = graph.set(source, target, weight);
+        listener.called(Operation.SET, System.nanoTime() - start, previous == weight ? 0 : 1);
+        return previous;
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        long start = System.nanoTime();
+        boolean removed = graph.remove(vertex);
+        listener.called(Operation.REMOVE, System.nanoTime() - start, removed ? 1 : 0);
+        return removed;
+    }
+
+    @Override
+    public Set<L> vertices() {
+        long start = System.nanoTime();
+        Set<L> vertices = graph.vertices();
+        listener.called(Operation.VERTICES, System.nanoTime() - start, vertices.size());
+        return vertices;
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        long start = System.nanoTime();
+        Map<L, Integer> sources = graph.sources(target);
+        listener.called(Operation.SOURCES, System.nanoTime() - start, sources.size());
+        return sources;
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        long start = System.nanoTime();
+        Map<L, Integer> targets = graph.targets(source);
+        listener.called(Operation.TARGETS, System.nanoTime() - start, targets.size());
+        return targets;
+    }
+
+    @Override
+    public List<WeightedEdge<L>> heaviestTargets(L source, int k) {
+        long start = System.nanoTime();
+        List<WeightedEdge<L>> heaviest;
+        if (graph instanceof RankedGraph) {
+            heaviest = ((RankedGraph<L>) graph).heaviestTargets(source, k);
+        } else {
+            Heaviest.check(source, k);
+            heaviest = Heaviest.targets(source, Heaviest.entries(graph.targets(source).entrySet(), k));
+        }
+        listener.called(Operation.HEAVIEST_TARGETS, System.nanoTime() - start, heaviest.size());
+        return heaviest;
+    }
+
+    @Override
+    public List<WeightedEdge<L>> heaviestSources(L target, int k) {
+        long start = System.nanoTime();
+        List<WeightedEdge<L>> heaviest;
+        if (graph instanceof RankedGraph) {
+            heaviest = ((RankedGraph<L>) graph).heaviestSources(target, k);
+        } else {
+            Heaviest.check(target, k);
+            heaviest = Heaviest.sources(target, Heaviest.entries(graph.sources(target).entrySet(), k));
+        }
+        listener.called(Operation.HEAVIEST_SOURCES, System.nanoTime() - start, heaviest.size());
+        return heaviest;
+    }
+
+    @Override
+    public String toString() {
+        return graph.toString();
+    }
+
+    /**
+     * An InstrumentedGraph of a MergeableGraph, which merges through it.
+     */
+    private static final class Mergeable<L> implements MergeableGraph<L>, RankedGraph<L> {
+
+        private final MergeableGraph<L> graph;
+        private final GraphListener listener;
+        private final InstrumentedGraph<L> instrumented;
+
+        // Abstraction function:
+        //   AF(graph, listener, instrumented) = the graph AF(graph); the
+        //     others add nothing to the abstract value
+        // Representation invariant:
+        //   instrumented wraps graph and tells listener
+        // Safety from rep exposure:
+        //   as for InstrumentedGraph, to which every other call is delegated
+        // Thread safety argument:
+        //   as for InstrumentedGraph; the fields are never changed
+
+        Mergeable(MergeableGraph<L> graph, GraphListener listener) {
+            this.instrumented = new InstrumentedGraph<>(graph, listener);
+            this.graph = graph;
+            this.listener = listener;
+        }
+
+        @Override
+        public int merge(L source, L target, int weight, IntBinaryOperator remapping) {
+            long start = System.nanoTime();
+            int merged = graph.merge(source, target, weight, remapping);
+            listener.called(Operation.MERGE, System.nanoTime() - start, merged == 0 ? 0 : 1);
+            return merged;
+        }
+
+        @Override
+        public int increment(L source, L target, int delta) {
+            long start = System.nanoTime();
+            int incremented = graph.increment(source, target, delta);
+            listener.called(Operation.MERGE, System.nanoTime() - start, 1);
+            return incremented;
+        }
+
+        @Override
+        public boolean add(L vertex) {
+            return instrumented.add(vertex);
+        }
+
+        @Override
+        public int set(L source, L target, int weight) {
+            return instrumented.set(source, target, weight);
+        }
+
+        @Override
+        public boolean remove(L vertex) {
+            return instrumented.remove(vertex);
+        }
+
+        @Override
+        public Set<L> vertices() {
+            return instrumented.vertices();
+        }
+
+        @Override
+        public Map<L, Integer> sources(L target) {
+            return instrumented.sources(target);
+        }
+
+        @Override
+        public Map<L, Integer> targets(L source) {
+            return instrumented.targets(source);
+        }
+
+        @Override
+        public List<WeightedEdge<L>> heaviestTargets(L source, int k) {
+            return instrumented.heaviestTargets(source, k);
+        }
+
+        @Override
+        public List<WeightedEdge<L>> heaviestSources(L target, int k) {
+            return instrumented.heaviestSources(target, k);
+        }
+
+        @Override
+        public String toString() {
+            return graph.toString();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * A mutable map from nonnegative int keys to nonzero int values, stored in two
+ * primitive arrays with open addressing, so no key or value is ever boxed.
+ * A value of 0 means "no entry", which matches how Graph treats weight 0.
+ */
+final class IntIntMap {
+
+    private static final int EMPTY = -1;
+    private static final int[] NO_KEYS = {};
+    private static final int[] NO_VALUES = {};
+
+    private int[] keys = NO_KEYS;
+    private int[] values = NO_VALUES;
+    private int size = 0;
+
+    // Abstraction function:
+    //   AF(keys, values, size) = the map { keys[i] -> values[i] | keys[i] != EMPTY }
+    //
+    // Representation invariant:
+    //   - keys.length == values.length, and is zero or a power of two
+    //   - size is the number of non-EMPTY keys, and 3 * size <= 2 * keys.length
+    //   - no key appears twice, and every key is >= 0 with a nonzero value
+    //   - linear probing: every slot between a key's home slot and the slot it is
+    //     stored in is non-EMPTY
+    //
+    // Safety from rep exposure:
+    //   - keys and values are private and never returned
+
+    private void checkRep() {
+        assert keys.length == values.length;
+        assert Integer.bitCount(keys.length) <= 1;
+        assert 3 * size <= 2 * keys.length;
+    }
+
+    private static int home(int key, int mask) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    // slot holding key, or the EMPTY slot where it would be inserted
+    private int slot(int key) {
+        int mask = keys.length - 1;
+        int i = home(key, mask);
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * @return number of entries in this map
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param key a nonnegative key
+     * @return the value for key, or 0 if there is none
+     */
+    int get(int key) {
+        if (size == 0) return 0;
+        int i = slot(key);
+        return keys[i] == EMPTY ? 0 : values[i];
+    }
+
+    /**
+     * Associate a key with a value, or remove the key if the value is 0.
+     *
+     * @param key a nonnegative key
+     * @param value new value
+     * @return the previous value for key, or 0 if there was none
+     */
+    int put(int key, int value) {
+        if (value == 0) return remove(key);
+        if (3 * (size + 1) > 2 * keys.length) {
+            resize(Math.max(4, 2 * keys.length));
+        }
+        int i = slot(key);
+        int previous = values[i];
+        if (keys[i] == EMPTY) {
+            keys[i] = key;
+            previous = 0;
+            size++;
+        }
+        values[i] = value;
+        checkRep();
+        return previous;
+    }
+
+    /**
+     * Remove a key.
+     *
+     * @param key a nonnegative key
+     * @return the value key had, or 0 if there was none
+     */
+    int remove(int key) {
+        if (size == 0) return 0;
+        int i = slot(key);
+        if (keys[i] == EMPTY) return 0;
+        int previous = values[i];
+        size--;
+
+        // shift later entries of the probe run back, so lookups never stop early
+        int mask = keys.length - 1;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == EMPTY) break;
+            int h = home(keys[j], mask);
+            boolean movable = i <= j ? (h <= i || h > j) : (h <= i && h > j);
+            if (movable) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = EMPTY;
+        values[i] = 0;
+        checkRep();
+        return previous;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int j = slot(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Slots are for iteration: every entry is at some slot in [0, capacity()),
+     * and slots without an entry have key -1.
+     *
+     * @return number of slots
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * @param slot a slot in [0, capacity())
+     * @return the key at slot, or -1 if the slot is empty
+     */
+    int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * @param slot a slot in [0, capacity())
+     * @return the value at slot, or 0 if the slot is empty
+     */
+    int valueAt(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Change a key in place, keeping its value.
+     *
+     * @param from a key in this map
+     * @param to a key not in this map
+     */
+    void rename(int from, int to) {
+        int value = remove(from);
+        assert value != 0 && get(to) == 0;
+        put(to, value);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("{");
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == EMPTY) continue;
+            if (s.length() > 1) s.append(", ");
+            s.append(keys[i]).append('=').append(values[i]);
+        }
+        return s.append('}').toString();
+    }
+}
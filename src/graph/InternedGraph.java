@@ -0,0 +1,276 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * An implementation of Graph that interns every label to a dense int id and
+ * keeps adjacency in primitive {@link IntIntMap}s, one per vertex and direction.
+ * Labels are hashed once per operation; weights and neighbours are never boxed
+ * except when building the maps returned by sources() and targets(). The
+ * heaviest neighbours of a vertex are selected straight from its IntIntMap.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public class InternedGraph<L> implements MergeableGraph<L>, RankedGraph<L> {
+
+    private final Map<L, Integer> ids = new HashMap<>();
+    private final List<L> labels = new ArrayList<>();
+    private IntIntMap[] out = new IntIntMap[8];
+    private IntIntMap[] in = new IntIntMap[8];
+
+    private final CheckPolicy policy;
+    private long mutations = 0;
+
+    // Abstraction function:
+    //   AF(ids, labels, out, in) = a directed weighted graph whose vertices are
+    //     the elements of labels, with an edge labels[s] -> labels[t] of weight w
+    //     for each s, t with out[s].get(t) == w != 0
+    //   ids and in are indexes and add nothing to the abstract value.
+    //
+    // Representation invariant:
+    //   - labels has no nulls, and ids.get(labels[i]) == i for all i; ids has no
+    //     other keys
+    //   - out.length == in.length >= labels.size(), out[i] and in[i] are non-null
+    //     for i < labels.size() and null otherwise
+    //   - out[s].get(t) == in[t].get(s) for all ids s, t, and every key in
+    //     out[s] or in[s] is an id
+    //   - all weights > 0
+    //
+    // Safety from rep exposure:
+    //   - all fields are private and never returned
+    //   - vertices(), sources() and targets() return new collections
+
+    /**
+     * Create an empty graph that checks its rep as {@link CheckPolicy#defaultPolicy()} says.
+     */
+    public InternedGraph() {
+        this(CheckPolicy.defaultPolicy());
+    }
+
+    /**
+     * Create an empty graph.
+     *
+     * @param policy how much of the rep to check after each mutation
+     */
+    public InternedGraph(CheckPolicy policy) {
+        this.policy = Objects.requireNonNull(policy);
+        checkWholeRep();
+    }
+
+    private void checkRep(L touched, L other) {
+        mutations++;
+        if (policy.checksAll(mutations)) {
+            checkWholeRep();
+        } else if (policy.checksTouched(mutations)) {
+            checkVertexRep(ids.getOrDefault(touched, -1));
+            checkVertexRep(ids.getOrDefault(other, -1));
+        }
+    }
+
+    private void checkWholeRep() {
+        assert ids.size() == labels.size();
+        assert out.length == in.length && out.length >= labels.size();
+        for (int v = 0; v < labels.size(); v++) {
+            assert ids.get(labels.get(v)) == v;
+            checkVertexRep(v);
+        }
+        for (int v = labels.size(); v < out.length; v++) {
+            assert out[v] == null && in[v] == null;
+        }
+    }
+
+    private void checkVertexRep(int v) {
+        if (v < 0) return;
+        for (int i = 0; i < out[v].capacity(); i++) {
+            int t = out[v].keyAt(i);
+            if (t < 0) continue;
+            assert t < labels.size();
+            assert out[v].valueAt(i) > 0;
+            assert in[t].get(v) == out[v].valueAt(i) : "reverse edge missing";
+        }
+        for (int i = 0; i < in[v].capacity(); i++) {
+            int s = in[v].keyAt(i);
+            if (s < 0) continue;
+            assert s < labels.size();
+            assert out[s].get(v) == in[v].valueAt(i) : "forward edge missing";
+        }
+    }
+
+    // id of this label, interning it first if it is not a vertex yet
+    private int intern(L label) {
+        if (label == null) throw new IllegalArgumentException("null vertices not allowed");
+        Integer id = ids.get(label);
+        if (id != null) return id;
+
+        int v = labels.size();
+        if (v == out.length) {
+            out = Arrays.copyOf(out, 2 * v);
+            in = Arrays.copyOf(in, 2 * v);
+        }
+        ids.put(label, v);
+        labels.add(label);
+        out[v] = new IntIntMap();
+        in[v] = new IntIntMap();
+        return v;
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        if (ids.containsKey(vertex)) return false;
+        intern(vertex);
+        checkRep(vertex, vertex);
+        return true;
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("weight must be nonnegative");
+        int s = intern(source);
+        int t = intern(target);
+        int previous = out[s].put(t, weight);
+        in[t].put(s, weight);
+        checkRep(source, target);
+        return previous;
+    }
+
+    @Override
+    public int merge(L source, L target, int weight, IntBinaryOperator remapping) {
+        Integer s = ids.get(source);
+        Integer t = s == null ? null : ids.get(target);
+        int updated = MergeableGraph.merged(t == null ? 0 : out[s].get(t), weight, remapping);
+        if (t == null) {
+            s = intern(source);
+            t = intern(target);
+        }
+        out[s].put(t, updated);
+        in[t].put(s, updated);
+        checkRep(source, target);
+        return updated;
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        Integer id = ids.remove(vertex);
+        if (id == null) return false;
+        int v = id;
+
+        // drop the edges into and out of v
+        for (int i = 0; i < out[v].capacity(); i++) {
+            int t = out[v].keyAt(i);
+            if (t >= 0 && t != v) in[t].remove(v);
+        }
+        for (int i = 0; i < in[v].capacity(); i++) {
+            int s = in[v].keyAt(i);
+            if (s >= 0 && s != v) out[s].remove(v);
+        }
+
+        // move the last vertex into the freed id, and renumber its neighbours' entries
+        int last = labels.size() - 1;
+        if (v != last) {
+            for (int i = 0; i < out[last].capacity(); i++) {
+                int t = out[last].keyAt(i);
+                if (t >= 0 && t != last) in[t].rename(last, v);
+            }
+            for (int i = 0; i < in[last].capacity(); i++) {
+                int s = in[last].keyAt(i);
+                if (s >= 0 && s != last) out[s].rename(last, v);
+            }
+            if (out[last].get(last) != 0) {
+                int w = out[last].remove(last);
+                in[last].remove(last);
+                out[last].put(v, w);
+                in[last].put(v, w);
+            }
+            out[v] = out[last];
+            in[v] = in[last];
+            labels.set(v, labels.get(last));
+            ids.put(labels.get(v), v);
+        }
+        out[last] = null;
+        in[last] = null;
+        labels.remove(last);
+
+        checkRep(vertex, vertex);
+        return true;
+    }
+
+    @Override
+    public Set<L> vertices() {
+        return Collections.unmodifiableSet(new HashSet<>(labels));
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        Integer id = ids.get(target);
+        return id == null ? Collections.emptyMap() : toMap(in[id]);
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        Integer id = ids.get(source);
+        return id == null ? Collections.emptyMap() : toMap(out[id]);
+    }
+
+    @Override
+    public List<WeightedEdge<L>> heaviestTargets(L source, int k) {
+        Heaviest.check(source, k);
+        Integer id = ids.get(source);
+        if (id == null) return List.of();
+        IntIntMap targets = out[id];
+        List<WeightedEdge<L>> edges = new ArrayList<>();
+        for (int slot : Heaviest.positions(targets::valueAt, 0, targets.capacity(), k)) {
+            edges.add(new WeightedEdge<>(source, labels.get(targets.keyAt(slot)), targets.valueAt(slot)));
+        }
+        return Collections.unmodifiableList(edges);
+    }
+
+    @Override
+    public List<WeightedEdge<L>> heaviestSources(L target, int k) {
+        Heaviest.check(target, k);
+        Integer id = ids.get(target);
+        if (id == null) return List.of();
+        IntIntMap sources = in[id];
+        List<WeightedEdge<L>> edges = new ArrayList<>();
+        for (int slot : Heaviest.positions(sources::valueAt, 0, sources.capacity(), k)) {
+            edges.add(new WeightedEdge<>(labels.get(sources.keyAt(slot)), target, sources.valueAt(slot)));
+        }
+        return Collections.unmodifiableList(edges);
+    }
+
+    private Map<L, Integer> toMap(IntIntMap adjacent) {
+        Map<L, Integer> result = new HashMap<>(2 * adjacent.size());
+        for (int i = 0; i < adjacent.capacity(); i++) {
+            int u = adjacent.keyAt(i);
+            if (u >= 0) result.put(labels.get(u), adjacent.valueAt(i));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("Vertices: " + labels + ", Edges: [");
+        String separator = "";
+        for (int v = 0; v < labels.size(); v++) {
+            for (int i = 0; i < out[v].capacity(); i++) {
+                int t = out[v].keyAt(i);
+                if (t < 0) continue;
+                s.append(separator).append(labels.get(v)).append("->").append(labels.get(t))
+                        .append(" (").append(out[v].valueAt(i)).append(")");
+                separator = ", ";
+            }
+        }
+        return s.append("]").toString();
+    }
+}
@@ -0,0 +1,572 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable weighted directed graph with String labels, stored outside the
+ * Java heap in a memory-mapped file.
+ *
+ * <p>The file holds the graph in compressed sparse row form: a dictionary of
+ * labels sorted by their UTF-8 bytes, so that a vertex's id is its position in
+ * the dictionary and a label is found by binary search; then, for each
+ * direction, an array of offsets into parallel arrays of neighbour ids and
+ * weights, with each vertex's neighbours sorted by id. Nothing is kept on the
+ * heap per vertex or per edge: lookups read the mapping directly, and the maps
+ * and sets returned are views that decode labels only as they are iterated.
+ * The heaviest neighbours of a vertex are selected straight from the mapping,
+ * decoding only the labels returned.
+ * The operating system pages the file in and out, so a graph may be larger
+ * than the heap.
+ *
+ * <p>A file is written once, by {@link #write(Graph, Path) write()}, and may
+ * then be opened any number of times. The mutators of a MappedGraph throw
+ * UnsupportedOperationException. A MappedGraph may be shared by threads.
+ */
+public final class MappedGraph implements RankedGraph<String> {
+
+    /** Version of the file format written by {@link #write(Graph, Path) write()}. */
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = { 'G', 'R', 'P', 'M' };
+    private static final int HEADER_BYTES = 20;
+
+    private final int vertexCount;
+    private final int edgeCount;
+    private final IntBuffer labelOffsets;
+    private final ByteBuffer labelBytes;
+    private final IntBuffer outOffsets;
+    private final IntBuffer outTargets;
+    private final IntBuffer outWeights;
+    private final IntBuffer inOffsets;
+    private final IntBuffer inSources;
+    private final IntBuffer inWeights;
+
+    // Abstraction function:
+    //   AF(vertexCount, labelOffsets, labelBytes, outOffsets, outTargets,
+    //      outWeights, ...) = the graph whose vertices are label(0) ..
+    //     label(vertexCount - 1), where label(i) is the UTF-8 decoding of
+    //     labelBytes[labelOffsets[i] .. labelOffsets[i+1]), with an edge
+    //     label(i) -> label(outTargets[k]) of weight outWeights[k] for each
+    //     k in [outOffsets[i] .. outOffsets[i+1])
+    //   inOffsets, inSources and inWeights are the same edges grouped by
+    //     target, and add nothing to the abstract value
+    //
+    // Representation invariant:
+    //   - labelOffsets has vertexCount + 1 entries, nondecreasing from 0 to
+    //     the size of labelBytes; labels are in strictly increasing unsigned
+    //     byte order
+    //   - outOffsets and inOffsets have vertexCount + 1 entries,
+    //     nondecreasing from 0 to edgeCount
+    //   - within each vertex's range, outTargets (inSources) are strictly
+    //     increasing ids in [0, vertexCount), and all weights are positive
+    //   - inSources and inWeights hold exactly the edges of outTargets and
+    //     outWeights
+    //
+    // Safety from rep exposure:
+    //   - all fields are private and final, and the buffers are read-only
+    //   - vertices(), sources() and targets() return unmodifiable views that
+    //     only read the buffers
+    //
+    // Thread safety argument:
+    //   - the buffers are never changed, and are only read with absolute gets,
+    //     which do not move their positions
+
+    private MappedGraph(int vertexCount, int edgeCount, IntBuffer labelOffsets, ByteBuffer labelBytes,
+            IntBuffer outOffsets, IntBuffer outTargets, IntBuffer outWeights,
+            IntBuffer inOffsets, IntBuffer inSources, IntBuffer inWeights) {
+        this.vertexCount = vertexCount;
+        this.edgeCount = edgeCount;
+        this.labelOffsets = labelOffsets;
+        this.labelBytes = labelBytes;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.outWeights = outWeights;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+        this.inWeights = inWeights;
+    }
+
+    // walks the whole file, so only run once, and only with assertions enabled
+    private boolean checkRep() {
+        for (int id = 1; id < vertexCount; id++) {
+            assert compare(id - 1, labelBytes, labelOffsets.get(id), labelOffsets.get(id + 1)) < 0;
+        }
+        long checksum = 0;
+        for (int id = 0; id < vertexCount; id++) {
+            checksum += checkAdjacency(id, outOffsets, outTargets, outWeights);
+            checksum -= checkAdjacency(id, inOffsets, inSources, inWeights);
+        }
+        assert checksum == 0;
+        return true;
+    }
+
+    // checks one vertex's adjacency; returns a sum over its edges that is the
+    // same whichever direction they are grouped by
+    private long checkAdjacency(int id, IntBuffer offsets, IntBuffer ids, IntBuffer weights) {
+        long sum = 0;
+        for (int k = offsets.get(id); k < offsets.get(id + 1); k++) {
+            int other = ids.get(k);
+            assert 0 <= other && other < vertexCount;
+            assert k == offsets.get(id) || ids.get(k - 1) < other;
+            assert weights.get(k) > 0;
+            boolean out = offsets == outOffsets;
+            long edge = (out ? (long) id * vertexCount + other : (long) other * vertexCount + id);
+            sum += edge * 31 + weights.get(k);
+        }
+        return sum;
+    }
+
+    /**
+     * Write a graph to a file in the form a MappedGraph reads, replacing the
+     * file if it exists.
+     *
+     * @param graph graph to write, which must not change while this runs; its
+     *        labels must be valid UTF-16 (no unpaired surrogates) to be read
+     *        back unchanged
+     * @param file where to write it
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if the graph is too large for the format
+     */
+    public static void write(Graph<String> graph, Path file) throws IOException {
+        int n = graph.vertices().size();
+        byte[][] encoded = new byte[n][];
+        int i = 0;
+        for (String label : graph.vertices()) {
+            encoded[i++] = label.getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(encoded, Arrays::compareUnsigned);
+        String[] labels = new String[n];
+        Map<String, Integer> ids = new HashMap<>(n * 4 / 3 + 1);
+        long labelLength = 0;
+        for (int id = 0; id < n; id++) {
+            labels[id] = new String(encoded[id], StandardCharsets.UTF_8);
+            ids.put(labels[id], id);
+            labelLength += encoded[id].length;
+        }
+
+        long edges = 0;
+        for (String label : labels) {
+            edges += graph.targets(label).size();
+        }
+        if (edges > Integer.MAX_VALUE / 4 || labelLength > Integer.MAX_VALUE - 3) {
+            throw new IllegalArgumentException("graph too large to map: " + n + " vertices, " + edges + " edges");
+        }
+        int e = (int) edges;
+
+        int[] outOffsets = new int[n + 1];
+        int[] outTargets = new int[e];
+        int[] outWeights = new int[e];
+        int[] inDegree = new int[n + 1];
+        int k = 0;
+        for (int id = 0; id < n; id++) {
+            Map<String, Integer> targets = graph.targets(labels[id]);
+            int start = k;
+            for (String target : targets.keySet()) {
+                outTargets[k++] = ids.get(target);
+            }
+            Arrays.sort(outTargets, start, k);
+            for (int j = start; j < k; j++) {
+                outWeights[j] = targets.get(labels[outTargets[j]]);
+                inDegree[outTargets[j] + 1]++;
+            }
+            outOffsets[id + 1] = k;
+        }
+
+        // group the edges by target; sources come out sorted, since edges are
+        // visited in order of source id
+        int[] inOffsets = inDegree;
+        for (int id = 0; id < n; id++) {
+            inOffsets[id + 1] += inOffsets[id];
+        }
+        int[] next = Arrays.copyOf(inOffsets, n);
+        int[] inSources = new int[e];
+        int[] inWeights = new int[e];
+        for (int id = 0; id < n; id++) {
+            for (int j = outOffsets[id]; j < outOffsets[id + 1]; j++) {
+                int slot = next[outTargets[j]]++;
+                inSources[slot] = id;
+                inWeights[slot] = outWeights[j];
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(n);
+            out.writeInt(e);
+            out.writeInt((int) labelLength);
+            int offset = 0;
+            out.writeInt(offset);
+            for (byte[] label : encoded) {
+                offset += label.length;
+                out.writeInt(offset);
+            }
+            for (byte[] label : encoded) {
+                out.write(label);
+            }
+            out.write(new byte[padding(labelLength)]);
+            for (int[] section : new int[][] { outOffsets, outTargets, outWeights, inOffsets, inSources, inWeights }) {
+                for (int value : section) {
+                    out.writeInt(value);
+                }
+            }
+        }
+    }
+
+    // bytes to add after length bytes to align the next section to an int
+    private static int padding(long length) {
+        return (int) (-length & 3);
+    }
+
+    /**
+     * Open a graph written by {@link #write(Graph, Path) write()}.
+     *
+     * @param file file to open; it must not be changed while the graph is used
+     * @return the graph stored in file
+     * @throws IOException if the file cannot be read, or is not a mapped graph
+     *         of this version
+     */
+    public static MappedGraph open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) throw new IOException("not a mapped graph: " + file);
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            for (byte b : MAGIC) {
+                if (header.get() != b) throw new IOException("not a mapped graph: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported mapped graph version " + version + ": " + file);
+            }
+            int n = header.getInt();
+            int e = header.getInt();
+            int labelLength = header.getInt();
+            if (n < 0 || e < 0 || e > Integer.MAX_VALUE / 4 || labelLength < 0) {
+                throw new IOException("corrupt mapped graph header: " + file);
+            }
+            long offsetsLength = 4L * (n + 1);
+            long expected = HEADER_BYTES + offsetsLength + labelLength + padding(labelLength)
+                    + 2 * (offsetsLength + 8L * e);
+            if (size != expected || offsetsLength > Integer.MAX_VALUE) {
+                throw new IOException("mapped graph has the wrong size for its header: " + file);
+            }
+
+            long position = HEADER_BYTES;
+            IntBuffer labelOffsets = ints(channel, position, n + 1);
+            position += offsetsLength;
+            ByteBuffer labelBytes = channel.map(FileChannel.MapMode.READ_ONLY, position, labelLength);
+            position += labelLength + padding(labelLength);
+            IntBuffer[] sections = new IntBuffer[6];
+            for (int s = 0; s < sections.length; s++) {
+                int length = s % 3 == 0 ? n + 1 : e;
+                sections[s] = ints(channel, position, length);
+                position += 4L * length;
+            }
+            checkOffsets(labelOffsets, labelLength, file);
+            checkOffsets(sections[0], e, file);
+            checkOffsets(sections[3], e, file);
+
+            MappedGraph graph = new MappedGraph(n, e, labelOffsets, labelBytes,
+                    sections[0], sections[1], sections[2], sections[3], sections[4], sections[5]);
+            assert graph.checkRep();
+            return graph;
+        }
+    }
+
+    private static IntBuffer ints(FileChannel channel, long position, int length) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * length).asIntBuffer();
+    }
+
+    // offsets must run from 0 to end without decreasing
+    private static void checkOffsets(IntBuffer offsets, int end, Path file) throws IOException {
+        int previous = 0;
+        for (int i = 0; i < offsets.limit(); i++) {
+            int offset = offsets.get(i);
+            if (offset < previous || (i == 0 && offset != 0)) {
+                throw new IOException("corrupt mapped graph offsets: " + file);
+            }
+            previous = offset;
+        }
+        if (previous != end) throw new IOException("corrupt mapped graph offsets: " + file);
+    }
+
+    /**
+     * @return number of edges in this graph
+     */
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    // the label of a vertex
+    private String label(int id) {
+        int start = labelOffsets.get(id);
+        byte[] bytes = new byte[labelOffsets.get(id + 1) - start];
+        labelBytes.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // the id of a label, or -1 if it is not a vertex
+    private int id(Object label) {
+        if (!(label instanceof String)) return -1;
+        byte[] key = ((String) label).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer wrapped = ByteBuffer.wrap(key);
+        int lo = 0;
+        int hi = vertexCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = compare(mid, wrapped, 0, key.length);
+            if (c < 0) {
+                lo = mid + 1;
+            } else if (c > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    // compares the label of id with bytes[from..to), in unsigned byte order
+    private int compare(int id, ByteBuffer bytes, int from, int to) {
+        int start = labelOffsets.get(id);
+        int end = labelOffsets.get(id + 1);
+        int common = Math.min(end - start, to - from);
+        for (int i = 0; i < common; i++) {
+            int c = Byte.compareUnsigned(labelBytes.get(start + i), bytes.get(from + i));
+            if (c != 0) return c;
+        }
+        return Integer.compare(end - start, to - from);
+    }
+
+    private static String requireLabel(String label) {
+        if (label == null) throw new IllegalArgumentException("null vertices not allowed");
+        return label;
+    }
+
+    /**
+     * Unsupported: a MappedGraph cannot be changed.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean add(String vertex) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+    /**
+     * Unsupported: a MappedGraph cannot be changed.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public int set(String source, String target, int weight) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+    /**
+     * Unsupported: a MappedGraph cannot be changed.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean remove(String vertex) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+    /**
+     * @return an unmodifiable view of the vertices of this graph, in unsigned
+     *         order of their UTF-8 bytes
+     */
+    @Override
+    public Set<String> vertices() {
+        return new AbstractSet<String>() {
+            @Override
+            public int size() {
+                return vertexCount;
+            }
+
+            @Override
+            public boolean contains(Object label) {
+                return id(label) >= 0;
+            }
+
+            @Override
+            public Iterator<String> iterator() {
+                return new Iterator<String>() {
+                    private int next = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < vertexCount;
+                    }
+
+                    @Override
+                    public String next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        return label(next++);
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * @return an unmodifiable view of the sources of target, as specified by
+     *         {@link Graph#sources(Object)}
+     */
+    @Override
+    public Map<String, Integer> sources(String target) {
+        int id = id(requireLabel(target));
+        if (id < 0) return Collections.emptyMap();
+        return new Adjacent(inOffsets.get(id), inOffsets.get(id + 1), inSources, inWeights);
+    }
+
+    /**
+     * @return an unmodifiable view of the targets of source, as specified by
+     *         {@link Graph#targets(Object)}
+     */
+    @Override
+    public Map<String, Integer> targets(String source) {
+        int id = id(requireLabel(source));
+        if (id < 0) return Collections.emptyMap();
+        return new Adjacent(outOffsets.get(id), outOffsets.get(id + 1), outTargets, outWeights);
+    }
+
+    @Override
+    public List<WeightedEdge<String>> heaviestTargets(String source, int k) {
+        Heaviest.check(source, k);
+        int id = id(source);
+        if (id < 0) return List.of();
+        List<WeightedEdge<String>> edges = new ArrayList<>();
+        for (int p : Heaviest.positions(outWeights::get, outOffsets.get(id), outOffsets.get(id + 1), k)) {
+            edges.add(new WeightedEdge<>(source, label(outTargets.get(p)), outWeights.get(p)));
+        }
+        return Collections.unmodifiableList(edges);
+    }
+
+    @Override
+    public List<WeightedEdge<String>> heaviestSources(String target, int k) {
+        Heaviest.check(target, k);
+        int id = id(target);
+        if (id < 0) return List.of();
+        List<WeightedEdge<String>> edges = new ArrayList<>();
+        for (int p : Heaviest.positions(inWeights::get, inOffsets.get(id), inOffsets.get(id + 1), k)) {
+            edges.add(new WeightedEdge<>(label(inSources.get(p)), target, inWeights.get(p)));
+        }
+        return Collections.unmodifiableList(edges);
+    }
+
+    @Override
+    public String toString() {
+        return "MappedGraph(" + vertexCount + " vertices, " + edgeCount + " edges)";
+    }
+
+    /**
+     * Unmodifiable view of one vertex's neighbours: ids[from..to), sorted, with
+     * weights[from..to).
+     */
+    private class Adjacent extends AbstractMap<String, Integer> {
+        private final int from;
+        private final int to;
+        private final IntBuffer ids;
+        private final IntBuffer weights;
+
+        Adjacent(int from, int to, IntBuffer ids, IntBuffer weights) {
+            this.from = from;
+            this.to = to;
+            this.ids = ids;
+            this.weights = weights;
+        }
+
+        // index in ids of a neighbour, or -1 if label is not one
+        private int find(Object label) {
+            int id = id(label);
+            if (id < 0) return -1;
+            int lo = from;
+            int hi = to - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int c = Integer.compare(ids.get(mid), id);
+                if (c < 0) {
+                    lo = mid + 1;
+                } else if (c > 0) {
+                    hi = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        public boolean containsKey(Object label) {
+            return find(label) >= 0;
+        }
+
+        @Override
+        public Integer get(Object label) {
+            int k = find(label);
+            return k < 0 ? null : weights.get(k);
+        }
+
+        @Override
+        public Set<Map.Entry<String, Integer>> entrySet() {
+            return new AbstractSet<Map.Entry<String, Integer>>() {
+                @Override
+                public int size() {
+                    return to - from;
+                }
+
+                @Override
+                public Iterator<Map.Entry<String, Integer>> iterator() {
+                    return new Iterator<Map.Entry<String, Integer>>() {
+                        private int next = from;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < to;
+                        }
+
+                        @Override
+                        public Map.Entry<String, Integer> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            Map.Entry<String, Integer> e = new AbstractMap.SimpleImmutableEntry<>(
+                                    label(ids.get(next)), weights.get(next));
+                            next++;
+                            return e;
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.function.IntBinaryOperator;
+
+/**
+ * A Graph that can update an edge weight based on its current weight in one
+ * step, the way {@link java.util.Map#merge Map.merge} updates a map entry.
+ *
+ * <p>Graph itself may not gain methods, so implementations that support
+ * merging implement this interface instead.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public interface MergeableGraph<L> extends Graph<L> {
+
+    /**
+     * Create an empty graph, of the same kind {@link Graph#empty()} returns.
+     *
+     * @param <L> type of vertex labels in the graph, must be immutable
+     * @return a new empty weighted directed graph
+     */
+    public static <L> MergeableGraph<L> empty() {
+        return new AdaptiveGraph<>();
+    }
+
+    /**
+     * Combine a weight into a directed edge.
+     * If there is no edge from source to target, add one with the given weight,
+     * adding vertices with the given labels if they do not already exist.
+     * Otherwise change the weight of the edge to
+     * {@code remapping.applyAsInt(oldWeight, weight)}, removing the edge if
+     * that is zero.
+     * Implementations that are thread-safe perform the whole merge atomically.
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param weight positive weight to combine into the edge
+     * @param remapping function from the current weight and weight to the new
+     *        weight, must return a nonnegative value
+     * @return the new weight of the edge, or zero if it was removed
+     * @throws IllegalArgumentException if weight is not positive, or remapping
+     *         returns a negative weight (and this graph is not modified)
+     */
+    public int merge(L source, L target, int weight, IntBinaryOperator remapping);
+
+    /**
+     * Add to the weight of a directed edge, adding the edge with weight delta if
+     * it does not exist, as {@link #merge merge(source, target, delta, Integer::sum)}.
+     *
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param delta positive amount to add
+     * @return the new weight of the edge
+     * @throws IllegalArgumentException if delta is not positive
+     */
+    public default int increment(L source, L target, int delta) {
+        return merge(source, target, delta, Integer::sum);
+    }
+
+    /**
+     * Compute the weight a merge leaves on an edge.
+     *
+     * @param previous current weight of the edge, or zero if there is none
+     * @param weight weight to combine, must be positive
+     * @param remapping function combining previous and weight
+     * @return the new weight, which is nonnegative
+     * @throws IllegalArgumentException if weight is not positive or the new
+     *         weight would be negative
+     */
+    static int merged(int previous, int weight, IntBinaryOperator remapping) {
+        if (weight <= 0) throw new IllegalArgumentException("weight must be positive");
+        int updated = previous == 0 ? weight : remapping.applyAsInt(previous, weight);
+        if (updated < 0) throw new IllegalArgumentException("merged weight must be nonnegative");
+        return updated;
+    }
+}
@@ -0,0 +1,443 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An immutable engine for path queries over a snapshot of a graph: the
+ * highest-affinity path of a bounded number of edges between two vertices, and
+ * the vertices within a number of edges of a vertex.
+ *
+ * <p>Affinity is turned into cost as a word model would: the edge u -> v of
+ * weight w is taken with probability w / W(u), where W(u) is the total weight
+ * of the edges out of u, and costs -log of that. The highest-affinity path is
+ * the path of least total cost, the most probable walk from source to target.
+ * Costs are nonnegative, so a partial path that already costs as much as a
+ * complete one is never extended; each vertex's edges are kept cheapest
+ * first, so a scan of them stops at the first edge too costly to help.
+ *
+ * <p>The graph is copied into primitive arrays in compressed sparse row form,
+ * with each vertex numbered by an int id. Queries run on ids, in scratch
+ * buffers owned by the calling thread and reused by its later queries, so a
+ * query allocates nothing once its thread's buffers have grown to fit: the
+ * methods taking labels allocate only the lists they return.
+ *
+ * <p>A PathFinder may be shared by threads without synchronization.
+ *
+ * @param <L> type of vertex labels in the graph, must be immutable
+ */
+public final class PathFinder<L> {
+
+    private final Object[] labels;
+    private final Map<L, Integer> ids;
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] costs;
+    private final double[] cheapestIn;
+
+    // each thread's buffers, shared by every PathFinder it queries; a Scratch
+    // refers to no PathFinder, so a thread does not keep old ones reachable
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    // Abstraction function:
+    //   AF(labels, offsets, targets, costs) = the graph whose vertices are the
+    //     labels, with an edge labels[u] -> labels[targets[k]] of cost costs[k]
+    //     for each k in [offsets[u] .. offsets[u+1])
+    //   ids and cheapestIn add nothing to the abstract value
+    //
+    // Representation invariant:
+    //   - labels are distinct and not null, and ids.get(labels[u]) == u
+    //   - offsets has labels.length + 1 entries, nondecreasing from 0 to
+    //     targets.length == costs.length
+    //   - every target is an id in [0, labels.length), and every cost is
+    //     finite and nonnegative
+    //   - the edges of each vertex are in increasing order of cost, ties in
+    //     increasing order of target
+    //   - cheapestIn[v] is the least cost of the edges into v, or infinity if
+    //     there are none
+    //
+    // Safety from rep exposure:
+    //   - all fields are private and final, and no array or map is returned;
+    //     queries return new lists of labels
+    //
+    // Thread safety argument:
+    //   - all fields are never changed after construction
+    //   - queries write only to the calling thread's own Scratch from SCRATCH,
+    //     which no other thread uses
+
+    private PathFinder(Object[] labels, Map<L, Integer> ids, int[] offsets, int[] targets, double[] costs,
+            double[] cheapestIn) {
+        this.labels = labels;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.costs = costs;
+        this.cheapestIn = cheapestIn;
+        assert checkRep();
+    }
+
+    // walks the whole graph, so returns true to be run as `assert checkRep()`
+    private boolean checkRep() {
+        assert offsets.length == labels.length + 1 && offsets[0] == 0;
+        assert offsets[labels.length] == targets.length && targets.length == costs.length;
+        for (int u = 0; u < labels.length; u++) {
+            assert labels[u] != null && ids.get(labels[u]) == u;
+            assert offsets[u] <= offsets[u + 1];
+        }
+        double[] cheapest = new double[labels.length];
+        Arrays.fill(cheapest, Double.POSITIVE_INFINITY);
+        for (int u = 0; u < labels.length; u++) {
+            for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+                assert 0 <= targets[k] && targets[k] < labels.length;
+                assert costs[k] >= 0 && !Double.isInfinite(costs[k]);
+                assert k == offsets[u] || costs[k - 1] < costs[k]
+                        || costs[k - 1] == costs[k] && targets[k - 1] < targets[k];
+                cheapest[targets[k]] = Math.min(cheapest[targets[k]], costs[k]);
+            }
+        }
+        assert Arrays.equals(cheapest, cheapestIn);
+        return true;
+    }
+
+    /**
+     * Prepare path queries over a graph.
+     *
+     * @param <L> type of vertex labels in the graph, must be immutable
+     * @param graph graph to query, which must not change while this runs;
+     *        later changes to it are not seen by the returned engine
+     * @return an engine for path queries over graph as it is now
+     */
+    public static <L> PathFinder<L> of(Graph<L> graph) {
+        Object[] labels = graph.vertices().toArray();
+        Map<L, Integer> ids = new HashMap<>(Math.max(16, labels.length * 4 / 3 + 1));
+        for (int u = 0; u < labels.length; u++) {
+            @SuppressWarnings("unchecked")
+            L label = (L) labels[u];
+            ids.put(label, u);
+        }
+        int[] offsets = new int[labels.length + 1];
+        List<Map<L, Integer>> adjacency = new ArrayList<>(labels.length);
+        for (int u = 0; u < labels.length; u++) {
+            @SuppressWarnings("unchecked")
+            L label = (L) labels[u];
+            Map<L, Integer> out = graph.targets(label);
+            adjacency.add(out);
+            offsets[u + 1] = offsets[u] + out.size();
+        }
+        int[] targets = new int[offsets[labels.length]];
+        double[] costs = new double[targets.length];
+        double[] cheapestIn = new double[labels.length];
+        Arrays.fill(cheapestIn, Double.POSITIVE_INFINITY);
+        for (int u = 0; u < labels.length; u++) {
+            // heaviest first, i.e. cheapest first, then by target: the weight
+            // in the high half and the target in the low half sort together
+            long[] row = new long[offsets[u + 1] - offsets[u]];
+            long total = 0;
+            int n = 0;
+            for (Map.Entry<L, Integer> e : adjacency.get(u).entrySet()) {
+                total += e.getValue();
+                row[n++] = (long) (Integer.MAX_VALUE - e.getValue()) << 32 | ids.get(e.getKey());
+            }
+            Arrays.sort(row);
+            double logTotal = Math.log(total);
+            for (int i = 0, k = offsets[u]; i < row.length; i++, k++) {
+                int v = (int) row[i];
+                targets[k] = v;
+                // rounding must not make the cost of a certain step negative
+                costs[k] = Math.max(0, logTotal - Math.log(Integer.MAX_VALUE - (int) (row[i] >>> 32)));
+                cheapestIn[v] = Math.min(cheapestIn[v], costs[k]);
+            }
+            adjacency.set(u, null);
+        }
+        return new PathFinder<>(labels, ids, offsets, targets, costs, cheapestIn);
+    }
+
+    /**
+     * @return number of vertices, whose ids are 0 .. vertexCount()-1
+     */
+    public int vertexCount() {
+        return labels.length;
+    }
+
+    /**
+     * @param label a label
+     * @return the id of the vertex with that label, or -1 if there is none
+     */
+    public int id(L label) {
+        Integer id = label == null ? null : ids.get(label);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id id of a vertex
+     * @return the label of that vertex
+     * @throws IndexOutOfBoundsException if id is not a vertex id
+     */
+    @SuppressWarnings("unchecked")
+    public L label(int id) {
+        return (L) labels[id];
+    }
+
+    /**
+     * Find the highest-affinity path from one vertex to another, as described
+     * above. The path is a walk, so it may visit a vertex more than once.
+     *
+     * @param source label of the first vertex
+     * @param target label of the last vertex
+     * @param minHops fewest edges the path may have, at least 1
+     * @param maxHops most edges the path may have, at least minHops
+     * @return the labels of the path's vertices, from source to target, of the
+     *         least-cost path with minHops to maxHops edges; empty if there is
+     *         none. Of paths with equal cost, the one with fewer edges is
+     *         returned; other ties are broken arbitrarily, but the same way
+     *         every time.
+     * @throws IllegalArgumentException if a label is null or the bounds are bad
+     */
+    public List<L> bestPath(L source, L target, int minHops, int maxHops) {
+        if (source == null || target == null) throw new IllegalArgumentException("null vertices not allowed");
+        int s = id(source);
+        int t = id(target);
+        Scratch search = scratch();
+        if (s < 0 || t < 0) {
+            checkHops(minHops, maxHops);
+            search.bestCost = Double.POSITIVE_INFINITY;
+            return List.of();
+        }
+        int hops = search.bestPath(this, s, t, minHops, maxHops);
+        if (hops < 0) return List.of();
+        List<L> path = new ArrayList<>(hops + 1);
+        for (int i = 0; i <= hops; i++) {
+            path.add(label(search.path[i]));
+        }
+        return Collections.unmodifiableList(path);
+    }
+
+    /**
+     * Find the highest-affinity path between two vertices by id, as
+     * {@link #bestPath(Object, Object, int, int) bestPath()} does, without
+     * allocating once the calling thread's buffers have grown to fit.
+     *
+     * @param source id of the first vertex
+     * @param target id of the last vertex
+     * @param minHops fewest edges the path may have, at least 1
+     * @param maxHops most edges the path may have, at least minHops
+     * @param path array to put the ids of the path's vertices in, from source
+     *        to target; needs room for maxHops + 1 ids
+     * @return number of edges in the path, or -1 if there is none
+     * @throws IllegalArgumentException if the bounds are bad or path is too short
+     * @throws IndexOutOfBoundsException if an id is not a vertex id
+     */
+    public int bestPath(int source, int target, int minHops, int maxHops, int[] path) {
+        if (path.length <= maxHops) throw new IllegalArgumentException("path needs room for maxHops + 1 ids");
+        Objects.checkIndex(source, labels.length);
+        Objects.checkIndex(target, labels.length);
+        Scratch search = scratch();
+        int hops = search.bestPath(this, source, target, minHops, maxHops);
+        if (hops >= 0) System.arraycopy(search.path, 0, path, 0, hops + 1);
+        return hops;
+    }
+
+    /**
+     * @return the cost, as described above, of the path found by the calling
+     *         thread's last bestPath() call on any PathFinder, or infinity if
+     *         that call found none
+     */
+    public double lastCost() {
+        return SCRATCH.get().bestCost;
+    }
+
+    /**
+     * Find the vertices within a number of edges of a vertex.
+     *
+     * @param source label of a vertex
+     * @param hops most edges to follow, at least 0
+     * @return the labels of the vertices reachable from source by following at
+     *         most hops edges, in order of how few edges it takes to reach
+     *         them, starting with source itself; empty if source is not a vertex
+     * @throws IllegalArgumentException if source is null or hops is negative
+     */
+    public List<L> within(L source, int hops) {
+        if (source == null) throw new IllegalArgumentException("null vertices not allowed");
+        if (hops < 0) throw new IllegalArgumentException("hops must be nonnegative: " + hops);
+        int s = id(source);
+        if (s < 0) return List.of();
+        Scratch search = scratch();
+        int count = search.within(this, s, hops);
+        List<L> reached = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            reached.add(label(search.queue[i]));
+        }
+        return Collections.unmodifiableList(reached);
+    }
+
+    // the calling thread's buffers, with room for this graph's vertices
+    private Scratch scratch() {
+        Scratch search = SCRATCH.get();
+        search.reserve(labels.length);
+        return search;
+    }
+
+    private static void checkHops(int minHops, int maxHops) {
+        if (minHops < 1 || maxHops < minHops) {
+            throw new IllegalArgumentException("need 1 <= minHops <= maxHops: " + minHops + ", " + maxHops);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PathFinder(" + labels.length + " vertices, " + targets.length + " edges)";
+    }
+
+    /**
+     * One thread's buffers for queries, grown as needed and reused by queries
+     * on any PathFinder. They stay as large as the largest graph the thread
+     * has queried, but keep no graph reachable.
+     *
+     * <p>Per-vertex marks are stamped with the number of the search or layer
+     * that set them, so they never need clearing between queries, even of
+     * different graphs.
+     */
+    private static final class Scratch {
+        // per vertex: stamp of the layer in which slot[v] is valid
+        int[] stamp = new int[0];
+        // per vertex: index of its entry in the current layer
+        int[] slot = new int[0];
+        int epoch = 0;
+
+        // entries of all layers, layer h at [layerStart[h] .. layerStart[h+1])
+        int[] vertex = new int[16];
+        int[] parent = new int[16];
+        double[] cost = new double[16];
+        int[] layerStart = new int[4];
+
+        int[] path = new int[4];
+        double bestCost;
+
+        // breadth-first queue for within()
+        int[] queue = new int[16];
+
+        // make room for the vertices of a graph; new vertices have stamp 0,
+        // which no search uses
+        void reserve(int vertices) {
+            if (stamp.length < vertices) {
+                stamp = Arrays.copyOf(stamp, vertices);
+                slot = new int[vertices];
+            }
+        }
+
+        // a stamp no vertex has yet
+        private int nextStamp() {
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(stamp, 0);
+                epoch = 1;
+            }
+            return epoch;
+        }
+
+        // the least-cost walk from s to t with minHops to maxHops edges, put in
+        // path; returns its number of edges, or -1 if there is none
+        int bestPath(PathFinder<?> graph, int s, int t, int minHops, int maxHops) {
+            int[] offsets = graph.offsets;
+            int[] targets = graph.targets;
+            double[] costs = graph.costs;
+            checkHops(minHops, maxHops);
+            if (layerStart.length < maxHops + 2) layerStart = new int[maxHops + 2];
+            bestCost = Double.POSITIVE_INFINITY;
+            int best = -1;
+            int bestHops = -1;
+
+            vertex[0] = s;
+            parent[0] = -1;
+            cost[0] = 0;
+            layerStart[0] = 0;
+            layerStart[1] = 1;
+            int size = 1;
+            // every path into t ends with an edge costing at least last, so a
+            // partial path is dropped once it cannot beat the best path found
+            double last = graph.cheapestIn[t];
+            for (int h = 1; h <= maxHops && layerStart[h] > layerStart[h - 1]; h++) {
+                int layer = nextStamp();
+                boolean complete = h >= minHops;
+                for (int i = layerStart[h - 1]; i < layerStart[h]; i++) {
+                    if (cost[i] + last >= bestCost) continue;
+                    int u = vertex[i];
+                    for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+                        double c = cost[i] + costs[k];
+                        if (c >= bestCost) break; // the rest cost more
+                        int v = targets[k];
+                        if (!(v == t && complete) && (h == maxHops || c + last >= bestCost)) continue;
+                        int e;
+                        if (stamp[v] == layer) {
+                            e = slot[v];
+                            if (c >= cost[e]) continue;
+                        } else {
+                            e = size++;
+                            grow(size);
+                            stamp[v] = layer;
+                            slot[v] = e;
+                            vertex[e] = v;
+                        }
+                        cost[e] = c;
+                        parent[e] = i;
+                        if (v == t && complete) {
+                            bestCost = c;
+                            best = e;
+                            bestHops = h;
+                        }
+                    }
+                }
+                layerStart[h + 1] = size;
+            }
+
+            if (best < 0) return -1;
+            if (path.length <= bestHops) path = new int[Math.max(bestHops + 1, 2 * path.length)];
+            for (int i = bestHops, e = best; i >= 0; i--, e = parent[e]) {
+                path[i] = vertex[e];
+            }
+            return bestHops;
+        }
+
+        private void grow(int size) {
+            if (size > vertex.length) {
+                int capacity = Math.max(size, 2 * vertex.length);
+                vertex = Arrays.copyOf(vertex, capacity);
+                parent = Arrays.copyOf(parent, capacity);
+                cost = Arrays.copyOf(cost, capacity);
+            }
+        }
+
+        // breadth-first search from s to depth hops, putting the vertices
+        // reached in queue; returns how many
+        int within(PathFinder<?> graph, int s, int hops) {
+            int[] offsets = graph.offsets;
+            int[] targets = graph.targets;
+            int seen = nextStamp();
+            queue[0] = s;
+            stamp[s] = seen;
+            int size = 1;
+            int depthEnd = 1;
+            for (int head = 0, depth = 0; head < size && depth < hops; depth++) {
+                for (; head < depthEnd; head++) {
+                    int u = queue[head];
+                    for (int k = offsets[u]; k < offsets[u + 1]; k++) {
+                        int v = targets[k];
+                        if (stamp[v] == seen) continue;
+                        stamp[v] = seen;
+                        if (size == queue.length) queue = Arrays.copyOf(queue, Math.min(graph.labels.length, 2 * size));
+                        queue[size++] = v;
+                    }
+                }
+                depthEnd = size;
+            }
+            return size;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Graph that can find the heaviest edges out of or into a vertex without
+ * handing out all of them, for callers that only want a vertex's strongest
+ * neighbours.
+ *
+ * <p>Graph itself may not gain methods, so implementations that answer these
+ * queries implement this interface instead. The default methods select from
+ * {@link #targets(Object) targets()} and {@link #sources(Object) sources()} in
+ * O(d log k) time for a vertex of degree d; implementations override them to
+ * avoid building those maps, or to answer from neighbours kept in order of
+ * weight.
+ *
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public interface RankedGraph<L> extends Graph<L> {
+
+    /**
+     * Get the heaviest edges out of a vertex.
+     *
+     * @param source a label
+     * @param k most edges to return, at least 0
+     * @return the min(k, d) heaviest of the d edges from source, in decreasing
+     *         order of weight; which of several edges of equal weight come first
+     *         or are included is unspecified
+     * @throws IllegalArgumentException if source is null or k is negative
+     */
+    public default List<WeightedEdge<L>> heaviestTargets(L source, int k) {
+        Heaviest.check(source, k);
+        return Heaviest.targets(source, Heaviest.entries(targets(source).entrySet(), k));
+    }
+
+    /**
+     * Get the heaviest edges into a vertex.
+     *
+     * @param target a label
+     * @param k most edges to return, at least 0
+     * @return the min(k, d) heaviest of the d edges to target, in decreasing
+     *         order of weight; which of several edges of equal weight come first
+     *         or are included is unspecified
+     * @throws IllegalArgumentException if target is null or k is negative
+     */
+    public default List<WeightedEdge<L>> heaviestSources(L target, int k) {
+        Heaviest.check(target, k);
+        return Heaviest.sources(target, Heaviest.entries(sources(target).entrySet(), k));
+    }
+}
@@ -0,0 +1,128 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A mutable map that can hand out read-only snapshots of itself without
+ * copying. A snapshot is a view of the current backing map; the first write
+ * after a snapshot was taken copies the backing map, so the snapshot never
+ * changes. Reads between writes share one snapshot, and writes with no
+ * snapshot outstanding never copy.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+final class SnapshotMap<K, V> {
+
+    private Map<K, V> map;
+    private Map<K, V> snapshot = null;
+
+    // Abstraction function:
+    //   AF(map, snapshot) = the map `map`; snapshot, if non-null, is the
+    //     read-only view of it handed out by the last call to snapshot()
+    //
+    // Representation invariant:
+    //   - map != null
+    //   - snapshot is null or an unmodifiable view of map
+    //
+    // Safety from rep exposure:
+    //   - map is only ever returned through an unmodifiable view, and is
+    //     replaced by a copy before any write once such a view exists
+    //   - keySet() and values() are unmodifiable views for the owner's reads,
+    //     and entrySet() is the backing entry set, for the owner to read
+    //     without allocating; none of them may be kept across writes
+
+    SnapshotMap() {
+        this.map = new HashMap<>();
+    }
+
+    /**
+     * @param expectedSize number of entries to size the backing map for
+     */
+    SnapshotMap(int expectedSize) {
+        this.map = new HashMap<>(Math.max(16, expectedSize * 4 / 3 + 1));
+    }
+
+    // copy the backing map if a snapshot of it is outstanding
+    private Map<K, V> writable() {
+        if (snapshot != null) {
+            map = new HashMap<>(map);
+            snapshot = null;
+        }
+        return map;
+    }
+
+    /**
+     * @return an unmodifiable map equal to this map now, which never changes
+     */
+    Map<K, V> snapshot() {
+        if (snapshot == null) {
+            snapshot = Collections.unmodifiableMap(map);
+        }
+        return snapshot;
+    }
+
+    V get(Object key) {
+        return map.get(key);
+    }
+
+    V getOrDefault(Object key, V defaultValue) {
+        return map.getOrDefault(key, defaultValue);
+    }
+
+    boolean containsKey(Object key) {
+        return map.containsKey(key);
+    }
+
+    int size() {
+        return map.size();
+    }
+
+    boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    V put(K key, V value) {
+        return writable().put(key, value);
+    }
+
+    V remove(Object key) {
+        if (!map.containsKey(key)) return null;
+        return writable().remove(key);
+    }
+
+    /**
+     * @return unmodifiable live view of the keys, valid until the next write
+     */
+    Set<K> keySet() {
+        return Collections.unmodifiableSet(map.keySet());
+    }
+
+    /**
+     * @return unmodifiable live view of the values, valid until the next write
+     */
+    Collection<V> values() {
+        return Collections.unmodifiableCollection(map.values());
+    }
+
+    /**
+     * @return live view of the entries, valid until the next write; the owner
+     *         may read them without the allocation of an unmodifiable view,
+     *         but must not modify them
+     */
+    Set<Map.Entry<K, V>> entrySet() {
+        return map.entrySet();
+    }
+
+    @Override
+    public String toString() {
+        return map.toString();
+    }
+}
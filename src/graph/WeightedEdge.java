@@ -0,0 +1,87 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Objects;
+
+/**
+ * An immutable (source, target, weight) triple describing one weighted
+ * directed edge, for feeding edges to a {@link GraphBuilder}.
+ *
+ * @param <L> type of vertex labels, must be immutable
+ */
+public final class WeightedEdge<L> {
+
+    private final L source;
+    private final L target;
+    private final int weight;
+
+    // Abstraction function:
+    //   AF(source, target, weight) = the edge source -> target with weight `weight`
+    //
+    // Representation invariant:
+    //   - source != null, target != null
+    //   - weight > 0
+    //
+    // Safety from rep exposure:
+    //   - all fields are private and final, and labels are immutable
+
+    /**
+     * Make an edge.
+     *
+     * @param source label of the source vertex, not null
+     * @param target label of the target vertex, not null
+     * @param weight positive weight
+     * @throws IllegalArgumentException if a label is null or weight is not positive
+     */
+    public WeightedEdge(L source, L target, int weight) {
+        if (source == null || target == null) {
+            throw new IllegalArgumentException("null vertices not allowed");
+        }
+        if (weight <= 0) {
+            throw new IllegalArgumentException("weight must be greater than zero");
+        }
+        this.source = source;
+        this.target = target;
+        this.weight = weight;
+    }
+
+    /**
+     * @return label of the source vertex
+     */
+    public L source() {
+        return source;
+    }
+
+    /**
+     * @return label of the target vertex
+     */
+    public L target() {
+        return target;
+    }
+
+    /**
+     * @return weight of this edge
+     */
+    public int weight() {
+        return weight;
+    }
+
+    @Override
+    public boolean equals(Object that) {
+        if (!(that instanceof WeightedEdge)) return false;
+        WeightedEdge<?> other = (WeightedEdge<?>) that;
+        return source.equals(other.source) && target.equals(other.target) && weight == other.weight;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(source, target, weight);
+    }
+
+    @Override
+    public String toString() {
+        return source + "->" + target + " (" + weight + ")";
+    }
+}
@@ -0,0 +1,199 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import graph.Graph;
+
+/**
+ * An immutable table of precomputed bridge words for a word affinity graph.
+ *
+ * <p>The bridge between w1 and w2 is the word b maximizing the weight of the
+ * two-edge path w1 -> b -> w2, that is weight(w1 -> b) + weight(b -> w2); ties
+ * go to the alphabetically first word. The table covers some set of first
+ * words w1: for a covered w1 it holds the bridge to every w2 that has one, so
+ * a lookup is a pair of hash probes. Which words are covered is decided by a
+ * memory budget; bridges from other words must be searched for in the graph.
+ */
+class BridgeIndex {
+
+    private final Map<String, Map<String, String>> bridges;
+    private final int entries;
+    private final long maxEntries;
+
+    // Abstraction function:
+    //   AF(bridges, entries, maxEntries) = a table covering exactly the keys of
+    //     bridges, in which the bridge from w1 to w2 is bridges.get(w1).get(w2),
+    //     or none if that is null, built within a budget of maxEntries pairs
+    //
+    // Representation invariant:
+    //   - entries is the total size of the maps in bridges
+    //   - entries <= maxEntries
+    //
+    // Safety from rep exposure:
+    //   - bridges is private, final, and never returned; its maps are never
+    //     changed after construction, so the table may be shared by threads
+
+    private BridgeIndex(Map<String, Map<String, String>> bridges, int entries, long maxEntries) {
+        this.bridges = bridges;
+        this.entries = entries;
+        this.maxEntries = maxEntries;
+        checkRep();
+    }
+
+    private void checkRep() {
+        int total = 0;
+        for (Map<String, String> row : bridges.values()) {
+            total += row.size();
+        }
+        assert total == entries;
+        assert entries <= maxEntries;
+    }
+
+    /**
+     * Precompute bridges for a graph, covering as many first words as fit in a
+     * budget. Words are considered in decreasing order of how often they occur
+     * as a first word (the total weight of their outgoing edges), and a word is
+     * covered only if all its bridges fit in what is left of the budget.
+     *
+     * @param graph word affinity graph, which must not change while this runs
+     * @param maxEntries most (w1, w2) pairs to store bridges for
+     * @return a table of bridges from the covered words
+     */
+    static BridgeIndex build(Graph<String> graph, long maxEntries) {
+        List<String> words = new ArrayList<>(graph.vertices());
+        Map<String, Long> frequency = new HashMap<>();
+        for (String w : words) {
+            long total = 0;
+            for (int weight : graph.targets(w).values()) {
+                total += weight;
+            }
+            frequency.put(w, total);
+        }
+        words.sort((a, b) -> {
+            int byFrequency = Long.compare(frequency.get(b), frequency.get(a));
+            return byFrequency != 0 ? byFrequency : a.compareTo(b);
+        });
+
+        Map<String, Map<String, String>> bridges = new HashMap<>();
+        long remaining = maxEntries;
+        int entries = 0;
+        for (String w1 : words) {
+            if (remaining <= 0) break;
+            Map<String, String> row = bridgesFrom(graph, w1, remaining);
+            if (row == null) continue;
+            bridges.put(w1, row);
+            remaining -= row.size();
+            entries += row.size();
+        }
+        return new BridgeIndex(bridges, entries, maxEntries);
+    }
+
+    /**
+     * Bring this table up to date after some edges of its graph have changed
+     * weight or been added. Bridges are recomputed only for the covered words
+     * they could have changed: the source of each changed edge, and the
+     * sources of those. A word whose bridges no longer fit the budget stops
+     * being covered; words that were not covered are not added.
+     *
+     * @param graph word affinity graph this table was built from, after the
+     *        change, which must not change while this runs
+     * @param changed the source of every edge that has changed since this
+     *        table was built or updated
+     * @return a table of bridges for graph as it is now
+     */
+    BridgeIndex update(Graph<String> graph, Set<String> changed) {
+        Set<String> affected = new HashSet<>();
+        for (String s : changed) {
+            if (covers(s)) affected.add(s);
+            for (String w1 : graph.sources(s).keySet()) {
+                if (covers(w1)) affected.add(w1);
+            }
+        }
+        if (affected.isEmpty()) return this;
+
+        Map<String, Map<String, String>> updated = new HashMap<>(bridges);
+        int total = entries;
+        for (String w1 : affected) {
+            total -= updated.remove(w1).size();
+        }
+        for (String w1 : affected) {
+            Map<String, String> row = bridgesFrom(graph, w1, maxEntries - total);
+            if (row == null) continue;
+            updated.put(w1, row);
+            total += row.size();
+        }
+        return new BridgeIndex(updated, total, maxEntries);
+    }
+
+    // the bridges from w1 to every w2 that has one, or null if there are more than limit
+    private static Map<String, String> bridgesFrom(Graph<String> graph, String w1, long limit) {
+        Map<String, String> best = new HashMap<>();
+        Map<String, Integer> bestWeight = new HashMap<>();
+        for (Map.Entry<String, Integer> first : graph.targets(w1).entrySet()) {
+            String b = first.getKey();
+            for (Map.Entry<String, Integer> second : graph.targets(b).entrySet()) {
+                String w2 = second.getKey();
+                int weight = first.getValue() + second.getValue();
+                Integer current = bestWeight.get(w2);
+                if (current == null || isBetter(b, weight, best.get(w2), current)) {
+                    best.put(w2, b);
+                    bestWeight.put(w2, weight);
+                }
+            }
+            if (best.size() > limit) return null;
+        }
+        return Collections.unmodifiableMap(best);
+    }
+
+    /**
+     * Decide whether one candidate bridge beats another.
+     *
+     * @param candidate candidate bridge word
+     * @param weight weight of the path through candidate
+     * @param best best bridge word so far, or null if there is none
+     * @param bestWeight weight of the path through best, or 0 if there is none
+     * @return true iff candidate should replace best
+     */
+    static boolean isBetter(String candidate, int weight, String best, int bestWeight) {
+        return best == null || weight > bestWeight
+                || (weight == bestWeight && candidate.compareTo(best) < 0);
+    }
+
+    /**
+     * @param w1 a word
+     * @return true iff this table holds every bridge from w1
+     */
+    boolean covers(String w1) {
+        return bridges.containsKey(w1);
+    }
+
+    /**
+     * @param w1 a word this table covers
+     * @param w2 a word
+     * @return the bridge from w1 to w2, or null if there is none
+     */
+    String get(String w1, String w2) {
+        return bridges.get(w1).get(w2);
+    }
+
+    /**
+     * @return number of (w1, w2) pairs this table stores bridges for
+     */
+    int size() {
+        return entries;
+    }
+
+    @Override
+    public String toString() {
+        return "BridgeIndex(" + bridges.size() + " words, " + entries + " bridges)";
+    }
+}
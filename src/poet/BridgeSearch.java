@@ -0,0 +1,231 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import graph.Graph;
+
+/**
+ * Finds bridge words in a word affinity graph, as {@link BridgeIndex}
+ * defines them, in time bounded by the smaller degree of the two words.
+ *
+ * <p>A bridge from w1 to w2 is a word that is both a target of w1 and a source
+ * of w2. The search walks whichever of those two neighbour sets is smaller and
+ * probes the other by hash lookup, so a hub word like "the" on one side costs
+ * nothing extra. When the smaller side is itself large, it is walked in
+ * decreasing order of weight, and the walk stops as soon as no remaining
+ * neighbour could beat the best bridge found, given the heaviest edge on the
+ * other side.
+ *
+ * <p>What the search learns about large neighbour sets is kept in caches
+ * bounded by a budget of neighbours, evicting the least recently used words,
+ * so a search over a large graph does not come to hold a copy of it.
+ * 
+ * <p>The graph must not change while a search uses it, and every change to it
+ * must be reported to {@link #update(String, String, int) update()} before the
+ * search is used again. A search may be shared by threads that are only
+ * searching.
+ */
+class BridgeSearch {
+
+    /** Smallest neighbour set that is worth sorting, to allow early stopping. */
+    static final int SORT_THRESHOLD = 32;
+    
+    /** Default budget of ranked neighbours kept, in each direction. */
+    static final long DEFAULT_MAX_RANKED = 1 << 20;
+
+    private final Graph<String> graph;
+    private final LruCache<String, Integer> maxOut;
+    private final LruCache<String, Integer> maxIn;
+    private final LruCache<String, Ranked> rankedOut;
+    private final LruCache<String, Ranked> rankedIn;
+
+    // Abstraction function:
+    //   AF(graph, ...) = a bridge search over graph; the other fields are
+    //     derived from graph and add nothing to the abstract value
+    //
+    // Representation invariant:
+    //   - for every key v, maxOut.get(v) (maxIn.get(v)) is the heaviest weight
+    //     of an edge out of (into) v, and rankedOut.get(v) (rankedIn.get(v))
+    //     holds the targets (sources) of v in decreasing order of weight
+    //
+    // Safety from rep exposure:
+    //   - all fields are private and final, and never returned
+    //
+    // Thread safety argument:
+    //   - graph is not changed while the search is used, and update() is not
+    //     run at the same time as a search
+    //   - the other fields are thread-safe caches of immutable values derived
+    //     from graph; two threads may compute the same entry, with the same
+    //     result
+
+    private BridgeSearch(Graph<String> graph, long maxRanked) {
+        this.graph = graph;
+        // a word's heaviest weight is only kept when its neighbours are worth
+        // ranking, so the words kept are bounded like the ranked neighbours
+        long maxWords = Math.max(1, maxRanked / SORT_THRESHOLD);
+        this.maxOut = new LruCache<>(maxWords, (word, max) -> 1);
+        this.maxIn = new LruCache<>(maxWords, (word, max) -> 1);
+        this.rankedOut = new LruCache<>(maxRanked, (word, ranked) -> Math.max(1, ranked.words.length));
+        this.rankedIn = new LruCache<>(maxRanked, (word, ranked) -> Math.max(1, ranked.words.length));
+    }
+
+    /**
+     * Prepare to search a graph. Nothing is computed up front: what the search
+     * learns about a word is computed the first time it is needed, and kept
+     * within a default budget.
+     *
+     * @param graph word affinity graph, which must not change while the
+     *        returned search is used
+     * @return a bridge search over graph
+     */
+    static BridgeSearch of(Graph<String> graph) {
+        return of(graph, DEFAULT_MAX_RANKED);
+    }
+
+    /**
+     * Prepare to search a graph, as {@link #of(Graph)} does, keeping at most a
+     * given number of ranked neighbours in each direction.
+     *
+     * @param graph word affinity graph, which must not change while the
+     *        returned search is used
+     * @param maxRanked most neighbours to keep in order of weight, in each
+     *        direction; must be positive
+     * @return a bridge search over graph
+     */
+    static BridgeSearch of(Graph<String> graph, long maxRanked) {
+        return new BridgeSearch(graph, maxRanked);
+    }
+
+    /**
+     * Bring this search up to date after an edge of its graph has been added or
+     * has become heavier.
+     *
+     * @param source source of the edge
+     * @param target target of the edge
+     * @param weight weight of the edge now, which is no less than it was
+     */
+    void update(String source, String target, int weight) {
+        Integer max = maxOut.get(source);
+        if (max != null && max < weight) maxOut.put(source, weight, maxOut.generation());
+        max = maxIn.get(target);
+        if (max != null && max < weight) maxIn.put(target, weight, maxIn.generation());
+        rankedOut.remove(source);
+        rankedIn.remove(target);
+    }
+
+    /**
+     * Find the bridge between two words.
+     *
+     * @param w1 a word
+     * @param w2 a word
+     * @return the bridge from w1 to w2, or null if there is none
+     */
+    String bridge(String w1, String w2) {
+        return bridge(w1, w2, null);
+    }
+
+    /**
+     * Find the bridge between two words, telling a listener about the search.
+     *
+     * @param w1 a word
+     * @param w2 a word
+     * @param listener told about the search once it is done, unless null
+     * @return the bridge from w1 to w2, or null if there is none
+     */
+    String bridge(String w1, String w2, PoetListener listener) {
+        long start = listener == null ? 0 : System.nanoTime();
+        Map<String, Integer> out = graph.targets(w1);
+        Map<String, Integer> in = graph.sources(w2);
+        String best = null;
+        int bestWeight = 0;
+        int scanned = 0;
+        if (!out.isEmpty() && !in.isEmpty()) {
+            boolean forward = out.size() <= in.size();
+            Map<String, Integer> walked = forward ? out : in;
+            Map<String, Integer> probed = forward ? in : out;
+            if (walked.size() < SORT_THRESHOLD) {
+                for (Map.Entry<String, Integer> e : walked.entrySet()) {
+                    scanned++;
+                    Integer other = probed.get(e.getKey());
+                    if (other == null) continue;
+                    int weight = e.getValue() + other;
+                    if (BridgeIndex.isBetter(e.getKey(), weight, best, bestWeight)) {
+                        best = e.getKey();
+                        bestWeight = weight;
+                    }
+                }
+            } else {
+                int heaviestOther = forward ? heaviest(maxIn, w2, probed) : heaviest(maxOut, w1, probed);
+                Ranked ranked = forward ? ranked(rankedOut, w1, walked) : ranked(rankedIn, w2, walked);
+                for (int i = 0; i < ranked.words.length; i++) {
+                    // ties still matter, since they go to the alphabetically first word
+                    if (ranked.weights[i] + heaviestOther < bestWeight) break;
+                    scanned++;
+                    Integer other = probed.get(ranked.words[i]);
+                    if (other == null) continue;
+                    int weight = ranked.weights[i] + other;
+                    if (BridgeIndex.isBetter(ranked.words[i], weight, best, bestWeight)) {
+                        best = ranked.words[i];
+                        bestWeight = weight;
+                    }
+                }
+            }
+        }
+        if (listener != null) {
+            listener.bridgeSearched(w1, w2, out.size(), in.size(), scanned, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    // the heaviest of word's neighbour weights, from the cache or computed
+    private static int heaviest(LruCache<String, Integer> cache, String word, Map<String, Integer> weights) {
+        Integer cached = cache.get(word);
+        if (cached != null) return cached;
+        long generation = cache.generation();
+        int max = 0;
+        for (int weight : weights.values()) {
+            max = Math.max(max, weight);
+        }
+        cache.put(word, max, generation);
+        return max;
+    }
+
+    // word's neighbours in order of weight, from the cache or computed
+    private static Ranked ranked(LruCache<String, Ranked> cache, String word, Map<String, Integer> neighbours) {
+        Ranked cached = cache.get(word);
+        if (cached != null) return cached;
+        long generation = cache.generation();
+        Ranked ranked = new Ranked(neighbours);
+        cache.put(word, ranked, generation);
+        return ranked;
+    }
+
+    @Override
+    public String toString() {
+        return "BridgeSearch(" + rankedOut.stats().size() + " + " + rankedIn.stats().size() + " ranked words)";
+    }
+
+    /**
+     * Immutable neighbours of one word, in decreasing order of weight.
+     */
+    private static class Ranked {
+        final String[] words;
+        final int[] weights;
+
+        Ranked(Map<String, Integer> neighbours) {
+            List<Map.Entry<String, Integer>> entries = new ArrayList<>(neighbours.entrySet());
+            entries.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+            words = new String[entries.size()];
+            weights = new int[entries.size()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = entries.get(i).getKey();
+                weights[i] = entries.get(i).getValue();
+            }
+        }
+    }
+}
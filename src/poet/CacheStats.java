@@ -0,0 +1,88 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+/**
+ * An immutable record of how well a cache has done since it was created.
+ */
+public final class CacheStats {
+    
+    /** Statistics of a cache that is not there, or has never been used. */
+    public static final CacheStats NONE = new CacheStats(0, 0, 0, 0);
+    
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int size;
+    
+    // Abstraction function:
+    //   AF(hits, misses, evictions, size) = a cache that has answered hits
+    //     lookups from memory and missed misses, has dropped evictions entries
+    //     to stay within its bound, and now holds size entries
+    // Representation invariant:
+    //   all fields are non-negative
+    // Safety from rep exposure:
+    //   all fields are private, final and primitive
+    
+    CacheStats(long hits, long misses, long evictions, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+        checkRep();
+    }
+    
+    private void checkRep() {
+        assert hits >= 0 && misses >= 0 && evictions >= 0 && size >= 0;
+    }
+    
+    /** @return number of lookups answered by the cache */
+    public long hits() {
+        return hits;
+    }
+    
+    /** @return number of lookups the cache could not answer */
+    public long misses() {
+        return misses;
+    }
+    
+    /** @return number of entries dropped to keep the cache within its bound */
+    public long evictions() {
+        return evictions;
+    }
+    
+    /** @return number of entries in the cache */
+    public int size() {
+        return size;
+    }
+    
+    /** @return fraction of lookups answered by the cache, or 0 if there were none */
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+    
+    @Override
+    public boolean equals(Object that) {
+        if (!(that instanceof CacheStats)) return false;
+        CacheStats other = (CacheStats) that;
+        return hits == other.hits && misses == other.misses
+                && evictions == other.evictions && size == other.size;
+    }
+    
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hits) + 31 * Long.hashCode(misses)
+                + 961 * Long.hashCode(evictions) + 29791 * size;
+    }
+    
+    /**
+     * @return a human-readable summary, e.g. "hits 3, misses 1, evictions 0, size 1"
+     */
+    @Override
+    public String toString() {
+        return "hits " + hits + ", misses " + misses + ", evictions " + evictions + ", size " + size;
+    }
+    
+}
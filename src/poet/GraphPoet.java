@@ -5,8 +5,34 @@ package poet;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BinaryOperator;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
 
 import graph.Graph;
+import graph.GraphListener;
+import graph.GraphSnapshot;
+import graph.InstrumentedGraph;
+import graph.MappedGraph;
+import graph.MergeableGraph;
+import graph.PathFinder;
 
 /**
  * A graph-based poetry generator.
@@ -52,26 +78,405 @@ import graph.Graph;
  */
 public class GraphPoet {
     
-    private final Graph<String> graph = Graph.empty();
+    private static final Pattern DELIMITERS = Pattern.compile("[ \n\r]+");
+    
+    /** Most pairs of words whose bridges poems() remembers within a batch. */
+    static final long MAX_BATCH_BRIDGES = 1 << 16;
+    
+    private final Graph<String> graph;
+    private final BridgeSearch search;
+    private volatile BridgeIndex bridges = null;
+    private volatile LruCache<String, String> poems = null;
+    private volatile LruCache<String, String> bridgeCache = null;
+    private volatile PoetListener listener = null;
+    private volatile int bridgeHops = 2;
+    private volatile PathFinder<String> paths = null;
+    private long version = 0;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
     
     // Abstraction function:
-    //   TODO
+    //   AF(graph) = a poet whose word affinity graph is graph: its vertices are
+    //     the distinct lower-cased words of the corpus, and the weight of the
+    //     edge w1 -> w2 is the number of times w1 is followed by w2 in the corpus
+    //   search, bridges, poems and bridgeCache, if not null, find and cache
+    //     poems and bridge words and add nothing to the abstract value; nor
+    //     does listener, if not null, nor paths, if not null.
+    //   bridgeHops = most edges a bridge may span; 2 for single bridge words
+    //   version counts the changes to graph and bridgeHops, and adds nothing
+    //     to the abstract value
     // Representation invariant:
-    //   TODO
+    //   - every vertex of graph is a non-empty lower-case word with no spaces
+    //     or newlines
+    //   - graph is a MergeableGraph, unless it is a read-only MappedGraph
+    //   - search, bridges and paths (if not null) were built from graph in
+    //     its current state
+    //   - bridgeHops >= 2
+    //   - poems (if not null) maps inputs to their poems, and bridgeCache (if
+    //     not null) maps "w1 w2" to the bridge from w1 to w2, or to "" if there
+    //     is none, both for graph in its current state and for bridgeHops
     // Safety from rep exposure:
-    //   TODO
+    //   - graph is private and final, and never returned
+    //   - search, bridges, paths, poems and bridgeCache are private, and never
+    //     returned; only immutable snapshots of cache statistics are
+    //   - listener is given only immutable Strings and numbers
+    //   - poem() and toString() return immutable Strings
+    // Thread safety argument:
+    //   - graph and search are changed only by addCorpus(), while holding the
+    //     write lock, and read only while holding the read lock, so readers
+    //     see the graph either before or after each update
+    //   - bridges, poems and bridgeCache are volatile; bridges is immutable and
+    //     replaced only while holding a lock, and the caches are thread-safe
+    //     and cleared while holding the write lock
+    //   - version is changed only while holding the write lock, and read only
+    //     while holding a lock
+    //   - bridgeHops is volatile and changed only while holding the write lock;
+    //     paths is volatile, immutable and thread-safe, dropped while holding
+    //     the write lock, and built while holding the read lock, so threads
+    //     racing to build it build equal ones
+    //   - listener is volatile, and listeners are required to be thread-safe
     
     /**
      * Create a new poet with the graph from corpus (as described above).
+     * The corpus is read as UTF-8 text, as a stream: apart from the graph,
+     * the memory used does not depend on the size of the corpus.
      * 
      * @param corpus text file from which to derive the poet's affinity graph
      * @throws IOException if the corpus file cannot be found or read
      */
     public GraphPoet(File corpus) throws IOException {
-        throw new RuntimeException("not implemented");
+        MergeableGraph<String> graph = MergeableGraph.empty();
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        try (WordReader words = new WordReader(
+                Channels.newReader(FileChannel.open(corpus.toPath()), decoder, -1))) {
+            ingest(words, graph);
+        }
+        this.graph = graph;
+        this.search = BridgeSearch.of(graph);
+        assert checkRep();
+    }
+    
+    /**
+     * Create a new poet with the graph from corpus (as described above),
+     * reading the corpus in parallel.
+     * The corpus is read as UTF-8 text through a memory mapping, cut into
+     * chunks at word boundaries, and the chunks are counted on pool.
+     * The poet is the same as {@link #GraphPoet(File) GraphPoet(corpus)} would make.
+     * 
+     * @param corpus text file from which to derive the poet's affinity graph
+     * @param pool pool to count chunks of the corpus on
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    public GraphPoet(File corpus, ForkJoinPool pool) throws IOException {
+        this.graph = MappedCorpus.count(corpus.toPath(), pool).build();
+        this.search = BridgeSearch.of(graph);
+        assert checkRep();
+    }
+    
+    // a poet whose graph is graph, which must satisfy the rep invariant
+    private GraphPoet(Graph<String> graph) {
+        this.graph = graph;
+        this.search = BridgeSearch.of(graph);
+        assert checkRep();
+    }
+    
+    /**
+     * Create a poet with an empty corpus, whose affinity graph tells a listener
+     * about every call the poet makes to it, with how long it took: the merges
+     * that take in corpus text, and the lookups that find bridges. Give it text
+     * with addCorpus(); a PoetListener attached before then is told about that
+     * text too, unlike text read by a constructor.
+     * 
+     * @param listener thread-safe listener to tell about calls to the graph
+     * @return a poet with no words, whose graph is instrumented
+     * @throws IllegalArgumentException if listener is null
+     * @see graph.GraphMetrics
+     */
+    public static GraphPoet instrumented(GraphListener listener) {
+        return new GraphPoet(InstrumentedGraph.mergeable(MergeableGraph.empty(), listener));
+    }
+    
+    /**
+     * Create a poet from a snapshot of its affinity graph, without reading
+     * the corpus the graph was derived from.
+     * 
+     * @param snapshot file written by {@link #saveSnapshot(File)}
+     * @return a poet with the same graph as the poet that saved snapshot
+     * @throws IOException if the snapshot cannot be read, or is not a valid
+     *         graph snapshot
+     * @see GraphSnapshot
+     */
+    public static GraphPoet loadSnapshot(File snapshot) throws IOException {
+        return new GraphPoet(GraphSnapshot.read(snapshot.toPath()).build());
+    }
+    
+    /**
+     * Save this poet's affinity graph, so that {@link #loadSnapshot(File)} can
+     * recreate the poet. Precomputed bridges and caches are not saved.
+     * 
+     * @param snapshot file to save to, replaced if it exists
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void saveSnapshot(File snapshot) throws IOException {
+        lock.readLock().lock();
+        try {
+            GraphSnapshot.write(graph, snapshot.toPath());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Create a poet that works directly on an affinity graph in a memory-mapped
+     * file, without loading it into the heap. The poet cannot take more corpus
+     * text.
+     * 
+     * @param mapped file written by {@link #saveMapped(File)}
+     * @return a poet with the same graph as the poet that saved mapped
+     * @throws IOException if the file cannot be read, or is not a mapped graph
+     * @see MappedGraph
+     */
+    public static GraphPoet openMapped(File mapped) throws IOException {
+        return new GraphPoet(MappedGraph.open(mapped.toPath()));
+    }
+    
+    /**
+     * Save this poet's affinity graph in the form {@link #openMapped(File)}
+     * works on. Precomputed bridges and caches are not saved.
+     * 
+     * @param mapped file to save to, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public void saveMapped(File mapped) throws IOException {
+        lock.readLock().lock();
+        try {
+            MappedGraph.write(graph, mapped.toPath());
+        } finally {
+            lock.readLock().unlock();
+        }
     }
     
-    // TODO checkRep
+    // add the words of a corpus to a graph, one adjacency at a time;
+    // returns the number of words
+    private static long ingest(WordReader words, MergeableGraph<String> graph) throws IOException {
+        String previous = words.next();
+        if (previous == null) return 0;
+        long count = 1;
+        graph.add(previous);
+        for (String word = words.next(); word != null; word = words.next()) {
+            graph.increment(previous, word, 1);
+            previous = word;
+            count++;
+        }
+        return count;
+    }
+    
+    /**
+     * Add more text to this poet's corpus, as a separate text: the last word
+     * of the corpus so far is not counted as followed by the first word of
+     * corpus. The text is read as UTF-8, as in {@link #GraphPoet(File)}.
+     * 
+     * <p>The text is counted before the poet is changed, and poems generated
+     * while this runs use the graph either without or with all of the text.
+     * Precomputed and cached bridges and poems are kept up to date.
+     * 
+     * @param corpus text file to add to the poet's affinity graph
+     * @throws IOException if the file cannot be found or read; the poet is
+     *         unchanged
+     * @throws UnsupportedOperationException if this poet was made by
+     *         {@link #openMapped(File)}
+     */
+    public void addCorpus(File corpus) throws IOException {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        try (Reader text = Channels.newReader(FileChannel.open(corpus.toPath()), decoder, -1)) {
+            addCorpus(text);
+        }
+    }
+    
+    /**
+     * Add more text to this poet's corpus, as {@link #addCorpus(File)} does.
+     * 
+     * @param corpus text to add to the poet's affinity graph; it is read to its
+     *        end but not closed
+     * @throws IOException if the text cannot be read; the poet is unchanged
+     * @throws UnsupportedOperationException if this poet was made by
+     *         {@link #openMapped(File)}
+     */
+    public void addCorpus(Reader corpus) throws IOException {
+        if (!(graph instanceof MergeableGraph)) {
+            throw new UnsupportedOperationException("poet's graph is read-only: " + graph);
+        }
+        MergeableGraph<String> graph = (MergeableGraph<String>) this.graph;
+        long start = System.nanoTime();
+        MergeableGraph<String> counts = MergeableGraph.empty();
+        long words = ingest(new WordReader(corpus), counts);
+        long edges = 0;
+        
+        lock.writeLock().lock();
+        try {
+            Set<String> changed = new HashSet<>();
+            for (String word : counts.vertices()) {
+                graph.add(word);
+                for (Map.Entry<String, Integer> e : counts.targets(word).entrySet()) {
+                    int weight = graph.increment(word, e.getKey(), e.getValue());
+                    search.update(word, e.getKey(), weight);
+                    changed.add(word);
+                    edges++;
+                }
+            }
+            BridgeIndex index = bridges;
+            if (index != null) bridges = index.update(graph, changed);
+            paths = null;
+            version++;
+            LruCache<String, String> cache = poems;
+            if (cache != null) cache.clear();
+            cache = bridgeCache;
+            if (cache != null) cache.clear();
+            assert checkRep();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        PoetListener listener = this.listener;
+        if (listener != null) listener.corpusAdded(words, edges, System.nanoTime() - start);
+    }
+    
+    /**
+     * Add more text to this poet's corpus, as {@link #addCorpus(File)} does.
+     * 
+     * @param corpus text to add to the poet's affinity graph
+     * @throws UnsupportedOperationException if this poet was made by
+     *         {@link #openMapped(File)}
+     */
+    public void addCorpus(String corpus) {
+        try {
+            addCorpus(new StringReader(corpus));
+        } catch (IOException e) {
+            throw new AssertionError("StringReader does not throw", e);
+        }
+    }
+    
+    // returns true so it can be used as `assert checkRep()`, which skips the
+    // walk over the whole graph when assertions are disabled
+    private boolean checkRep() {
+        for (String word : graph.vertices()) {
+            assert !word.isEmpty();
+            assert word.equals(WordReader.toLowerCase(word));
+            for (int i = 0; i < word.length(); i++) {
+                assert !WordReader.isDelimiter(word.charAt(i));
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Precompute bridge words, so that poem() can look them up instead of
+     * searching the graph. Bridges are stored for the most frequent words first,
+     * up to a budget; poem() still searches for bridges from other words.
+     * Poems are the same with or without the precomputed bridges.
+     * Calling this again replaces the previous bridges.
+     * 
+     * @param maxEntries most pairs of words to store a bridge for; 0 to drop the
+     *        stored bridges
+     */
+    public void indexBridges(long maxEntries) {
+        lock.readLock().lock();
+        try {
+            bridges = maxEntries <= 0 ? null : BridgeIndex.build(graph, maxEntries);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Remember recently generated poems and bridge words, so that repeated
+     * inputs and repeated pairs of words are not searched for again. Each cache
+     * keeps its most recently used entries within its bound. Poems are the same
+     * with or without the caches, which are safe to use from many threads.
+     * Calling this again replaces both caches, and their statistics.
+     * 
+     * @param maxPoemChars most characters of inputs and poems, together, to
+     *        remember; 0 for no poem cache
+     * @param maxBridges most pairs of words to remember a bridge for; 0 for no
+     *        bridge cache
+     */
+    public void cache(long maxPoemChars, long maxBridges) {
+        poems = maxPoemChars <= 0 ? null
+                : new LruCache<>(maxPoemChars, (input, poem) -> Math.max(1, input.length() + poem.length()));
+        bridgeCache = maxBridges <= 0 ? null
+                : new LruCache<>(maxBridges, (pair, bridge) -> 1);
+    }
+    
+    /**
+     * Choose how far bridges may reach. By default a bridge is the single word
+     * b maximizing the weight of w1 -> b -> w2, as described above. With
+     * longer bridges, a bridge from w1 to w2 is instead the words strictly
+     * between them on the most probable path from w1 to w2 of 2 to maxHops
+     * edges, where each step u -> v is taken with probability weight(u, v)
+     * divided by the total weight of the edges out of u. The path may repeat
+     * words. Precomputed bridges are not used for longer bridges, and longer
+     * bridge searches are not told to the listener.
+     * 
+     * <p>The first longer bridge search after the corpus changes copies the
+     * graph into a compact form for searching, which for a poet made by
+     * {@link #openMapped(File)} means reading the whole graph into memory.
+     * 
+     * @param maxHops most edges a bridge may span, at least 2; 2 for the
+     *        default single bridge words
+     * @throws IllegalArgumentException if maxHops < 2
+     */
+    public void bridgeHops(int maxHops) {
+        if (maxHops < 2) throw new IllegalArgumentException("bridges span at least 2 edges: " + maxHops);
+        lock.writeLock().lock();
+        try {
+            if (maxHops == bridgeHops) return;
+            bridgeHops = maxHops;
+            if (maxHops == 2) paths = null;
+            version++;
+            LruCache<String, String> cache = poems;
+            if (cache != null) cache.clear();
+            cache = bridgeCache;
+            if (cache != null) cache.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Tell a listener about the work this poet does from now on: the bridge
+     * searches it makes and the text it takes in. A poet has at most one
+     * listener; while it has none, it does no work to measure itself.
+     * Text read by a constructor is never told, as it is read before there is
+     * a listener; to measure all of it, start from {@link #instrumented
+     * instrumented()} and add the corpus with addCorpus().
+     * 
+     * @param listener thread-safe listener to tell, replacing any previous
+     *        listener; null to stop telling any
+     * @see PoetMetrics
+     */
+    public void listen(PoetListener listener) {
+        this.listener = listener;
+    }
+    
+    /**
+     * @return statistics of the poem cache, or CacheStats.NONE if there is none
+     * @see #cache(long, long)
+     */
+    public CacheStats poemCacheStats() {
+        LruCache<String, String> cache = poems;
+        return cache == null ? CacheStats.NONE : cache.stats();
+    }
+    
+    /**
+     * @return statistics of the bridge cache, or CacheStats.NONE if there is none
+     * @see #cache(long, long)
+     */
+    public CacheStats bridgeCacheStats() {
+        LruCache<String, String> cache = bridgeCache;
+        return cache == null ? CacheStats.NONE : cache.stats();
+    }
     
     /**
      * Generate a poem.
@@ -80,9 +485,216 @@ public class GraphPoet {
      * @return poem (as described above)
      */
     public String poem(String input) {
-        throw new RuntimeException("not implemented");
+        lock.readLock().lock();
+        try {
+            LruCache<String, String> cache = poems;
+            if (cache == null) return compose(input, this::bridge);
+            String poem = cache.get(input);
+            if (poem == null) {
+                long generation = cache.generation();
+                poem = compose(input, this::bridge);
+                cache.put(input, poem, generation);
+            }
+            return poem;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Generate a poem from a stream of text, writing it as it is generated.
+     * Only one word of input is held at a time, so neither the input nor the
+     * poem needs to fit in memory. Neither in nor out is closed or flushed.
+     * The lock is held only while each bridge is found, never while reading
+     * in or writing out, so a slow stream holds up neither addCorpus() nor
+     * other poems. Each bridge comes from a consistent graph; bridges found
+     * after text is added to the corpus use the added text.
+     * 
+     * @param in text from which to create the poem
+     * @param out where to write the poem (as described above); the same as
+     *        poem() returns for the whole text of in, if the corpus does not
+     *        change meanwhile
+     * @throws IOException if in cannot be read or out cannot be written
+     */
+    public void poem(Reader in, Appendable out) throws IOException {
+        WordReader words = new WordReader(in, false);
+        String previous = null;
+        for (String word = words.next(); word != null; word = words.next()) {
+            String lower = WordReader.toLowerCase(word);
+            if (previous != null) {
+                String b;
+                lock.readLock().lock();
+                try {
+                    b = bridge(previous, lower);
+                } finally {
+                    lock.readLock().unlock();
+                }
+                if (b != null) out.append(' ').append(b);
+                out.append(' ');
+            }
+            out.append(word);
+            previous = lower;
+        }
+    }
+    
+    /**
+     * Generate a poem for each of a batch of inputs, in parallel. The bridges
+     * of the first 65536 pairs of words searched for in the batch are
+     * remembered for the rest of the batch, instead of in the bridge cache,
+     * so a pair that occurs often is usually searched for only once. The
+     * poems are composed by tasks forked on pool, each holding the read lock
+     * for one poem at a time, so the corpus may be added to during the batch.
+     * 
+     * @param inputs strings from which to create poems
+     * @param pool threads to generate the poems with
+     * @return poem (as described above) for each input, in the order of inputs;
+     *         each the same as calling poem() on its input at some point
+     *         during the call
+     */
+    public List<String> poems(Collection<String> inputs, ForkJoinPool pool) {
+        String[] batch = inputs.toArray(new String[0]);
+        String[] poems = new String[batch.length];
+        long batchVersion;
+        lock.readLock().lock();
+        try {
+            batchVersion = version;
+        } finally {
+            lock.readLock().unlock();
+        }
+        // words are never empty, so "" can stand for no bridge; bridges are
+        // searched for outside the map, so that workers never wait on each
+        // other's searches, and a pair may now and then be searched for twice
+        Map<String, String> found = new ConcurrentHashMap<>();
+        BinaryOperator<String> bridge = (w1, w2) -> {
+            // called holding the read lock; the bridges found are stale once
+            // the corpus or bridgeHops has changed
+            if (version != batchVersion) return bridge(w1, w2);
+            String pair = w1 + ' ' + w2;
+            String b = found.get(pair);
+            if (b == null) {
+                String best = bridge(w1, w2, null);
+                b = best == null ? "" : best;
+                if (found.size() < MAX_BATCH_BRIDGES) found.putIfAbsent(pair, b);
+            }
+            return b.isEmpty() ? null : b;
+        };
+        UnaryOperator<String> poem = input -> {
+            lock.readLock().lock();
+            try {
+                return compose(input, bridge);
+            } finally {
+                lock.readLock().unlock();
+            }
+        };
+        pool.invoke(new ComposeRange(batch, poems, poem, 0, batch.length));
+        return List.of(poems);
     }
     
-    // TODO toString()
+    /**
+     * Composes the poems of inputs [from, to) of a batch, splitting the range
+     * in half until few inputs are left. Tasks are never serialized.
+     */
+    @SuppressWarnings("serial")
+    private static class ComposeRange extends RecursiveAction {
+        
+        private static final int INPUTS_PER_TASK = 16;
+        
+        private final String[] batch;
+        private final String[] poems;
+        private final UnaryOperator<String> poem;
+        private final int from;
+        private final int to;
+        
+        ComposeRange(String[] batch, String[] poems, UnaryOperator<String> poem, int from, int to) {
+            this.batch = batch;
+            this.poems = poems;
+            this.poem = poem;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from > INPUTS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ComposeRange(batch, poems, poem, from, middle),
+                        new ComposeRange(batch, poems, poem, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                poems[i] = poem.apply(batch[i]);
+            }
+        }
+    }
+    
+    // the poem for input, without the poem cache, taking bridges from bridge
+    private static String compose(String input, BinaryOperator<String> bridge) {
+        StringBuilder poem = new StringBuilder();
+        String previous = null;
+        for (String word : DELIMITERS.split(input)) {
+            if (word.isEmpty()) continue; // leading delimiters
+            String lower = WordReader.toLowerCase(word);
+            if (previous != null) {
+                String b = bridge.apply(previous, lower);
+                if (b != null) poem.append(' ').append(b);
+                poem.append(' ');
+            }
+            poem.append(word);
+            previous = lower;
+        }
+        return poem.toString();
+    }
+    
+    // the bridge word b maximizing the weight of w1 -> b -> w2, or null if there
+    // is none; ties go to the alphabetically first word, so poems are repeatable.
+    // With longer bridges, the words of the longer bridge instead.
+    private String bridge(String w1, String w2) {
+        return bridge(w1, w2, bridgeCache);
+    }
+    
+    // as bridge(w1, w2), with cache instead of the bridge cache; null for none
+    private String bridge(String w1, String w2, LruCache<String, String> cache) {
+        int maxHops = bridgeHops;
+        BridgeIndex index = bridges;
+        if (maxHops == 2 && index != null && index.covers(w1)) {
+            return index.get(w1, w2);
+        }
+        if (cache == null) return find(w1, w2, maxHops);
+        
+        // words have no spaces, so the pair is unambiguous; words are never
+        // empty, so "" can stand for no bridge
+        String pair = w1 + ' ' + w2;
+        String bridge = cache.get(pair);
+        if (bridge == null) {
+            long generation = cache.generation();
+            String found = find(w1, w2, maxHops);
+            bridge = found == null ? "" : found;
+            cache.put(pair, bridge, generation);
+        }
+        return bridge.isEmpty() ? null : bridge;
+    }
+    
+    // the bridge from w1 to w2 spanning at most maxHops edges, without the
+    // caches; null if there is none
+    private String find(String w1, String w2, int maxHops) {
+        if (maxHops == 2) return search.bridge(w1, w2, listener);
+        PathFinder<String> finder = paths;
+        if (finder == null) {
+            finder = PathFinder.of(graph);
+            paths = finder;
+        }
+        List<String> path = finder.bestPath(w1, w2, 2, maxHops);
+        return path.isEmpty() ? null : String.join(" ", path.subList(1, path.size() - 1));
+    }
+    
+    @Override
+    public String toString() {
+        lock.readLock().lock();
+        try {
+            return "GraphPoet" + graph;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
     
 }
@@ -0,0 +1,151 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * A mutable, thread-safe cache that keeps the most recently used entries whose
+ * total weight fits a bound. Keys and values must not be null.
+ * 
+ * <p>A cache has a generation, which changes whenever it is cleared. Callers
+ * that compute a value from state that may change under them read the
+ * generation first and pass it to put(), so a value computed before a clear()
+ * is never stored after it.
+ * 
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+class LruCache<K, V> {
+    
+    private final long maxWeight;
+    private final ToLongBiFunction<? super K, ? super V> weigher;
+    private final Map<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight = 0;
+    private long generation = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    
+    // Abstraction function:
+    //   AF(entries, generation, ...) = a cache holding entries, from least to
+    //     most recently used, in its generation'th generation; hits, misses
+    //     and evictions count what it has done since it was created
+    // Representation invariant:
+    //   weight is the sum of the weights of entries, and 0 <= weight <= maxWeight
+    //   every entry weighs at least 1
+    // Safety from rep exposure:
+    //   all fields are private and no mutable field is returned
+    // Thread safety argument:
+    //   every access to the mutable fields is synchronized on this
+    
+    /**
+     * Make an empty cache.
+     * 
+     * @param maxWeight most total weight the cache may hold; must be positive
+     * @param weigher weight of an entry, which must be positive and the same
+     *        every time it is asked
+     */
+    LruCache(long maxWeight, ToLongBiFunction<? super K, ? super V> weigher) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("cache bound must be positive: " + maxWeight);
+        }
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        checkRep();
+    }
+    
+    private void checkRep() {
+        assert 0 <= weight && weight <= maxWeight;
+        assert weight >= entries.size();
+    }
+    
+    /**
+     * Look up a key, and mark its entry as the most recently used.
+     * 
+     * @param key key to look up
+     * @return the value stored for key, or null if there is none
+     */
+    synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return value;
+    }
+    
+    /**
+     * @return the current generation of this cache
+     */
+    synchronized long generation() {
+        return generation;
+    }
+    
+    /**
+     * Store a value, as the most recently used entry, evicting least recently
+     * used entries until the cache is within its bound. Does nothing if the
+     * cache has been cleared since generation, or if the entry alone weighs
+     * more than the bound.
+     * 
+     * @param key key to store
+     * @param value value to store for key
+     * @param generation generation of the cache when value was computed
+     */
+    synchronized void put(K key, V value, long generation) {
+        if (generation != this.generation) return;
+        long added = weigher.applyAsLong(key, value);
+        assert added > 0;
+        if (added > maxWeight) return;
+        V previous = entries.put(key, value);
+        if (previous != null) weight -= weigher.applyAsLong(key, previous);
+        weight += added;
+        Iterator<Map.Entry<K, V>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight) {
+            Map.Entry<K, V> e = eldest.next();
+            weight -= weigher.applyAsLong(e.getKey(), e.getValue());
+            eldest.remove();
+            evictions++;
+        }
+        checkRep();
+    }
+    
+    /**
+     * Remove the entry for a key, if there is one. The generation is kept.
+     * 
+     * @param key key to remove
+     */
+    synchronized void remove(K key) {
+        V value = entries.remove(key);
+        if (value != null) weight -= weigher.applyAsLong(key, value);
+        checkRep();
+    }
+    
+    /**
+     * Remove every entry and start a new generation. Statistics are kept.
+     */
+    synchronized void clear() {
+        entries.clear();
+        weight = 0;
+        generation++;
+        checkRep();
+    }
+    
+    /**
+     * @return statistics of this cache so far
+     */
+    synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, entries.size());
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return "LruCache(" + weight + "/" + maxWeight + ": " + stats() + ")";
+    }
+    
+}
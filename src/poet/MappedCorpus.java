@@ -0,0 +1,237 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import graph.GraphBuilder;
+
+/**
+ * Counts the word adjacencies of a UTF-8 corpus file in parallel.
+ *
+ * <p>The file is memory-mapped and cut into chunks that end at word
+ * delimiters. Delimiters are ASCII, and bytes of multi-byte UTF-8 characters
+ * never are, so cutting the bytes there never splits a character. Each chunk
+ * is tokenized on a fork-join pool into its own partial counts, and adjacent
+ * partial counts are merged pairwise, adding the one adjacency that spans
+ * their boundary, so every adjacency in the corpus is counted exactly once.
+ *
+ * <p>Words are split and lower-cased exactly as {@link WordReader} does.
+ */
+class MappedCorpus {
+
+    /** Smallest chunk worth tokenizing on its own. */
+    static final long MIN_CHUNK = 1 << 20;
+    /** Largest chunk, which must fit in one mapping. */
+    static final long MAX_CHUNK = 1 << 28;
+
+    private MappedCorpus() {
+        throw new AssertionError("no instances");
+    }
+
+    /**
+     * Count the adjacencies of a corpus.
+     *
+     * @param corpus UTF-8 text file
+     * @param pool pool to tokenize chunks on
+     * @return a builder whose vertices are the distinct lower-cased words of
+     *         the corpus, with an edge w1 -> w2 whose weight is the number of
+     *         times w1 is followed by w2
+     * @throws IOException if the corpus cannot be read
+     */
+    static GraphBuilder<String> count(Path corpus, ForkJoinPool pool) throws IOException {
+        return count(corpus, pool, MIN_CHUNK);
+    }
+
+    /**
+     * Count the adjacencies of a corpus, as {@link #count(Path, ForkJoinPool)}
+     * does, with a given smallest chunk size.
+     *
+     * @param corpus UTF-8 text file
+     * @param pool pool to tokenize chunks on
+     * @param minChunk smallest number of bytes worth tokenizing as one chunk, positive
+     * @return a builder holding the counts
+     * @throws IOException if the corpus cannot be read
+     */
+    static GraphBuilder<String> count(Path corpus, ForkJoinPool pool, long minChunk) throws IOException {
+        try (FileChannel channel = FileChannel.open(corpus)) {
+            long[] bounds = chunkBounds(channel, pool.getParallelism(), minChunk);
+            try {
+                return pool.invoke(new CountChunks(channel, bounds, 0, bounds.length - 1)).counts;
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    // the start of each chunk, then the end of the file; every chunk but the
+    // first starts with a delimiter
+    private static long[] chunkBounds(FileChannel channel, int parallelism, long minChunk) throws IOException {
+        long size = channel.size();
+        long chunks = Math.max(1, Math.min(size / minChunk, 4L * parallelism));
+        long length = Math.min(MAX_CHUNK, Math.max(1, (size + chunks - 1) / chunks));
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        for (long next = length; next < size; next += length) {
+            next = nextDelimiter(channel, next, probe);
+            if (next >= size) break;
+            if (next - bounds.get(bounds.size() - 1) > Integer.MAX_VALUE) {
+                throw new IOException("word too long to map");
+            }
+            bounds.add(next);
+        }
+        if (size - bounds.get(bounds.size() - 1) > Integer.MAX_VALUE) {
+            throw new IOException("word too long to map");
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    // position of the first delimiter at or after position, or the file size
+    private static long nextDelimiter(FileChannel channel, long position, ByteBuffer probe) throws IOException {
+        while (true) {
+            probe.clear();
+            int n = channel.read(probe, position);
+            if (n < 0) return channel.size();
+            for (int i = 0; i < n; i++) {
+                if (WordReader.isDelimiter((char) probe.get(i))) return position + i;
+            }
+            position += n;
+        }
+    }
+
+    /**
+     * The counts of one run of chunks.
+     */
+    private static class Counts {
+        final String first; // first word of the run, or null if it has no words
+        final String last;  // last word of the run, or null if it has no words
+        final GraphBuilder<String> counts;
+
+        Counts(String first, String last, GraphBuilder<String> counts) {
+            this.first = first;
+            this.last = last;
+            this.counts = counts;
+        }
+
+        // the counts of this run followed by the next one
+        Counts then(Counts next) {
+            if (first == null) return next;
+            if (next.first == null) return this;
+            counts.addAll(next.counts);
+            counts.add(last, next.first, 1);
+            return new Counts(first, next.last, counts);
+        }
+    }
+
+    /**
+     * Counts chunks [from, to) of a corpus, splitting the range in half until
+     * one chunk is left. Tasks are never serialized.
+     */
+    @SuppressWarnings("serial")
+    private static class CountChunks extends RecursiveTask<Counts> {
+
+        private final FileChannel channel;
+        private final long[] bounds;
+        private final int from;
+        private final int to;
+
+        CountChunks(FileChannel channel, long[] bounds, int from, int to) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Counts compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                CountChunks right = new CountChunks(channel, bounds, middle, to);
+                right.fork();
+                Counts left = new CountChunks(channel, bounds, from, middle).compute();
+                return left.then(right.join());
+            }
+            try {
+                long start = bounds[from];
+                long end = bounds[to];
+                return tokenize(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // count the adjacencies of one chunk
+    private static Counts tokenize(MappedByteBuffer bytes) {
+        GraphBuilder<String> counts = new GraphBuilder<>();
+        WordTable table = new WordTable();
+        byte[] raw = new byte[64];
+        char[] word = new char[64];
+        String first = null;
+        String previous = null;
+
+        int limit = bytes.limit();
+        int i = 0;
+        while (i < limit) {
+            // skip delimiters, then collect one word
+            while (i < limit && WordReader.isDelimiter((char) bytes.get(i))) i++;
+            if (i == limit) break;
+            int length = 0;
+            boolean ascii = true;
+            for (; i < limit; i++) {
+                byte b = bytes.get(i);
+                if (WordReader.isDelimiter((char) b)) break;
+                if (length == raw.length) raw = Arrays.copyOf(raw, 2 * length);
+                raw[length++] = b;
+                ascii &= b >= 0;
+            }
+
+            String current;
+            if (ascii) {
+                if (word.length < length) word = new char[raw.length];
+                int hash = 0;
+                for (int j = 0; j < length; j++) {
+                    word[j] = Character.toLowerCase((char) raw[j]);
+                    hash = WordTable.hash(hash, word[j]);
+                }
+                current = table.intern(word, length, hash);
+            } else {
+                char[] decoded = WordReader.toLowerCase(
+                        new String(raw, 0, length, StandardCharsets.UTF_8)).toCharArray();
+                int hash = 0;
+                for (char c : decoded) {
+                    hash = WordTable.hash(hash, c);
+                }
+                current = table.intern(decoded, decoded.length, hash);
+            }
+
+            if (previous == null) {
+                first = current;
+                counts.add(current);
+            } else {
+                counts.add(previous, current, 1);
+            }
+            previous = current;
+        }
+        return new Counts(first, previous, counts);
+    }
+}
@@ -0,0 +1,39 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+/**
+ * Told about the work a {@link GraphPoet} does, once it is
+ * {@link GraphPoet#listen(PoetListener) listening}. A listener is called from
+ * every thread generating poems, so it must be thread-safe, and it is called
+ * on the hot path, so it should be quick. Both methods do nothing by default.
+ */
+public interface PoetListener {
+
+    /**
+     * Called after the poet searches its graph for a bridge word. Bridges found
+     * in the poet's precomputed bridges or bridge cache are not searched for.
+     *
+     * @param w1 first word of the pair
+     * @param w2 second word of the pair
+     * @param outDegree number of words following w1 in the corpus
+     * @param inDegree number of words preceding w2 in the corpus
+     * @param scanned number of neighbours of w1 or w2 the search looked at
+     * @param nanos time the search took, in nanoseconds
+     */
+    public default void bridgeSearched(String w1, String w2, int outDegree, int inDegree, int scanned, long nanos) {
+    }
+
+    /**
+     * Called after text is added to the poet's corpus by addCorpus().
+     *
+     * @param words number of words in the text
+     * @param edges number of edges of the affinity graph the text added or
+     *        made heavier
+     * @param nanos time taken to count the text and update the poet, in
+     *        nanoseconds
+     */
+    public default void corpusAdded(long words, long edges, long nanos) {
+    }
+}
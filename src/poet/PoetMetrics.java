@@ -0,0 +1,169 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * A thread-safe PoetListener that counts what one poet does: how many bridge
+ * searches it makes and how many neighbours they scan, how fast it takes in
+ * corpus text, and how well its caches do. The counts help tell whether slow
+ * poems come from hub words with many neighbours, or from elsewhere.
+ *
+ * <p>The counts can be read directly, or through JMX once the metrics are
+ * {@link #register(String) registered}.
+ */
+public final class PoetMetrics implements PoetListener, PoetMetricsMBean {
+
+    private final GraphPoet poet;
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder searchNanos = new LongAdder();
+    private final LongAdder scanned = new LongAdder();
+    private final LongAccumulator maxScanned = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator maxDegree = new LongAccumulator(Math::max, 0);
+    private final LongAdder words = new LongAdder();
+    private final LongAdder edges = new LongAdder();
+    private final LongAdder ingestNanos = new LongAdder();
+
+    // Abstraction function:
+    //   AF(poet, ...) = the work done by poet while these metrics were listening
+    //     and since the last reset(): searches bridge searches, taking
+    //     searchNanos and scanning scanned neighbours in all, at most maxScanned
+    //     at once, from words of degree at most maxDegree; and words words
+    //     adding edges edges in ingestNanos
+    // Representation invariant:
+    //   poet is not null, and every count is nonnegative
+    // Safety from rep exposure:
+    //   all fields are private and final, and only numbers are returned
+    // Thread safety argument:
+    //   the counts are thread-safe adders and accumulators; poet is thread-safe
+
+    /**
+     * Make metrics for a poet, and start them listening to it, in place of
+     * any listener it had.
+     *
+     * @param poet poet to measure
+     * @return metrics of poet, with every count zero
+     */
+    public static PoetMetrics attach(GraphPoet poet) {
+        PoetMetrics metrics = new PoetMetrics(poet);
+        poet.listen(metrics);
+        return metrics;
+    }
+
+    private PoetMetrics(GraphPoet poet) {
+        this.poet = poet;
+        checkRep();
+    }
+
+    private void checkRep() {
+        assert poet != null;
+    }
+
+    @Override
+    public void bridgeSearched(String w1, String w2, int outDegree, int inDegree, int scanned, long nanos) {
+        searches.increment();
+        searchNanos.add(nanos);
+        this.scanned.add(scanned);
+        maxScanned.accumulate(scanned);
+        maxDegree.accumulate(Math.max(outDegree, inDegree));
+    }
+
+    @Override
+    public void corpusAdded(long words, long edges, long nanos) {
+        this.words.add(words);
+        this.edges.add(edges);
+        ingestNanos.add(nanos);
+    }
+
+    @Override
+    public long getBridgeSearches() {
+        return searches.sum();
+    }
+
+    @Override
+    public long getBridgeSearchNanos() {
+        return searchNanos.sum();
+    }
+
+    @Override
+    public long getNeighboursScanned() {
+        return scanned.sum();
+    }
+
+    @Override
+    public long getMaxNeighboursScanned() {
+        return maxScanned.get();
+    }
+
+    @Override
+    public long getMaxDegree() {
+        return maxDegree.get();
+    }
+
+    @Override
+    public long getWordsAdded() {
+        return words.sum();
+    }
+
+    @Override
+    public double getWordsPerSecond() {
+        long nanos = ingestNanos.sum();
+        return nanos == 0 ? 0 : words.sum() * 1e9 / nanos;
+    }
+
+    @Override
+    public double getEdgesPerSecond() {
+        long nanos = ingestNanos.sum();
+        return nanos == 0 ? 0 : edges.sum() * 1e9 / nanos;
+    }
+
+    @Override
+    public double getPoemCacheHitRate() {
+        return poet.poemCacheStats().hitRate();
+    }
+
+    @Override
+    public double getBridgeCacheHitRate() {
+        return poet.bridgeCacheStats().hitRate();
+    }
+
+    @Override
+    public void reset() {
+        searches.reset();
+        searchNanos.reset();
+        scanned.reset();
+        maxScanned.reset();
+        maxDegree.reset();
+        words.reset();
+        edges.reset();
+        ingestNanos.reset();
+    }
+
+    /**
+     * Make these metrics readable through JMX, in the platform MBean server.
+     *
+     * @param name name distinguishing these metrics from other registered
+     *        PoetMetrics, e.g. the name of the corpus
+     * @return the name registered: type PoetMetrics in domain poet, with the
+     *         given name, quoted
+     * @throws JMException if the name is malformed or already registered
+     */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("poet:type=PoetMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    @Override
+    public String toString() {
+        return "PoetMetrics(" + getBridgeSearches() + " searches scanning " + getNeighboursScanned()
+                + " neighbours, " + getWordsAdded() + " words added)";
+    }
+}
@@ -0,0 +1,46 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+/**
+ * The JMX management interface of {@link PoetMetrics}.
+ */
+public interface PoetMetricsMBean {
+
+    /** @return number of bridge searches */
+    public long getBridgeSearches();
+
+    /** @return nanoseconds spent in bridge searches */
+    public long getBridgeSearchNanos();
+
+    /** @return neighbours looked at by all bridge searches */
+    public long getNeighboursScanned();
+
+    /** @return most neighbours looked at by one bridge search */
+    public long getMaxNeighboursScanned();
+
+    /** @return largest out- or in-degree of a word a bridge search started from */
+    public long getMaxDegree();
+
+    /** @return number of words added by addCorpus() */
+    public long getWordsAdded();
+
+    /** @return words added per second spent in addCorpus(), or 0 if none */
+    public double getWordsPerSecond();
+
+    /** @return edges added or made heavier per second spent in addCorpus(), or 0 if none */
+    public double getEdgesPerSecond();
+
+    /** @return hit rate of the poet's poem cache, or 0 if it has none */
+    public double getPoemCacheHitRate();
+
+    /** @return hit rate of the poet's bridge cache, or 0 if it has none */
+    public double getBridgeCacheHitRate();
+
+    /**
+     * Set every count back to zero. Cache statistics are kept by the caches,
+     * and are not reset.
+     */
+    public void reset();
+}
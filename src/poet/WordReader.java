@@ -0,0 +1,146 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * A streaming tokenizer that splits text into the lower-cased words GraphPoet
+ * works with.
+ *
+ * <p>Words are non-empty strings of characters other than spaces and newlines
+ * (a carriage return counts as part of a newline). They are lower-cased one
+ * character at a time as they are read, so the only string made for a word is
+ * the word itself, and a word that has been read before is returned as the
+ * same String instance instead of a new one. The tokenizer reads through a
+ * fixed-size buffer, so apart from those distinct words its memory use does
+ * not depend on the length of the text.
+ */
+class WordReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+
+    private char[] word = new char[64];
+
+    private final WordTable words;
+
+    // Abstraction function:
+    //   AF(in, buffer, position, limit) = the sequence of words in the text
+    //     buffer[position..limit) followed by the rest of in
+    //   word is scratch space, and words (if not null) is a cache of the
+    //     Strings returned so far.
+    //
+    // Representation invariant:
+    //   - 0 <= position <= limit <= buffer.length
+    //
+    // Safety from rep exposure:
+    //   - all fields are private; only immutable Strings are returned
+
+    /**
+     * Make a tokenizer over a stream of text. The tokenizer does its own
+     * buffering, so in need not be buffered.
+     *
+     * @param in text to split into words
+     */
+    WordReader(Reader in) {
+        this.in = in;
+        this.words = new WordTable();
+    }
+
+    /**
+     * Make a tokenizer over a stream of text that returns words as they appear
+     * in it, neither lower-cased nor cached, so that its memory use does not
+     * depend on the text at all.
+     *
+     * @param in text to split into words
+     * @param lowerCase true to lower-case and cache words, like WordReader(in)
+     */
+    WordReader(Reader in, boolean lowerCase) {
+        this.in = in;
+        this.words = lowerCase ? new WordTable() : null;
+    }
+
+    private void checkRep() {
+        assert 0 <= position && position <= limit && limit <= buffer.length;
+    }
+
+    /**
+     * @param c a character
+     * @return true iff c separates words
+     */
+    static boolean isDelimiter(char c) {
+        return c == ' ' || c == '\n' || c == '\r';
+    }
+
+    /**
+     * Lower-case a word the same way the tokenizer does.
+     *
+     * @param word a word
+     * @return word with each character lower-cased
+     */
+    static String toLowerCase(String word) {
+        char[] chars = word.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Read the next word.
+     *
+     * @return the next word, lower-cased unless this tokenizer keeps case, or
+     *         null if there are no more words
+     * @throws IOException if the text cannot be read
+     */
+    String next() throws IOException {
+        // skip delimiters
+        while (true) {
+            if (position == limit && !fill()) return null;
+            if (!isDelimiter(buffer[position])) break;
+            position++;
+        }
+
+        int length = 0;
+        int hash = 0;
+        while (position < limit || fill()) {
+            char c = buffer[position];
+            if (isDelimiter(c)) break;
+            if (words != null) c = Character.toLowerCase(c);
+            if (length == word.length) {
+                word = Arrays.copyOf(word, 2 * length);
+            }
+            word[length++] = c;
+            hash = WordTable.hash(hash, c);
+            position++;
+        }
+        String result = words == null ? new String(word, 0, length) : words.intern(word, length, hash);
+        checkRep();
+        return result;
+    }
+
+    // refill the buffer; returns false at the end of the text
+    private boolean fill() throws IOException {
+        int n;
+        do {
+            n = in.read(buffer, 0, buffer.length);
+        } while (n == 0);
+        position = 0;
+        limit = Math.max(n, 0);
+        return n > 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,90 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+/**
+ * A mutable set of words that turns the characters of a word, held in a
+ * scratch array, into a String without allocating when the word has been
+ * seen before.
+ */
+class WordTable {
+
+    private String[] words = new String[1024];
+    private int size = 0;
+
+    // Abstraction function:
+    //   AF(words, size) = the set of non-null Strings in words
+    //
+    // Representation invariant:
+    //   - words.length is a power of two, and 2 * size <= words.length
+    //   - size is the number of non-null slots, and no String appears twice
+    //   - each String is at the slot its hash probes to first, or later in the
+    //     same run of non-null slots
+    //
+    // Safety from rep exposure:
+    //   - words is private and never returned; only immutable Strings are
+
+    private void checkRep() {
+        assert Integer.bitCount(words.length) == 1 && 2 * size <= words.length;
+    }
+
+    /**
+     * Compute the hash intern() expects for a word, one character at a time:
+     * start from 0 and fold in each character in order.
+     *
+     * @param hash hash of the characters so far
+     * @param c next character
+     * @return hash of the characters so far followed by c
+     */
+    static int hash(int hash, char c) {
+        return 31 * hash + c; // same as String.hashCode()
+    }
+
+    /**
+     * Get the String with the given characters, adding it if it is new.
+     *
+     * @param chars characters of the word in chars[0..length)
+     * @param length length of the word
+     * @param hash hash of the word, computed by folding hash() over its characters
+     * @return a String equal to chars[0..length), the same instance every time
+     */
+    String intern(char[] chars, int length, int hash) {
+        int mask = words.length - 1;
+        int i = (hash ^ (hash >>> 16)) & mask;
+        for (String s = words[i]; s != null; s = words[i]) {
+            if (matches(s, chars, length)) return s;
+            i = (i + 1) & mask;
+        }
+        String s = new String(chars, 0, length);
+        words[i] = s;
+        if (2 * ++size > words.length) {
+            rehash();
+        }
+        checkRep();
+        return s;
+    }
+
+    private static boolean matches(String s, char[] chars, int length) {
+        if (s.length() != length) return false;
+        for (int j = 0; j < length; j++) {
+            if (s.charAt(j) != chars[j]) return false;
+        }
+        return true;
+    }
+
+    private void rehash() {
+        String[] old = words;
+        words = new String[2 * old.length];
+        int mask = words.length - 1;
+        for (String s : old) {
+            if (s == null) continue;
+            int hash = s.hashCode();
+            int i = (hash ^ (hash >>> 16)) & mask;
+            while (words[i] != null) {
+                i = (i + 1) & mask;
+            }
+            words[i] = s;
+        }
+    }
+}
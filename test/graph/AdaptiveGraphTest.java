@@ -0,0 +1,76 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for AdaptiveGraph.
+ * 
+ * This class runs the GraphInstanceTest tests against AdaptiveGraph, as
+ * well as tests for that particular implementation.
+ * 
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class AdaptiveGraphTest extends GraphInstanceTest {
+
+    @Override public Graph<String> emptyInstance() {
+        return new AdaptiveGraph<>();
+    }
+
+    /*
+     * Testing AdaptiveGraph
+     *
+     * Partition:
+     *  - size: small, past the vertex threshold, past the edge threshold
+     *  - content before the switch: vertices only, vertices and edges, self-loops
+     *  - after the switch: further updates and removals
+     */
+
+    @Test
+    public void testStaysSmall() {
+        AdaptiveGraph<String> g = new AdaptiveGraph<>();
+        g.set("A", "B", 1);
+        g.add("C");
+        assertFalse(g.isHashed());
+        assertEquals(Set.of("A", "B", "C"), g.vertices());
+    }
+
+    @Test
+    public void testSwitchOnVertexCount() {
+        AdaptiveGraph<Integer> g = new AdaptiveGraph<>();
+        for (int i = 0; i <= AdaptiveGraph.SMALL_VERTICES; i++) {
+            assertFalse(g.isHashed());
+            g.add(i);
+        }
+        assertTrue(g.isHashed());
+        assertEquals(AdaptiveGraph.SMALL_VERTICES + 1, g.vertices().size());
+    }
+
+    @Test
+    public void testSwitchOnEdgeCountKeepsContent() {
+        AdaptiveGraph<Integer> g = new AdaptiveGraph<>();
+        final int n = 9; // n * n edges, including self-loops, is past SMALL_EDGES
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                g.set(i, j, 1 + i * n + j);
+            }
+        }
+        assertTrue(g.isHashed());
+        assertEquals(n, g.vertices().size());
+        assertEquals(Integer.valueOf(1 + 2 * n + 3), g.targets(2).get(3));
+        assertEquals(Integer.valueOf(1 + 2 * n + 3), g.sources(3).get(2));
+        assertEquals(Integer.valueOf(1), g.targets(0).get(0));
+
+        assertEquals(1 + 2 * n + 3, g.set(2, 3, 0));
+        assertFalse(g.targets(2).containsKey(3));
+        assertTrue(g.remove(0));
+        assertFalse(g.sources(1).containsKey(0));
+        assertEquals(n - 1, g.targets(1).size());
+    }
+}
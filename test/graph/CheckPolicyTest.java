@@ -0,0 +1,96 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for CheckPolicy.
+ */
+public class CheckPolicyTest {
+
+    // Testing strategy
+    //   factory: off, sampled(1), sampled(n > 1), sampled(n <= 0), incremental, full, default
+    //   checksAll / checksTouched: mutation count a multiple of n, not a multiple
+    //   graphs built with each policy still behave like graphs
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    @Test
+    public void testOff() {
+        CheckPolicy p = CheckPolicy.off();
+        for (long i = 1; i <= 10; i++) {
+            assertFalse(p.checksAll(i));
+            assertFalse(p.checksTouched(i));
+        }
+    }
+
+    @Test
+    public void testFull() {
+        CheckPolicy p = CheckPolicy.full();
+        for (long i = 1; i <= 10; i++) {
+            assertTrue(p.checksAll(i));
+            assertFalse(p.checksTouched(i));
+        }
+        assertEquals("full", CheckPolicy.sampled(1).toString());
+    }
+
+    @Test
+    public void testSampled() {
+        CheckPolicy p = CheckPolicy.sampled(4);
+        assertFalse(p.checksAll(1));
+        assertFalse(p.checksAll(3));
+        assertTrue(p.checksAll(4));
+        assertTrue(p.checksAll(8));
+        assertFalse(p.checksTouched(5));
+        assertEquals("sampled(4)", p.toString());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testSampledNonPositive() {
+        CheckPolicy.sampled(0);
+    }
+
+    @Test
+    public void testIncremental() {
+        CheckPolicy p = CheckPolicy.incremental();
+        for (long i = 1; i <= 10; i++) {
+            assertFalse(p.checksAll(i));
+            assertTrue(p.checksTouched(i));
+        }
+    }
+
+    @Test
+    public void testDefaultIsFullUnderAssertions() {
+        assertEquals("full", CheckPolicy.defaultPolicy().toString());
+    }
+
+    @Test
+    public void testGraphsUnderEveryPolicy() {
+        CheckPolicy[] policies = {
+            CheckPolicy.off(), CheckPolicy.sampled(3), CheckPolicy.incremental(), CheckPolicy.full()
+        };
+        for (CheckPolicy p : policies) {
+            for (Graph<String> g : List.<Graph<String>>of(new ConcreteEdgesGraph(p), new ConcreteVerticesGraph(p))) {
+                g.set("A", "B", 1);
+                g.set("B", "C", 2);
+                g.set("C", "A", 3);
+                g.set("A", "B", 4);
+                g.remove("C");
+                assertEquals(p.toString(), Set.of("A", "B"), g.vertices());
+                assertEquals(p.toString(), Map.of("B", 4), g.targets("A"));
+                assertTrue(p.toString(), g.sources("A").isEmpty());
+            }
+        }
+    }
+}
@@ -81,6 +81,7 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
      * - getName()
      * - setEdge() for adding, updating, and removing edges
      * - removeEdge()
+     * - incoming edges: added, updated, removed, source vertex removed
      * - getTargets() defensive copy / immutability
      * - toString()
      */
@@ -125,6 +126,22 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
         assertFalse(targets.containsKey("Y"));
     }
 
+    // incoming edges are recorded by the target Vertex, so observe them
+    // through the graph
+    @Test
+    public void testVertexSourcesTrackIncomingEdges() {
+        Graph<String> g = emptyInstance();
+        assertEquals(0, g.set("Y", "X", 4));
+        assertEquals(4, g.set("Y", "X", 6));
+        g.set("Z", "X", 1);
+        assertEquals(Map.of("Y", 6, "Z", 1), g.sources("X"));
+        assertTrue(g.targets("X").isEmpty());
+        assertEquals(6, g.set("Y", "X", 0));
+        assertEquals(Map.of("Z", 1), g.sources("X"));
+        assertTrue(g.remove("Z"));
+        assertTrue(g.sources("X").isEmpty());
+    }
+
     @Test
     public void testVertexGetTargetsDefensiveCopy() {
         Vertex v = new Vertex("X");
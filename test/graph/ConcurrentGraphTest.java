@@ -0,0 +1,164 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+/**
+ * Tests for ConcurrentGraph.
+ * 
+ * This class runs the GraphInstanceTest tests against ConcurrentGraph, as
+ * well as tests for that particular implementation.
+ * 
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class ConcurrentGraphTest extends GraphInstanceTest {
+
+    private static final int THREADS = 8;
+
+    @Override public Graph<String> emptyInstance() {
+        return new ConcurrentGraph<>();
+    }
+
+    /*
+     * Testing ConcurrentGraph
+     *
+     * Partition:
+     *  - concurrent set() on the same edge: previous weights form one chain
+     *  - concurrent set() on disjoint edges with shared targets, with readers
+     *  - concurrent set() and remove()
+     *  - concurrent increment() on the same edge: no update is lost
+     */
+
+    // run body(i) on THREADS threads at once, and rethrow the first failure
+    private static void inParallel(ThreadBody body) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < THREADS; i++) {
+            final int id = i;
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                    body.run(id);
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+        if (!failures.isEmpty()) {
+            throw new AssertionError(failures.get(0));
+        }
+    }
+
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+
+    @Test
+    public void testSetSameEdgeReturnsExactPrevious() throws InterruptedException {
+        Graph<String> g = new ConcurrentGraph<>(CheckPolicy.incremental());
+        final int perThread = 2000;
+        int[][] previous = new int[THREADS][perThread];
+        inParallel(id -> {
+            for (int k = 0; k < perThread; k++) {
+                previous[id][k] = g.set("A", "B", 1 + id * perThread + k);
+            }
+        });
+
+        // every write but the last is seen as previous by exactly one other write
+        Map<Integer, Integer> seen = new HashMap<>();
+        for (int[] row : previous) {
+            for (int w : row) {
+                seen.merge(w, 1, Integer::sum);
+            }
+        }
+        int last = g.targets("A").get("B");
+        assertEquals(Integer.valueOf(1), seen.get(0));
+        assertFalse(seen.containsKey(last));
+        assertEquals(THREADS * perThread, seen.size());
+        for (int count : seen.values()) {
+            assertEquals(1, count);
+        }
+        assertEquals(Map.of("A", last), g.sources("B"));
+    }
+
+    @Test
+    public void testDisjointWritersWithReaders() throws InterruptedException {
+        Graph<Integer> g = new ConcurrentGraph<>(CheckPolicy.off());
+        final int targets = 50;
+        inParallel(id -> {
+            if (id % 2 == 0) {
+                for (int t = 0; t < targets; t++) {
+                    g.set(id, 1000 + t, id + 1);
+                }
+            } else {
+                for (int k = 0; k < 200; k++) {
+                    for (int w : g.sources(1000 + k % targets).values()) {
+                        assertTrue(w > 0);
+                    }
+                    g.vertices();
+                }
+            }
+        });
+        for (int t = 0; t < targets; t++) {
+            Map<Integer, Integer> sources = g.sources(1000 + t);
+            assertEquals(THREADS / 2, sources.size());
+            for (Map.Entry<Integer, Integer> e : sources.entrySet()) {
+                assertEquals(e.getKey() + 1, e.getValue().intValue());
+            }
+        }
+    }
+
+    @Test
+    public void testSetAndRemoveLeaveConsistentRep() throws InterruptedException {
+        Graph<Integer> g = new ConcurrentGraph<>(CheckPolicy.off());
+        inParallel(id -> {
+            for (int k = 0; k < 500; k++) {
+                if (id == 0 && k % 10 == 0) {
+                    g.remove(k % 20);
+                } else {
+                    g.set(k % 20, (k + id) % 20, 1 + id);
+                }
+            }
+        });
+        for (Integer v : g.vertices()) {
+            for (Map.Entry<Integer, Integer> e : g.targets(v).entrySet()) {
+                assertTrue(g.vertices().contains(e.getKey()));
+                assertEquals(e.getValue(), g.sources(e.getKey()).get(v));
+            }
+            for (Map.Entry<Integer, Integer> e : g.sources(v).entrySet()) {
+                assertEquals(e.getValue(), g.targets(e.getKey()).get(v));
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentIncrementLosesNoUpdate() throws InterruptedException {
+        ConcurrentGraph<String> g = new ConcurrentGraph<>(CheckPolicy.off());
+        final int perThread = 5000;
+        inParallel(id -> {
+            for (int k = 0; k < perThread; k++) {
+                g.increment("the", "cat", 1);
+            }
+        });
+        assertEquals(Map.of("cat", THREADS * perThread), g.targets("the"));
+        assertEquals(Map.of("the", THREADS * perThread), g.sources("cat"));
+    }
+}
@@ -0,0 +1,149 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for FrozenGraph, and freeze() on the concrete graphs.
+ */
+public class FrozenGraphTest {
+
+    // Testing strategy
+    //   of(), freeze()
+    //     graph: empty, isolated vertices, self-loops, labels with equal hash
+    //            codes, random with hubs, non-String labels
+    //     source: ConcreteEdgesGraph, ConcreteVerticesGraph, Graph.empty()
+    //     source mutated after freezing
+    //   vertices(), sources(), targets()
+    //     label: vertex, not a vertex, wrong type, null
+    //     same as the source; same vertex order; views cannot be modified
+    //   add(), set(), remove() always throw
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static <L> void assertSameGraph(Graph<L> expected, Graph<L> actual) {
+        assertEquals(expected.vertices(), actual.vertices());
+        assertEquals(actual.vertices(), expected.vertices());
+        for (L v : expected.vertices()) {
+            assertEquals(expected.targets(v), actual.targets(v));
+            assertEquals(expected.sources(v), actual.sources(v));
+            assertEquals(actual.targets(v), expected.targets(v));
+            assertEquals(actual.sources(v), expected.sources(v));
+        }
+    }
+
+    private static void fill(Graph<String> graph) {
+        graph.add("lonely");
+        graph.set("a", "b", 1);
+        graph.set("b", "a", Integer.MAX_VALUE);
+        graph.set("a", "a", 300);
+        // "Aa" and "BB" have the same hash code
+        graph.set("Aa", "BB", 4);
+        graph.set("BB", "Aa", 5);
+        graph.set("BB", "a", 6);
+    }
+
+    @Test
+    public void testEmpty() {
+        FrozenGraph<String> frozen = FrozenGraph.of(Graph.empty());
+        assertEquals(Set.of(), frozen.vertices());
+        assertEquals(Map.of(), frozen.targets("a"));
+        assertEquals(Map.of(), frozen.sources("a"));
+        assertEquals(0, frozen.edgeCount());
+    }
+
+    @Test
+    public void testFreezeConcreteEdgesGraph() {
+        ConcreteEdgesGraph graph = new ConcreteEdgesGraph();
+        fill(graph);
+        FrozenGraph<String> frozen = graph.freeze();
+        assertSameGraph(graph, frozen);
+        assertEquals(new ArrayList<>(graph.vertices()), new ArrayList<>(frozen.vertices()));
+        assertEquals(6, frozen.edgeCount());
+
+        graph.set("a", "b", 9);
+        graph.remove("BB");
+        assertEquals(Integer.valueOf(1), frozen.targets("a").get("b"));
+        assertTrue(frozen.vertices().contains("BB"));
+    }
+
+    @Test
+    public void testFreezeConcreteVerticesGraph() {
+        ConcreteVerticesGraph graph = new ConcreteVerticesGraph();
+        fill(graph);
+        FrozenGraph<String> frozen = graph.freeze();
+        assertSameGraph(graph, frozen);
+        assertEquals(Map.of(), frozen.targets("missing"));
+        assertEquals(Map.of(), frozen.sources("lonely"));
+        assertNull(frozen.targets("a").get("missing"));
+        assertNull(frozen.targets("a").get(42));
+        assertFalse(frozen.vertices().contains(42));
+        assertFalse(frozen.targets("BB").containsKey("b"));
+        assertTrue(frozen.targets("BB").containsKey("Aa"));
+    }
+
+    @Test
+    public void testRandom() {
+        Random random = new Random(20);
+        Graph<Integer> graph = Graph.empty();
+        for (int i = 0; i < 5000; i++) {
+            int s = random.nextInt(4) == 0 ? random.nextInt(3) : random.nextInt(1000);
+            int t = random.nextInt(4) == 0 ? random.nextInt(3) : random.nextInt(1000);
+            graph.set(s, t, 1 + random.nextInt(100));
+        }
+        graph.add(-1);
+        assertSameGraph(graph, FrozenGraph.of(graph));
+    }
+
+    @Test
+    public void testImmutable() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 1);
+        FrozenGraph<String> frozen = FrozenGraph.of(graph);
+        for (Runnable mutation : Arrays.<Runnable>asList(
+                () -> frozen.add("c"),
+                () -> frozen.set("a", "b", 2),
+                () -> frozen.set("a", "b", 0),
+                () -> frozen.remove("a"),
+                () -> frozen.vertices().remove("a"),
+                () -> frozen.vertices().iterator().remove(),
+                () -> frozen.targets("a").put("c", 1),
+                () -> frozen.sources("b").clear()
+                )) {
+            try {
+                mutation.run();
+                fail("expected UnsupportedOperationException");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+        }
+        assertSameGraph(graph, frozen);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNullLabel() {
+        FrozenGraph.of(Graph.<String>empty()).sources(null);
+    }
+
+    @Test
+    public void testListLabels() {
+        Graph<List<String>> graph = Graph.empty();
+        graph.set(List.of("a"), List.of("b", "c"), 3);
+        FrozenGraph<List<String>> frozen = FrozenGraph.of(graph);
+        assertEquals(Map.of(List.of("b", "c"), 3), frozen.targets(new ArrayList<>(List.of("a"))));
+    }
+}
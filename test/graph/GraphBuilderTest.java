@@ -0,0 +1,159 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+/**
+ * Tests for GraphBuilder and WeightedEdge.
+ */
+public class GraphBuilderTest {
+
+    // Testing strategy
+    //   add(vertex), add(source, target, weight), add(edge), addAll(iterator), addAll(stream), of()
+    //     duplicates: none, duplicate edge, duplicate vertex
+    //     merge function: default sum, custom, result not positive
+    //     weight: positive, not positive
+    //     rejected edge: no vertices added
+    //   building: build() small and large, ConcreteEdgesGraph, ConcreteVerticesGraph
+    //     graph content: empty, isolated vertices, self-loops
+    //     built graph mutated afterwards; builder mutated after building
+    //   WeightedEdge: constructor, getters, equals, bad arguments
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private static GraphBuilder<String> sample() {
+        return new GraphBuilder<String>(4)
+                .add("a", "b", 1)
+                .add("b", "c", 2)
+                .add("a", "b", 3)
+                .add("c", "c", 1)
+                .add("lonely");
+    }
+
+    private static void assertSampleContent(Graph<String> g) {
+        assertEquals(Set.of("a", "b", "c", "lonely"), g.vertices());
+        assertEquals(Map.of("b", 4), g.targets("a"));
+        assertEquals(Map.of("b", 2, "c", 1), g.sources("c"));
+        assertTrue(g.targets("lonely").isEmpty());
+    }
+
+    @Test
+    public void testBuilderMergesDuplicates() {
+        GraphBuilder<String> b = sample();
+        assertEquals(4, b.vertexCount());
+        assertEquals(3, b.edgeCount());
+    }
+
+    @Test
+    public void testBuildEveryKind() {
+        assertSampleContent(sample().build());
+        assertSampleContent(new ConcreteEdgesGraph(sample()));
+        assertSampleContent(new ConcreteVerticesGraph(sample()));
+        assertSampleContent(new ConcreteEdgesGraph(sample(), CheckPolicy.incremental()));
+        assertSampleContent(new ConcreteVerticesGraph(sample(), CheckPolicy.off()));
+    }
+
+    @Test
+    public void testBuildEmpty() {
+        assertTrue(new GraphBuilder<String>().build().vertices().isEmpty());
+        assertTrue(new ConcreteEdgesGraph(new GraphBuilder<>()).vertices().isEmpty());
+        assertTrue(new ConcreteVerticesGraph(new GraphBuilder<>()).vertices().isEmpty());
+    }
+
+    @Test
+    public void testBuildLargeFromStream() {
+        final int n = 500;
+        Stream<WeightedEdge<Integer>> edges = IntStream.range(0, 3 * n)
+                .mapToObj(i -> new WeightedEdge<>(i % n, (i + 1) % n, 1));
+        GraphBuilder<Integer> b = GraphBuilder.of(edges, n);
+        assertEquals(n, b.edgeCount());
+        Graph<Integer> g = b.build();
+        assertEquals(n, g.vertices().size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(Map.of((i + 1) % n, 3), g.targets(i));
+        }
+    }
+
+    @Test
+    public void testBuiltGraphsAreIndependent() {
+        GraphBuilder<String> b = sample();
+        Graph<String> edges = new ConcreteEdgesGraph(b);
+        Graph<String> vertices = new ConcreteVerticesGraph(b);
+        Graph<String> built = b.build();
+        b.add("a", "z", 1);
+        edges.set("a", "b", 0);
+        vertices.remove("c");
+        built.set("x", "a", 5);
+        assertEquals(Map.of("b", 4), built.targets("a"));
+        assertEquals(Map.of("b", 4), vertices.targets("a"));
+        assertEquals(Map.of("x", 5), built.sources("a"));
+        assertTrue(edges.targets("a").isEmpty());
+    }
+
+    @Test
+    public void testIteratorAndCustomMerge() {
+        GraphBuilder<String> b = new GraphBuilder<>(2, Math::max);
+        List<WeightedEdge<String>> edges = List.of(
+                new WeightedEdge<>("a", "b", 3), new WeightedEdge<>("a", "b", 7), new WeightedEdge<>("a", "b", 5));
+        Graph<String> g = b.addAll(edges.iterator()).build();
+        assertEquals(Map.of("b", 7), g.targets("a"));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testMergeMustStayPositive() {
+        new GraphBuilder<String>(2, (old, w) -> old - w).add("a", "b", 2).add("a", "b", 2);
+    }
+
+    @Test
+    public void testRejectedEdgeAddsNoVertices() {
+        GraphBuilder<String> b = new GraphBuilder<String>(2, (old, w) -> old - w).add("a", "b", 2);
+        for (Runnable bad : List.<Runnable>of(
+                () -> b.add("a", "b", 2),
+                () -> b.add("c", null, 1),
+                () -> b.add(null, "c", 1),
+                () -> b.add("c", "d", 0))) {
+            try {
+                bad.run();
+                fail("expected IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                assertEquals(2, b.vertexCount());
+            }
+        }
+        assertEquals(Map.of("b", 2), b.build().targets("a"));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testWeightMustBePositive() {
+        new GraphBuilder<String>().add("a", "b", 0);
+    }
+
+    @Test
+    public void testWeightedEdge() {
+        WeightedEdge<String> e = new WeightedEdge<>("a", "b", 2);
+        assertEquals("a", e.source());
+        assertEquals("b", e.target());
+        assertEquals(2, e.weight());
+        assertEquals(new WeightedEdge<>("a", "b", 2), e);
+        assertEquals(new WeightedEdge<>("a", "b", 2).hashCode(), e.hashCode());
+        assertNotEquals(new WeightedEdge<>("a", "b", 3), e);
+        assertTrue(e.toString().contains("a->b"));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testWeightedEdgeNullLabel() {
+        new WeightedEdge<>(null, "b", 1);
+    }
+}
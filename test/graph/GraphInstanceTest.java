@@ -102,6 +102,32 @@ public abstract class GraphInstanceTest {
         assertTrue(g.sources("B").isEmpty());
     }
 
+    @Test
+    public void testRemoveVertexKeepsOtherEdges() {
+        Graph<String> g = emptyInstance();
+        g.set("A","B",1);
+        g.set("B","C",2);
+        g.set("C","A",3);
+        g.set("C","D",4);
+        g.set("B","B",5);
+        assertTrue(g.remove("B"));
+        assertEquals(Set.of("A","C","D"), g.vertices());
+        assertEquals(Map.of("A",3,"D",4), g.targets("C"));
+        assertEquals(Map.of("C",3), g.sources("A"));
+        assertTrue(g.targets("A").isEmpty());
+        assertTrue(g.sources("C").isEmpty());
+    }
+
+    @Test
+    public void testSetReturnsPreviousWeight() {
+        Graph<String> g = emptyInstance();
+        assertEquals(0, g.set("A","B",3));
+        assertEquals(3, g.set("A","B",7));
+        assertEquals(7, g.set("A","B",0));
+        assertEquals(0, g.set("A","B",0));
+        assertEquals(Set.of("A","B"), g.vertices());
+    }
+
     @Test
     public void testVerticesListImmutable() {
         Graph<String> g = emptyInstance();
@@ -116,4 +142,19 @@ public abstract class GraphInstanceTest {
         assertFalse(g.vertices().contains("B"));
     }
 
+    @Test
+    public void testSnapshotsUnaffectedByLaterMutation() {
+        Graph<String> g = emptyInstance();
+        g.set("A", "B", 1);
+        Set<String> vertices = g.vertices();
+        Map<String, Integer> targets = g.targets("A");
+        Map<String, Integer> sources = g.sources("B");
+        g.set("A", "B", 2);
+        g.set("A", "C", 3);
+        g.remove("B");
+        assertEquals(Set.of("A", "B"), vertices);
+        assertEquals(Map.of("B", 1), targets);
+        assertEquals(Map.of("A", 1), sources);
+        assertEquals(Map.of("C", 3), g.targets("A"));
+    }
 }
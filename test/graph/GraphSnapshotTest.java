@@ -0,0 +1,161 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for GraphSnapshot.
+ */
+public class GraphSnapshotTest {
+
+    // Testing strategy
+    //   write(), read() round trip
+    //     graph: empty, isolated vertices, self-loops, multi-byte labels, empty
+    //            label, large weights, many vertices (multi-byte varints)
+    //     implementation: ConcreteEdgesGraph, ConcreteVerticesGraph, Graph.empty()
+    //   read() of a bad file
+    //     too short, wrong magic, wrong version, flipped byte, truncated
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private Path roundTrip(Graph<String> graph) throws IOException {
+        Path file = folder.newFile().toPath();
+        GraphSnapshot.write(graph, file);
+        Graph<String> loaded = GraphSnapshot.read(file).build();
+        assertEquals(graph.vertices(), loaded.vertices());
+        for (String v : graph.vertices()) {
+            assertEquals(v, graph.targets(v), loaded.targets(v));
+            assertEquals(v, graph.sources(v), loaded.sources(v));
+        }
+        return file;
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        roundTrip(Graph.empty());
+    }
+
+    @Test
+    public void testConcreteEdgesGraph() throws IOException {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.add("lonely");
+        graph.add("");
+        graph.set("a", "b", 1);
+        graph.set("b", "a", Integer.MAX_VALUE);
+        graph.set("a", "a", 300);
+        graph.set("\u00e9t\u00e9", "\u6f22\u5b57", 128);
+        graph.set("\ud83d\ude00", "a", 16384);
+        roundTrip(graph);
+    }
+
+    @Test
+    public void testConcreteVerticesGraph() throws IOException {
+        Graph<String> graph = new ConcreteVerticesGraph();
+        graph.add("lonely");
+        graph.set("x", "y", 2);
+        graph.set("y", "z", 3);
+        graph.set("z", "x", 4);
+        graph.set("z", "z", 5);
+        roundTrip(graph);
+    }
+
+    @Test
+    public void testManyVertices() throws IOException {
+        Random random = new Random(18);
+        GraphBuilder<String> builder = new GraphBuilder<>();
+        for (int i = 0; i < 3000; i++) {
+            builder.add("v" + random.nextInt(1000), "v" + random.nextInt(1000), 1 + random.nextInt(1 << 20));
+        }
+        builder.add("isolated");
+        Path file = roundTrip(builder.build());
+
+        // rewriting what was loaded gives the same bytes
+        Path again = folder.newFile().toPath();
+        GraphSnapshot.write(GraphSnapshot.read(file).build(), again);
+        assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(again));
+    }
+
+    private Path sampleSnapshot() throws IOException {
+        Graph<String> graph = Graph.empty();
+        graph.set("hello", "world", 3);
+        graph.set("world", "hello", 1);
+        graph.add("alone");
+        Path file = folder.newFile().toPath();
+        GraphSnapshot.write(graph, file);
+        return file;
+    }
+
+    private static void assertUnreadable(Path file) {
+        try {
+            GraphSnapshot.read(file);
+            fail("expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testTooShort() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, new byte[] { 'G', 'R' });
+        assertUnreadable(file);
+    }
+
+    @Test
+    public void testWrongMagic() throws IOException {
+        Path file = sampleSnapshot();
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[0] = 'X';
+        Files.write(file, bytes);
+        assertUnreadable(file);
+    }
+
+    @Test
+    public void testWrongVersion() throws IOException {
+        Path file = sampleSnapshot();
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[7] = (byte) (GraphSnapshot.VERSION + 1);
+        Files.write(file, bytes);
+        assertUnreadable(file);
+    }
+
+    @Test
+    public void testEveryFlippedByte() throws IOException {
+        Path file = sampleSnapshot();
+        byte[] original = Files.readAllBytes(file);
+        for (int i = 0; i < original.length; i++) {
+            byte[] bytes = original.clone();
+            bytes[i] ^= 0x10;
+            Files.write(file, bytes);
+            assertUnreadable(file);
+        }
+    }
+
+    @Test
+    public void testTruncated() throws IOException {
+        Path file = sampleSnapshot();
+        byte[] original = Files.readAllBytes(file);
+        for (int length = 0; length < original.length; length++) {
+            Files.write(file, Arrays.copyOf(original, length));
+            assertUnreadable(file);
+        }
+    }
+}
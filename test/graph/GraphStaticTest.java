@@ -6,6 +6,9 @@ package graph;
 import static org.junit.Assert.*;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.junit.Test;
 
@@ -21,6 +24,8 @@ public class GraphStaticTest {
     //   empty()
     //     no inputs, only output is empty graph
     //     observe with vertices()
+    //     label types: Integer, List<String>, a user-defined immutable type
+    //     size: small, large enough to outgrow a compact representation
     
     @Test(expected=AssertionError.class)
     public void testAssertionsEnabled() {
@@ -33,6 +38,79 @@ public class GraphStaticTest {
                 Collections.emptySet(), Graph.empty().vertices());
     }
     
-    // TODO test other vertex label types in Problem 3.2
+    @Test
+    public void testEmptyIntegerLabels() {
+        Graph<Integer> g = Graph.empty();
+        assertEquals(0, g.set(1, 2, 5));
+        assertEquals(Set.of(1, 2), g.vertices());
+        assertEquals(Map.of(2, 5), g.targets(1));
+        assertEquals(Map.of(1, 5), g.sources(2));
+    }
+
+    @Test
+    public void testEmptyListLabels() {
+        Graph<List<String>> g = Graph.empty();
+        List<String> a = List.of("a");
+        List<String> b = List.of("b", "c");
+        g.set(a, b, 2);
+        assertEquals(Map.of(a, 2), g.sources(List.of("b", "c")));
+        assertTrue(g.remove(List.of("a")));
+        assertEquals(Set.of(b), g.vertices());
+    }
+
+    // a user-defined immutable label type, equal by value
+    private static final class Point {
+        private final int x;
+        private final int y;
+
+        Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object that) {
+            return that instanceof Point && ((Point) that).x == x && ((Point) that).y == y;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * x + y;
+        }
+
+        @Override
+        public String toString() {
+            return "(" + x + "," + y + ")";
+        }
+    }
+
+    @Test
+    public void testEmptyUserDefinedLabels() {
+        Graph<Point> g = Graph.empty();
+        assertTrue(g.add(new Point(0, 0)));
+        assertFalse(g.add(new Point(0, 0)));
+        assertEquals(0, g.set(new Point(0, 0), new Point(1, 2), 3));
+        assertEquals(3, g.set(new Point(0, 0), new Point(1, 2), 4));
+        assertEquals(Set.of(new Point(0, 0), new Point(1, 2)), g.vertices());
+        assertEquals(Map.of(new Point(1, 2), 4), g.targets(new Point(0, 0)));
+        assertEquals(Map.of(new Point(0, 0), 4), g.sources(new Point(1, 2)));
+        assertTrue(g.remove(new Point(1, 2)));
+        assertEquals(Map.of(), g.targets(new Point(0, 0)));
+    }
+
+    @Test
+    public void testEmptyGrowsLarge() {
+        Graph<Integer> g = Graph.empty();
+        final int n = 1000;
+        for (int i = 0; i < n; i++) {
+            g.set(i, (i + 1) % n, i + 1);
+        }
+        assertEquals(n, g.vertices().size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(Map.of((i + 1) % n, i + 1), g.targets(i));
+        }
+        assertEquals(n, g.set(n - 1, 0, 0));
+        assertTrue(g.sources(0).isEmpty());
+    }
     
 }
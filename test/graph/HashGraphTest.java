@@ -0,0 +1,60 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for HashGraph.
+ * 
+ * This class runs the GraphInstanceTest tests against HashGraph, as
+ * well as tests for that particular implementation.
+ * 
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class HashGraphTest extends GraphInstanceTest {
+
+    @Override public Graph<String> emptyInstance() {
+        return new HashGraph<>();
+    }
+
+    /*
+     * Testing HashGraph
+     *
+     * Partition:
+     *  - edgeCount(): empty, after adds, updates, removals, self-loop removal
+     *  - toString(): with and without edges
+     */
+
+    @Test
+    public void testEdgeCount() {
+        HashGraph<String> g = new HashGraph<>();
+        assertEquals(0, g.edgeCount());
+        g.set("A", "B", 1);
+        g.set("A", "B", 2);
+        g.set("B", "B", 3);
+        g.set("B", "A", 4);
+        assertEquals(3, g.edgeCount());
+        g.set("A", "B", 0);
+        assertEquals(2, g.edgeCount());
+        g.remove("B");
+        assertEquals(0, g.edgeCount());
+        assertEquals(Set.of("A"), g.vertices());
+    }
+
+    @Test
+    public void testToString() {
+        HashGraph<String> g = new HashGraph<>();
+        g.add("A");
+        assertTrue(g.toString().contains("A"));
+        g.set("A", "B", 5);
+        assertTrue(g.toString().contains("B=5"));
+        assertEquals(Map.of("A", 5), g.sources("B"));
+    }
+}
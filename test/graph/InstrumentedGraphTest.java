@@ -0,0 +1,152 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import graph.GraphListener.Operation;
+
+/**
+ * Tests for InstrumentedGraph and GraphMetrics.
+ * 
+ * This class runs the GraphInstanceTest tests against an InstrumentedGraph
+ * wrapping Graph.empty(), as well as tests for that particular implementation.
+ * 
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class InstrumentedGraphTest extends GraphInstanceTest {
+
+    @Override public Graph<String> emptyInstance() {
+        return new InstrumentedGraph<>(Graph.empty(), new GraphMetrics());
+    }
+
+    /*
+     * Testing InstrumentedGraph
+     *
+     * Partition:
+     *  - each operation: changes the graph or not; returns empty or nonempty
+     *  - calls made on the wrapped graph directly are not told
+     *  - null graph or listener
+     *  - heaviestTargets(), heaviestSources(): wrapped graph ranked or not
+     *  - mergeable(): merge() and increment() told; other calls told
+     *
+     * Testing GraphMetrics
+     *
+     * Partition:
+     *  - calls, nanos, sizes: no calls, several calls of an operation
+     *  - reset()
+     *  - register(): read through the platform MBean server
+     */
+
+    @Test
+    public void testListenerTold() {
+        List<String> told = new ArrayList<>();
+        Graph<String> wrapped = Graph.empty();
+        Graph<String> graph = new InstrumentedGraph<>(wrapped, (operation, nanos, size) -> {
+            assertTrue(nanos >= 0);
+            told.add(operation + " " + size);
+        });
+        assertTrue(graph.add("a"));
+        assertFalse(graph.add("a"));
+        assertEquals(0, graph.set("a", "b", 2));
+        assertEquals(2, graph.set("a", "b", 2));
+        assertEquals(0, graph.set("b", "a", 0));
+        assertEquals(Map.of("b", 2), graph.targets("a"));
+        assertEquals(Map.of(), graph.sources("a"));
+        assertEquals(2, graph.vertices().size());
+        wrapped.add("c");
+        assertTrue(graph.remove("b"));
+        assertFalse(graph.remove("b"));
+        assertEquals(List.of("ADD 1", "ADD 0", "SET 1", "SET 0", "SET 0", "TARGETS 1",
+                "SOURCES 0", "VERTICES 2", "REMOVE 1", "REMOVE 0"), told);
+        assertEquals(wrapped.toString(), graph.toString());
+    }
+
+    @Test
+    public void testHeaviestTold() {
+        List<String> told = new ArrayList<>();
+        GraphListener listener = (operation, nanos, size) -> told.add(operation + " " + size);
+        for (Graph<String> wrapped : List.of(new ConcreteEdgesGraph(), new HashGraph<String>())) {
+            told.clear();
+            wrapped.set("a", "b", 2);
+            wrapped.set("a", "c", 3);
+            RankedGraph<String> graph = new InstrumentedGraph<>(wrapped, listener);
+            assertEquals(List.of(new WeightedEdge<>("a", "c", 3)), graph.heaviestTargets("a", 1));
+            assertEquals(List.of(new WeightedEdge<>("a", "b", 2)), graph.heaviestSources("b", 5));
+            assertEquals(List.of(), graph.heaviestTargets("b", 5));
+            assertEquals(List.of("HEAVIEST_TARGETS 1", "HEAVIEST_SOURCES 1", "HEAVIEST_TARGETS 0"), told);
+        }
+    }
+
+    @Test
+    public void testMergeableTold() {
+        List<String> told = new ArrayList<>();
+        MergeableGraph<String> wrapped = MergeableGraph.empty();
+        MergeableGraph<String> graph = InstrumentedGraph.mergeable(wrapped,
+                (operation, nanos, size) -> told.add(operation + " " + size));
+        assertEquals(2, graph.increment("a", "b", 2));
+        assertEquals(5, graph.merge("a", "b", 3, Integer::sum));
+        assertEquals(0, graph.merge("a", "b", 1, (previous, weight) -> 0));
+        assertEquals(0, graph.set("a", "c", 1));
+        assertEquals(Map.of("c", 1), graph.targets("a"));
+        assertTrue(graph instanceof RankedGraph);
+        assertEquals(1, ((RankedGraph<String>) graph).heaviestTargets("a", 3).size());
+        assertEquals(List.of("MERGE 1", "MERGE 1", "MERGE 0", "SET 1", "TARGETS 1", "HEAVIEST_TARGETS 1"), told);
+        assertEquals(Map.of("c", 1), wrapped.targets("a"));
+        assertEquals(wrapped.toString(), graph.toString());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNullListener() {
+        new InstrumentedGraph<>(Graph.empty(), null);
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        GraphMetrics metrics = new GraphMetrics();
+        Graph<String> graph = new InstrumentedGraph<>(Graph.empty(), metrics);
+        assertEquals(0, metrics.calls(Operation.SET));
+        graph.set("a", "b", 1);
+        graph.set("a", "c", 1);
+        graph.set("c", "b", 1);
+        for (int i = 0; i < 3; i++) {
+            graph.targets("a");
+        }
+        graph.sources("b");
+        assertEquals(3, metrics.calls(Operation.SET));
+        assertEquals(3, metrics.sizes(Operation.SET));
+        assertEquals(3, metrics.getTargetsCalls());
+        assertEquals(6, metrics.getTargetsSize());
+        assertEquals(1, metrics.getSourcesCalls());
+        assertEquals(2, metrics.getSourcesSize());
+        assertEquals(0, metrics.calls(Operation.REMOVE));
+        assertTrue(metrics.getSetNanos() >= 0);
+        assertEquals(0, metrics.getMergeCalls());
+        InstrumentedGraph.mergeable(MergeableGraph.<String>empty(), metrics).increment("a", "b", 1);
+        assertEquals(1, metrics.getMergeCalls());
+        assertTrue(metrics.getMergeNanos() >= 0);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = metrics.register("test graph");
+        try {
+            assertEquals(3L, server.getAttribute(name, "TargetsCalls"));
+            server.invoke(name, "reset", new Object[0], new String[0]);
+            assertEquals(0L, server.getAttribute(name, "TargetsCalls"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+        assertEquals(0, metrics.calls(Operation.SET));
+        assertEquals(0, metrics.nanos(Operation.TARGETS));
+    }
+}
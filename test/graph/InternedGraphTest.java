@@ -0,0 +1,118 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for InternedGraph.
+ * 
+ * This class runs the GraphInstanceTest tests against InternedGraph, as
+ * well as tests for that particular implementation.
+ * 
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class InternedGraphTest extends GraphInstanceTest {
+
+    @Override public Graph<String> emptyInstance() {
+        return new InternedGraph<>();
+    }
+
+    /*
+     * Testing InternedGraph
+     *
+     * Partition:
+     *  - removing the last-interned vertex, an earlier vertex, a vertex with a self-loop
+     *  - long random sequences of set/remove, compared against HashGraph
+     *
+     * Testing IntIntMap
+     *
+     * Partition:
+     *  - get: empty map, present key, absent key
+     *  - put: new key, existing key, value 0
+     *  - remove: present key, absent key, key in the middle of a probe run
+     *  - growth past the initial capacity
+     */
+
+    @Test
+    public void testRemoveRenumbersLastVertex() {
+        Graph<String> g = emptyInstance();
+        g.set("A", "B", 1);
+        g.set("C", "C", 2);
+        g.set("C", "B", 3);
+        g.set("B", "C", 4);
+        assertTrue(g.remove("A"));
+        assertEquals(Map.of("C", 2, "B", 3), g.targets("C"));
+        assertEquals(Map.of("C", 2, "B", 4), g.sources("C"));
+        assertEquals(Map.of("C", 3), g.sources("B"));
+        assertTrue(g.remove("C"));
+        assertTrue(g.sources("B").isEmpty());
+        assertTrue(g.targets("B").isEmpty());
+    }
+
+    @Test
+    public void testRandomAgainstHashGraph() {
+        Random random = new Random(6005);
+        Graph<Integer> expected = new HashGraph<>(CheckPolicy.off());
+        Graph<Integer> actual = new InternedGraph<>(CheckPolicy.sampled(17));
+        for (int op = 0; op < 5000; op++) {
+            int a = random.nextInt(40);
+            int b = random.nextInt(40);
+            if (random.nextInt(10) == 0) {
+                assertEquals(expected.remove(a), actual.remove(a));
+            } else {
+                int w = random.nextInt(4);
+                assertEquals(expected.set(a, b, w), actual.set(a, b, w));
+            }
+        }
+        assertEquals(expected.vertices(), actual.vertices());
+        for (Integer v : expected.vertices()) {
+            assertEquals(expected.targets(v), actual.targets(v));
+            assertEquals(expected.sources(v), actual.sources(v));
+        }
+    }
+
+    @Test
+    public void testIntIntMapBasics() {
+        IntIntMap m = new IntIntMap();
+        assertEquals(0, m.get(3));
+        assertEquals(0, m.remove(3));
+        assertEquals(0, m.put(3, 7));
+        assertEquals(7, m.put(3, 8));
+        assertEquals(8, m.get(3));
+        assertEquals(1, m.size());
+        assertEquals(8, m.put(3, 0));
+        assertEquals(0, m.size());
+        assertEquals(0, m.get(3));
+    }
+
+    @Test
+    public void testIntIntMapGrowthAndRemoval() {
+        IntIntMap m = new IntIntMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int k = 0; k < 1000; k++) {
+            m.put(k * 31, k + 1);
+            expected.put(k * 31, k + 1);
+        }
+        for (int k = 0; k < 1000; k += 3) {
+            assertEquals(k + 1, m.remove(k * 31));
+            expected.remove(k * 31);
+        }
+        assertEquals(expected.size(), m.size());
+        for (int k = 0; k < 1000; k++) {
+            assertEquals(expected.getOrDefault(k * 31, 0).intValue(), m.get(k * 31));
+        }
+        Map<Integer, Integer> iterated = new HashMap<>();
+        for (int i = 0; i < m.capacity(); i++) {
+            if (m.keyAt(i) >= 0) iterated.put(m.keyAt(i), m.valueAt(i));
+        }
+        assertEquals(expected, iterated);
+    }
+}
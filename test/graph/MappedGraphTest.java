@@ -0,0 +1,179 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for MappedGraph.
+ */
+public class MappedGraphTest {
+
+    // Testing strategy
+    //   write(), open()
+    //     graph: empty, isolated vertices, self-loops, multi-byte labels whose
+    //            UTF-8 order differs from String order, random with hubs
+    //     file: valid, wrong magic, wrong version, wrong size, bad offsets
+    //   vertices(), sources(), targets()
+    //     label: vertex, not a vertex, not a String, null
+    //     same as the graph written; views cannot be modified
+    //   add(), set(), remove() always throw
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    private MappedGraph mapped(Graph<String> graph) throws IOException {
+        Path file = folder.newFile().toPath();
+        MappedGraph.write(graph, file);
+        return MappedGraph.open(file);
+    }
+
+    private static void assertSameGraph(Graph<String> expected, Graph<String> actual) {
+        assertEquals(expected.vertices(), actual.vertices());
+        assertEquals(actual.vertices(), expected.vertices());
+        for (String v : expected.vertices()) {
+            assertEquals(v, expected.targets(v), actual.targets(v));
+            assertEquals(v, expected.sources(v), actual.sources(v));
+            assertEquals(v, actual.targets(v), expected.targets(v));
+            assertEquals(v, actual.sources(v), expected.sources(v));
+        }
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        MappedGraph graph = mapped(Graph.empty());
+        assertEquals(Set.of(), graph.vertices());
+        assertEquals(Map.of(), graph.targets("a"));
+        assertEquals(0, graph.edgeCount());
+    }
+
+    @Test
+    public void testSmall() throws IOException {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.add("lonely");
+        graph.add("");
+        graph.set("a", "b", 1);
+        graph.set("b", "a", Integer.MAX_VALUE);
+        graph.set("a", "a", 300);
+        // U+FF5E sorts after U+1F600 as a String, but before it in UTF-8
+        graph.set("\uff5e", "\ud83d\ude00", 7);
+        graph.set("\ud83d\ude00", "a", 8);
+        MappedGraph mapped = mapped(graph);
+        assertSameGraph(graph, mapped);
+        assertEquals(5, mapped.edgeCount());
+        assertEquals(Map.of(), mapped.targets("missing"));
+        assertEquals(Map.of(), mapped.sources("lonely"));
+        assertNull(mapped.targets("a").get("missing"));
+        assertNull(mapped.targets("a").get(42));
+        assertFalse(mapped.vertices().contains(42));
+        assertTrue(mapped.vertices().contains("\ud83d\ude00"));
+
+        List<String> order = new ArrayList<>(mapped.vertices());
+        assertEquals(List.of("", "a", "b", "lonely", "\uff5e", "\ud83d\ude00"), order);
+    }
+
+    @Test
+    public void testRandom() throws IOException {
+        Random random = new Random(19);
+        GraphBuilder<String> builder = new GraphBuilder<>();
+        for (int i = 0; i < 5000; i++) {
+            int s = random.nextInt(4) == 0 ? random.nextInt(3) : random.nextInt(800);
+            int t = random.nextInt(4) == 0 ? random.nextInt(3) : random.nextInt(800);
+            builder.add("w" + s, "w" + t, 1 + random.nextInt(100));
+        }
+        builder.add("isolated");
+        Graph<String> graph = builder.build();
+        assertSameGraph(graph, mapped(graph));
+    }
+
+    @Test
+    public void testReadOnly() throws IOException {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 1);
+        MappedGraph mapped = mapped(graph);
+        for (Runnable mutation : Arrays.<Runnable>asList(
+                () -> mapped.add("c"),
+                () -> mapped.set("a", "b", 2),
+                () -> mapped.set("a", "b", 0),
+                () -> mapped.remove("a"),
+                () -> mapped.vertices().remove("a"),
+                () -> mapped.vertices().iterator().remove(),
+                () -> mapped.targets("a").put("c", 1),
+                () -> mapped.sources("b").clear()
+                )) {
+            try {
+                mutation.run();
+                fail("expected UnsupportedOperationException");
+            } catch (UnsupportedOperationException e) {
+                // expected
+            }
+        }
+        assertSameGraph(graph, mapped);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNullLabel() throws IOException {
+        mapped(Graph.empty()).targets(null);
+    }
+
+    private Path sample() throws IOException {
+        Graph<String> graph = Graph.empty();
+        graph.set("hello", "world", 3);
+        graph.add("alone");
+        Path file = folder.newFile().toPath();
+        MappedGraph.write(graph, file);
+        return file;
+    }
+
+    private static void assertUnreadable(Path file, byte[] bytes) throws IOException {
+        Files.write(file, bytes);
+        try {
+            MappedGraph.open(file);
+            fail("expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBadFiles() throws IOException {
+        Path file = sample();
+        byte[] original = Files.readAllBytes(file);
+        assertUnreadable(file, new byte[] { 'G' });
+        assertUnreadable(file, Arrays.copyOf(original, original.length - 1));
+        assertUnreadable(file, Arrays.copyOf(original, original.length + 4));
+
+        byte[] magic = original.clone();
+        magic[3] = 'X';
+        assertUnreadable(file, magic);
+
+        byte[] version = original.clone();
+        version[7]++;
+        assertUnreadable(file, version);
+
+        // first label offset, which must be 0
+        byte[] offsets = original.clone();
+        offsets[23] = 1;
+        assertUnreadable(file, offsets);
+    }
+}
@@ -0,0 +1,110 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Tests for MergeableGraph, run against every implementation of it.
+ */
+@RunWith(Parameterized.class)
+public class MergeableGraphTest {
+
+    // Testing strategy
+    //   merge(), increment()
+    //     edge: absent with both vertices absent, absent with vertices present, present
+    //     remapping result: positive, zero (edge removed), negative (rejected)
+    //     weight: positive, zero or negative (rejected)
+    //     graph size: small, large enough for AdaptiveGraph to switch representation
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> implementations() {
+        return Arrays.asList(new Object[][] {
+            { "ConcreteEdgesGraph", (Supplier<MergeableGraph<String>>) ConcreteEdgesGraph::new },
+            { "ConcreteVerticesGraph", (Supplier<MergeableGraph<String>>) ConcreteVerticesGraph::new },
+            { "AdaptiveGraph", (Supplier<MergeableGraph<String>>) AdaptiveGraph::new },
+            { "HashGraph", (Supplier<MergeableGraph<String>>) HashGraph::new },
+            { "InternedGraph", (Supplier<MergeableGraph<String>>) InternedGraph::new },
+            { "ConcurrentGraph", (Supplier<MergeableGraph<String>>) ConcurrentGraph::new },
+        });
+    }
+
+    private final Supplier<MergeableGraph<String>> factory;
+
+    public MergeableGraphTest(String name, Supplier<MergeableGraph<String>> factory) {
+        this.factory = factory;
+    }
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    @Test
+    public void testIncrementNewAndExisting() {
+        MergeableGraph<String> g = factory.get();
+        assertEquals(1, g.increment("a", "b", 1));
+        assertEquals(3, g.increment("a", "b", 2));
+        assertEquals(Set.of("a", "b"), g.vertices());
+        assertEquals(Map.of("b", 3), g.targets("a"));
+        assertEquals(Map.of("a", 3), g.sources("b"));
+    }
+
+    @Test
+    public void testMergeRemapping() {
+        MergeableGraph<String> g = factory.get();
+        g.add("a");
+        g.add("b");
+        assertEquals(5, g.merge("a", "b", 5, Math::max));
+        assertEquals(5, g.merge("a", "b", 2, Math::max));
+        assertEquals(9, g.merge("a", "b", 9, Math::max));
+        assertEquals(0, g.merge("a", "b", 9, (old, w) -> old - w));
+        assertTrue(g.targets("a").isEmpty());
+        assertTrue(g.sources("b").isEmpty());
+        assertEquals(Set.of("a", "b"), g.vertices());
+    }
+
+    @Test
+    public void testMergeRejectsBadWeights() {
+        MergeableGraph<String> g = factory.get();
+        g.set("a", "b", 1);
+        try {
+            g.merge("a", "b", 2, (old, w) -> old - w);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            g.increment("a", "c", 0);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals(Set.of("a", "b"), g.vertices());
+        assertEquals(Map.of("b", 1), g.targets("a"));
+    }
+
+    @Test
+    public void testIncrementCountsAdjacencies() {
+        MergeableGraph<String> g = factory.get();
+        final int words = 50;
+        for (int i = 0; i < 10 * words; i++) {
+            g.increment("w" + i % words, "w" + (i + 1) % words, 1);
+        }
+        for (int i = 0; i < words; i++) {
+            assertEquals(Map.of("w" + (i + 1) % words, 10), g.targets("w" + i));
+        }
+    }
+}
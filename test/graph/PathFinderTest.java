@@ -0,0 +1,281 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for PathFinder.
+ */
+public class PathFinderTest {
+
+    // Testing strategy
+    //   of()
+    //     graph: empty, with self-loops, random with hubs
+    //     graph changed afterwards
+    //   id(), label()
+    //     label: vertex, not a vertex, null
+    //   bestPath()
+    //     path: none, direct edge, longer than the direct edge, through a cycle
+    //     minHops: 1, > 1 (excluding a shorter path); maxHops: = minHops, > it
+    //     source or target not a vertex, null; bad bounds
+    //     by label, by id; compared with brute force on random graphs
+    //     lastCost(): after a path, after none
+    //   within()
+    //     hops: 0, 1, more than the diameter; source not a vertex, null
+    //     order: by number of hops
+    //   results cannot be modified
+    //   finders of different sizes queried in turn by one thread; finders
+    //   rebuilt repeatedly by one thread can be garbage collected
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // a -> b is likely, a -> c unlikely; c -> d certain, b -> d unlikely
+    private static Graph<String> diamond() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 9);
+        graph.set("a", "c", 1);
+        graph.set("b", "d", 1);
+        graph.set("b", "e", 99);
+        graph.set("c", "d", 5);
+        graph.set("a", "d", 1);
+        graph.add("lonely");
+        return graph;
+    }
+
+    @Test
+    public void testEmpty() {
+        PathFinder<String> paths = PathFinder.of(Graph.empty());
+        assertEquals(0, paths.vertexCount());
+        assertEquals(-1, paths.id("a"));
+        assertEquals(List.of(), paths.bestPath("a", "b", 1, 3));
+        assertEquals(List.of(), paths.within("a", 2));
+        assertTrue(Double.isInfinite(paths.lastCost()));
+    }
+
+    @Test
+    public void testIds() {
+        Graph<String> graph = diamond();
+        PathFinder<String> paths = PathFinder.of(graph);
+        assertEquals(graph.vertices().size(), paths.vertexCount());
+        Set<String> labels = new HashSet<>();
+        for (int id = 0; id < paths.vertexCount(); id++) {
+            labels.add(paths.label(id));
+            assertEquals(id, paths.id(paths.label(id)));
+        }
+        assertEquals(graph.vertices(), labels);
+        assertEquals(-1, paths.id("z"));
+        assertEquals(-1, paths.id(null));
+    }
+
+    @Test
+    public void testBestPath() {
+        PathFinder<String> paths = PathFinder.of(diamond());
+        // a -> d is 1/11; a -> b -> d is 9/11 * 1/100; a -> c -> d is 1/11 * 1
+        assertEquals(List.of("a", "d"), paths.bestPath("a", "d", 1, 3));
+        assertEquals(Math.log(11), paths.lastCost(), 1e-9);
+        assertEquals(List.of("a", "c", "d"), paths.bestPath("a", "d", 2, 3));
+        assertEquals(Math.log(11), paths.lastCost(), 1e-9);
+        assertEquals(List.of("a", "b", "e"), paths.bestPath("a", "e", 1, 1000));
+        assertEquals(List.of("a", "b", "e"), paths.bestPath("a", "e", 2, 2));
+        assertEquals(List.of(), paths.bestPath("a", "e", 1, 1));
+        assertEquals(List.of(), paths.bestPath("a", "e", 3, 5));
+        assertTrue(Double.isInfinite(paths.lastCost()));
+        assertEquals(List.of(), paths.bestPath("d", "a", 1, 5));
+        assertEquals(List.of(), paths.bestPath("a", "lonely", 1, 5));
+        assertEquals(List.of(), paths.bestPath("a", "z", 1, 5));
+        assertEquals(List.of(), paths.bestPath("z", "a", 1, 5));
+    }
+
+    @Test
+    public void testBestPathThroughCycle() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "a", 1);
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 1);
+        PathFinder<String> paths = PathFinder.of(graph);
+        assertEquals(List.of("a", "a"), paths.bestPath("a", "a", 1, 4));
+        assertEquals(List.of("a", "b", "c"), paths.bestPath("a", "c", 1, 4));
+        assertEquals(List.of("a", "a", "b", "c"), paths.bestPath("a", "c", 3, 4));
+        assertEquals(List.of("a", "a", "a", "b", "c"), paths.bestPath("a", "c", 4, 4));
+        assertEquals(List.of(), paths.bestPath("b", "b", 1, 10));
+    }
+
+    @Test
+    public void testBestPathById() {
+        PathFinder<String> paths = PathFinder.of(diamond());
+        int[] path = new int[4];
+        int hops = paths.bestPath(paths.id("a"), paths.id("d"), 2, 3, path);
+        assertEquals(2, hops);
+        assertEquals("a", paths.label(path[0]));
+        assertEquals("c", paths.label(path[1]));
+        assertEquals("d", paths.label(path[2]));
+        assertEquals(-1, paths.bestPath(paths.id("d"), paths.id("a"), 1, 3, path));
+    }
+
+    @Test
+    public void testBadArguments() {
+        PathFinder<String> paths = PathFinder.of(diamond());
+        for (Runnable bad : List.<Runnable>of(
+                () -> paths.bestPath(null, "a", 1, 2),
+                () -> paths.bestPath("a", null, 1, 2),
+                () -> paths.bestPath("a", "d", 0, 2),
+                () -> paths.bestPath("a", "d", 3, 2),
+                () -> paths.bestPath("z", "d", 0, 2),
+                () -> paths.bestPath(0, 1, 1, 4, new int[4]),
+                () -> paths.within(null, 1),
+                () -> paths.within("a", -1))) {
+            try {
+                bad.run();
+                fail("expected IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testWithin() {
+        PathFinder<String> paths = PathFinder.of(diamond());
+        assertEquals(List.of("a"), paths.within("a", 0));
+        List<String> one = paths.within("a", 1);
+        assertEquals("a", one.get(0));
+        assertEquals(Set.of("a", "b", "c", "d"), new HashSet<>(one));
+        assertEquals(4, one.size());
+        List<String> all = paths.within("a", 10);
+        assertEquals(one, all.subList(0, 4));
+        assertEquals(List.of("e"), all.subList(4, all.size()));
+        assertEquals(List.of("lonely"), paths.within("lonely", 3));
+        assertEquals(List.of(), paths.within("z", 3));
+    }
+
+    @Test
+    public void testSnapshot() {
+        Graph<String> graph = diamond();
+        PathFinder<String> paths = PathFinder.of(graph);
+        graph.set("d", "a", 1);
+        graph.remove("c");
+        assertEquals(List.of("a", "c", "d"), paths.bestPath("a", "d", 2, 2));
+        assertEquals(List.of(), paths.bestPath("d", "a", 1, 2));
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void testUnmodifiable() {
+        PathFinder.of(diamond()).bestPath("a", "d", 1, 2).add("x");
+    }
+
+    // the least cost of a walk from source to target with minHops to maxHops
+    // edges, by trying every walk
+    private static double bruteForce(Graph<Integer> graph, int source, int target, int minHops, int maxHops) {
+        double best = Double.POSITIVE_INFINITY;
+        if (minHops <= 0 && source == target) best = 0;
+        if (maxHops == 0) return best;
+        Map<Integer, Integer> out = graph.targets(source);
+        long total = 0;
+        for (int weight : out.values()) total += weight;
+        for (Map.Entry<Integer, Integer> e : out.entrySet()) {
+            double step = Math.log(total) - Math.log(e.getValue());
+            best = Math.min(best, step + bruteForce(graph, e.getKey(), target, minHops - 1, maxHops - 1));
+        }
+        return best;
+    }
+
+    @Test
+    public void testRandomAgainstBruteForce() {
+        Random random = new Random(7);
+        for (int trial = 0; trial < 20; trial++) {
+            Graph<Integer> graph = Graph.empty();
+            int n = 2 + random.nextInt(8);
+            for (int i = 0; i < n; i++) graph.add(i);
+            for (int e = random.nextInt(3 * n); e > 0; e--) {
+                // low-numbered vertices are hubs
+                int u = Math.min(random.nextInt(n), random.nextInt(n));
+                graph.set(u, random.nextInt(n), 1 + random.nextInt(5));
+            }
+            PathFinder<Integer> paths = PathFinder.of(graph);
+            for (int query = 0; query < 20; query++) {
+                int s = random.nextInt(n);
+                int t = random.nextInt(n);
+                int minHops = 1 + random.nextInt(3);
+                int maxHops = minHops + random.nextInt(3);
+                double expected = bruteForce(graph, s, t, minHops, maxHops);
+                List<Integer> path = paths.bestPath(s, t, minHops, maxHops);
+                assertEquals(expected, paths.lastCost(), 1e-9);
+                if (Double.isInfinite(expected)) {
+                    assertEquals(List.of(), path);
+                    continue;
+                }
+                assertEquals(Integer.valueOf(s), path.get(0));
+                assertEquals(Integer.valueOf(t), path.get(path.size() - 1));
+                assertTrue(minHops <= path.size() - 1 && path.size() - 1 <= maxHops);
+                double cost = 0;
+                for (int i = 0; i + 1 < path.size(); i++) {
+                    Map<Integer, Integer> out = graph.targets(path.get(i));
+                    long total = 0;
+                    for (int weight : out.values()) total += weight;
+                    cost += Math.log(total) - Math.log(out.get(path.get(i + 1)));
+                }
+                assertEquals(expected, cost, 1e-9);
+            }
+            List<Integer> reached = paths.within(0, 2);
+            Set<Integer> expected = new HashSet<>(List.of(0));
+            for (int v : graph.targets(0).keySet()) {
+                expected.add(v);
+                expected.addAll(graph.targets(v).keySet());
+            }
+            assertEquals(expected, new HashSet<>(reached));
+            assertEquals(reached.size(), new HashSet<>(new ArrayList<>(reached)).size());
+        }
+    }
+
+    @Test
+    public void testFindersShareThreadBuffers() {
+        Graph<String> small = diamond();
+        Graph<String> large = Graph.empty();
+        for (int i = 0; i < 100; i++) {
+            large.set("v" + i, "v" + (i + 1), 1);
+        }
+        PathFinder<String> before = PathFinder.of(small);
+        PathFinder<String> bigger = PathFinder.of(large);
+        PathFinder<String> after = PathFinder.of(small);
+        for (int round = 0; round < 3; round++) {
+            assertEquals(List.of("a", "c", "d"), before.bestPath("a", "d", 2, 3));
+            assertEquals(List.of("v0", "v1", "v2", "v3"), bigger.bestPath("v0", "v3", 1, 5));
+            assertEquals(101, bigger.within("v0", 1000).size());
+            assertEquals(List.of("a", "c", "d"), after.bestPath("a", "d", 2, 3));
+            assertEquals(5, after.within("a", 2).size());
+        }
+    }
+
+    @Test
+    public void testRebuiltFindersCollected() throws InterruptedException {
+        Graph<String> graph = diamond();
+        WeakReference<PathFinder<String>> first = null;
+        for (int i = 0; i < 10; i++) {
+            graph.set("x" + i, "a", 1);
+            PathFinder<String> paths = PathFinder.of(graph);
+            assertEquals(List.of("a", "c", "d"), paths.bestPath("a", "d", 2, 3));
+            assertEquals(graph.vertices().size(), paths.within("x" + i, 5).size() + 1 + i);
+            if (first == null) first = new WeakReference<>(paths);
+        }
+        for (int attempt = 0; attempt < 50 && first.get() != null; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull("finder kept reachable by the thread's buffers", first.get());
+    }
+}
@@ -0,0 +1,219 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Tests for RankedGraph, run against every implementation of it.
+ */
+@RunWith(Parameterized.class)
+public class RankedGraphTest {
+
+    // Testing strategy
+    //   heaviestTargets(), heaviestSources()
+    //     k: 0, 1, less than the degree, equal to it, more than it
+    //     weights: distinct, tied, including at the cut-off
+    //     vertex: with neighbours, without, not a vertex, null; k negative
+    //     graph size: small (AdaptiveGraph unswitched), large with hubs
+    //     graph changed after a query (mutable implementations)
+    //     result cannot be modified
+
+    /**
+     * Makes a RankedGraph with the vertices and edges of a graph.
+     */
+    private interface Copier {
+        RankedGraph<String> copy(Graph<String> graph, Path scratch);
+    }
+
+    private static RankedGraph<String> fill(RankedGraph<String> empty, Graph<String> graph) {
+        for (String v : graph.vertices()) {
+            empty.add(v);
+            for (Map.Entry<String, Integer> e : graph.targets(v).entrySet()) {
+                empty.set(v, e.getKey(), e.getValue());
+            }
+        }
+        return empty;
+    }
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> implementations() {
+        return Arrays.asList(new Object[][] {
+            { "ConcreteEdgesGraph", (Copier) (g, scratch) -> fill(new ConcreteEdgesGraph(), g) },
+            { "ConcreteVerticesGraph", (Copier) (g, scratch) -> fill(new ConcreteVerticesGraph(), g) },
+            { "InstrumentedGraph", (Copier) (g, scratch) ->
+                    fill(new InstrumentedGraph<>(new ConcreteVerticesGraph(), new GraphMetrics()), g) },
+            { "InstrumentedGraph.mergeable", (Copier) (g, scratch) ->
+                    fill((RankedGraph<String>) InstrumentedGraph.mergeable(new HashGraph<String>(), new GraphMetrics()), g) },
+            { "AdaptiveGraph", (Copier) (g, scratch) -> fill(new AdaptiveGraph<>(), g) },
+            { "HashGraph", (Copier) (g, scratch) -> fill(new HashGraph<>(), g) },
+            { "InternedGraph", (Copier) (g, scratch) -> fill(new InternedGraph<>(), g) },
+            { "ConcurrentGraph", (Copier) (g, scratch) -> fill(new ConcurrentGraph<>(), g) },
+            { "FrozenGraph", (Copier) (g, scratch) -> FrozenGraph.of(g) },
+            { "MappedGraph", (Copier) (g, scratch) -> {
+                try {
+                    MappedGraph.write(g, scratch);
+                    return MappedGraph.open(scratch);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            } },
+        });
+    }
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Copier copier;
+
+    public RankedGraphTest(String name, Copier copier) {
+        this.copier = copier;
+    }
+
+    private RankedGraph<String> copy(Graph<String> graph) throws IOException {
+        return copier.copy(graph, folder.newFile().toPath());
+    }
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // the weights of the k heaviest edges in weights, heaviest first
+    private static List<Integer> heaviest(Map<String, Integer> weights, int k) {
+        List<Integer> sorted = new ArrayList<>(weights.values());
+        sorted.sort(Comparator.reverseOrder());
+        return sorted.subList(0, Math.min(k, sorted.size()));
+    }
+
+    private static void assertHeaviest(Graph<String> graph, RankedGraph<String> ranked, String v, int k) {
+        List<WeightedEdge<String>> targets = ranked.heaviestTargets(v, k);
+        List<Integer> weights = new ArrayList<>();
+        for (WeightedEdge<String> e : targets) {
+            assertEquals(v, e.source());
+            assertEquals(Integer.valueOf(e.weight()), graph.targets(v).get(e.target()));
+            weights.add(e.weight());
+        }
+        assertEquals(v + " " + k, heaviest(graph.targets(v), k), weights);
+        assertEquals(targets.size(), targets.stream().map(WeightedEdge::target).distinct().count());
+
+        List<WeightedEdge<String>> sources = ranked.heaviestSources(v, k);
+        weights.clear();
+        for (WeightedEdge<String> e : sources) {
+            assertEquals(v, e.target());
+            assertEquals(Integer.valueOf(e.weight()), graph.sources(v).get(e.source()));
+            weights.add(e.weight());
+        }
+        assertEquals(v + " " + k, heaviest(graph.sources(v), k), weights);
+        assertEquals(sources.size(), sources.stream().map(WeightedEdge::source).distinct().count());
+    }
+
+    @Test
+    public void testSmall() throws IOException {
+        Graph<String> graph = Graph.empty();
+        graph.add("lonely");
+        graph.set("a", "b", 3);
+        graph.set("a", "c", 5);
+        graph.set("a", "d", 3);
+        graph.set("a", "a", 1);
+        graph.set("d", "b", 7);
+        RankedGraph<String> ranked = copy(graph);
+        assertEquals(List.of(new WeightedEdge<>("a", "c", 5)), ranked.heaviestTargets("a", 1));
+        assertEquals(List.of(new WeightedEdge<>("d", "b", 7), new WeightedEdge<>("a", "b", 3)),
+                ranked.heaviestSources("b", 5));
+        assertEquals(List.of(), ranked.heaviestTargets("a", 0));
+        assertEquals(List.of(), ranked.heaviestTargets("lonely", 3));
+        assertEquals(List.of(), ranked.heaviestSources("missing", 3));
+        for (String v : graph.vertices()) {
+            for (int k = 0; k <= 5; k++) {
+                assertHeaviest(graph, ranked, v, k);
+            }
+        }
+    }
+
+    @Test
+    public void testLargeWithHubsAndTies() throws IOException {
+        Random random = new Random(24);
+        Graph<String> graph = Graph.empty();
+        for (int i = 0; i < 4000; i++) {
+            int s = random.nextInt(4) == 0 ? random.nextInt(3) : random.nextInt(300);
+            int t = random.nextInt(4) == 0 ? random.nextInt(3) : random.nextInt(300);
+            graph.set("v" + s, "v" + t, 1 + random.nextInt(6));
+        }
+        RankedGraph<String> ranked = copy(graph);
+        for (String v : graph.vertices()) {
+            for (int k : new int[] { 1, 2, 10, graph.targets(v).size(), 1000, Integer.MAX_VALUE }) {
+                assertHeaviest(graph, ranked, v, k);
+            }
+        }
+    }
+
+    @Test
+    public void testAfterChanges() throws IOException {
+        Graph<String> graph = Graph.empty();
+        for (int i = 0; i < 50; i++) {
+            graph.set("hub", "v" + i, 1 + i % 7);
+        }
+        RankedGraph<String> ranked = copy(graph);
+        assertHeaviest(graph, ranked, "hub", 3);
+        try {
+            ranked.set("hub", "v3", 100);
+            ranked.remove("v6");
+            ranked.set("v13", "hub", 2);
+        } catch (UnsupportedOperationException e) {
+            return; // immutable
+        }
+        graph.set("hub", "v3", 100);
+        graph.remove("v6");
+        graph.set("v13", "hub", 2);
+        assertEquals(new WeightedEdge<>("hub", "v3", 100), ranked.heaviestTargets("hub", 1).get(0));
+        for (int k : new int[] { 3, 10, 60 }) {
+            assertHeaviest(graph, ranked, "hub", k);
+        }
+    }
+
+    @Test
+    public void testResultUnmodifiable() throws IOException {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 1);
+        RankedGraph<String> ranked = copy(graph);
+        List<WeightedEdge<String>> edges = ranked.heaviestTargets("a", 2);
+        try {
+            edges.clear();
+            fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        assertEquals(1, ranked.heaviestTargets("a", 2).size());
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNullVertex() throws IOException {
+        copy(Graph.empty()).heaviestTargets(null, 1);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNegativeK() throws IOException {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 1);
+        copy(graph).heaviestSources("b", -1);
+    }
+}
@@ -5,7 +5,34 @@ package poet;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import graph.Graph;
+import graph.GraphBuilder;
+import graph.GraphMetrics;
+import graph.GraphSnapshot;
+import graph.MergeableGraph;
+
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * Tests for GraphPoet.
@@ -13,13 +40,809 @@ import org.junit.Test;
 public class GraphPoetTest {
     
     // Testing strategy
-    //   TODO
+    //   GraphPoet(File)
+    //     corpus: missing, empty, one line, several lines, CRLF line endings,
+    //             longer than the tokenizer's buffer
+    //     case: one case, mixed case
+    //   poem(String)
+    //     input: empty, one word, several words, extra spaces and newlines
+    //     bridges: none, one candidate, several candidates with different
+    //              weights, tied candidates
+    //   GraphPoet(File, ForkJoinPool)
+    //     corpus: empty, one word, many chunks with words, delimiters and
+    //             multi-byte characters at chunk boundaries
+    //     same poems as GraphPoet(File)
+    //   indexBridges()
+    //     budget: 0, enough for some words, enough for all words
+    //     poems are the same as without an index
+    //   poem(Reader, Appendable)
+    //     same output as poem(String); input longer than the tokenizer's buffer
+    //     addCorpus() while the input stalls does not wait for the stream
+    //   addCorpus()
+    //     text: File, Reader, String; empty, new words, more of known pairs
+    //     bridges change; with and without index and caches; concurrent poems
+    //   saveSnapshot(), loadSnapshot()
+    //     same poems after loading; loaded poet can take more corpus
+    //   saveMapped(), openMapped()
+    //     same poems, with and without index and caches; addCorpus() throws
+    //   bridgeHops()
+    //     maxHops: 1, 2, more; bridges of one word and of several; no bridge
+    //     with and without caches; addCorpus() after
+    //   instrumented(): graph calls told while adding corpus and making poems
+    //   listen(), PoetMetrics
+    //     searches told with degrees and neighbours scanned; cached and
+    //     indexed bridges not told; addCorpus() told; stop listening
+    //   cache(), poems()
+    //     poems() composes on the given pool, searching on several threads at once
+    //     poems are the same with and without caches, and in batches
+    //     repeated and distinct inputs; concurrent callers
+    //   BridgeIndex
+    //     covered and uncovered words; pairs with and without a bridge
+    //     update(): changed words covered or not, rows that outgrow the budget
+    //   BridgeSearch
+    //     same bridges as BridgeIndex; neighbour sets smaller and larger than
+    //     SORT_THRESHOLD, on either side
+    //     budget: default, room for one ranked word, room for none
+    //   LruCache
+    //     bound: by count, by weight, entry heavier than the bound
+    //     puts before and after clear(); remove() present and absent keys
+    //   WordReader
+    //     text: empty, only delimiters, words with leading/trailing delimiters,
+    //           a word longer than the initial word buffer
+    //     lower-casing or keeping case
+    //     repeated words are returned as the same instance
+    
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
     
     @Test(expected=AssertionError.class)
     public void testAssertionsEnabled() {
         assert false; // make sure assertions are enabled with VM argument: -ea
     }
     
-    // TODO tests
+    @Test
+    public void testMugarOmniTheater() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("src/poet/mugar-omni-theater.txt"));
+        assertEquals("Test of the system.", poet.poem("Test the system."));
+    }
+    
+    @Test
+    public void testMixedCaseCorpus() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/hello.txt"));
+        assertEquals("HELLO, hello, Goodbye!", poet.poem("HELLO, Goodbye!"));
+    }
+    
+    @Test
+    public void testInputWhitespaceCollapsed() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("src/poet/mugar-omni-theater.txt"));
+        assertEquals("Test of the system.", poet.poem("  Test   the\nsystem.  "));
+        assertEquals("", poet.poem(""));
+        assertEquals("", poet.poem(" \n "));
+        assertEquals("Theater", poet.poem("Theater"));
+    }
+    
+    @Test
+    public void testCrlfCorpus() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/crlf.txt"));
+        assertEquals("be or not", poet.poem("be not"));
+        assertEquals("question that", poet.poem("question that"));
+    }
+    
+    @Test
+    public void testHeaviestBridgeWins() throws IOException {
+        // a -> y -> b occurs twice, a -> x -> b and a -> z -> b once each
+        GraphPoet poet = new GraphPoet(new File("test/poet/weights.txt"));
+        assertEquals("a y b", poet.poem("a b"));
+        assertEquals("b z c", poet.poem("b c"));
+    }
+    
+    @Test
+    public void testTiedBridgesAlphabetical() throws IOException {
+        File corpus = folder.newFile("ties.txt");
+        Files.write(corpus.toPath(), "p m q p k q".getBytes(StandardCharsets.UTF_8));
+        GraphPoet poet = new GraphPoet(corpus);
+        assertEquals("P k Q", poet.poem("P Q"));
+    }
+    
+    @Test
+    public void testEmptyCorpus() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/empty.txt"));
+        assertEquals("Test the system.", poet.poem("Test the system."));
+    }
+    
+    @Test(expected=IOException.class)
+    public void testMissingCorpus() throws IOException {
+        new GraphPoet(new File("test/poet/no-such-corpus.txt"));
+    }
+    
+    @Test
+    public void testCorpusLongerThanBuffer() throws IOException {
+        File corpus = folder.newFile("long.txt");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 40000; i++) {
+            text.append(i % 2 == 0 ? "Ab " : "cdefg\n");
+        }
+        text.append("hij");
+        Files.write(corpus.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+        GraphPoet poet = new GraphPoet(corpus);
+        assertEquals("ab cdefg ab", poet.poem("ab ab"));
+        assertEquals("ab cdefg hij", poet.poem("ab hij"));
+    }
+    
+    @Test
+    public void testWordReaderSplitsAndLowerCases() throws IOException {
+        String longWord = "Supercalifragilisticexpialidocious-".repeat(4);
+        WordReader words = new WordReader(new StringReader("  The cat\r\n\nTHE " + longWord + "\n"));
+        String first = words.next();
+        assertEquals("the", first);
+        assertEquals("cat", words.next());
+        assertSame(first, words.next());
+        assertEquals(WordReader.toLowerCase(longWord), words.next());
+        assertNull(words.next());
+        assertNull(words.next());
+        words.close();
+    }
+    
+    @Test
+    public void testWordReaderOnlyDelimiters() throws IOException {
+        assertNull(new WordReader(new StringReader("")).next());
+        assertNull(new WordReader(new StringReader(" \r\n ")).next());
+    }
+    
+    @Test
+    public void testWordReaderManyDistinctWords() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append("w").append(i).append(' ');
+        }
+        WordReader words = new WordReader(new StringReader(text.toString() + text));
+        String[] firstPass = new String[5000];
+        for (int i = 0; i < 5000; i++) {
+            firstPass[i] = words.next();
+            assertEquals("w" + i, firstPass[i]);
+        }
+        for (int i = 0; i < 5000; i++) {
+            assertSame(firstPass[i], words.next());
+        }
+    }
+    
+    // the adjacency counts of a corpus, counted one word at a time
+    private static Graph<String> countSequentially(File corpus) throws IOException {
+        GraphBuilder<String> counts = new GraphBuilder<>();
+        try (WordReader words = new WordReader(Files.newBufferedReader(corpus.toPath()))) {
+            String previous = words.next();
+            if (previous != null) counts.add(previous);
+            for (String word = words.next(); word != null; word = words.next()) {
+                counts.add(previous, word, 1);
+                previous = word;
+            }
+        }
+        return counts.build();
+    }
+    
+    private static void assertSameGraph(Graph<String> expected, Graph<String> actual) {
+        assertEquals(expected.vertices(), actual.vertices());
+        for (String v : expected.vertices()) {
+            assertEquals(v, expected.targets(v), actual.targets(v));
+        }
+    }
+    
+    @Test
+    public void testParallelCountsMatchSequential() throws IOException {
+        File corpus = folder.newFile("parallel.txt");
+        StringBuilder text = new StringBuilder("  ");
+        String[] vocabulary = { "The", "cat", "sat", "on", "the", "mat.", "\u00dcber", "\u00e7af\u00e9", "\u65e5\u672c", "x" };
+        for (int i = 0; i < 3000; i++) {
+            text.append(vocabulary[(i * 7 + i / 3) % vocabulary.length]);
+            text.append(i % 5 == 0 ? "\r\n" : i % 7 == 0 ? "   " : " ");
+        }
+        Files.write(corpus.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+        
+        Graph<String> expected = countSequentially(corpus);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (long minChunk : new long[] { 1, 7, 100, 1 << 20 }) {
+                assertSameGraph(expected, MappedCorpus.count(corpus.toPath(), pool, minChunk).build());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    public void testParallelTinyCorpora() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            assertTrue(MappedCorpus.count(new File("test/poet/empty.txt").toPath(), pool, 1)
+                    .build().vertices().isEmpty());
+            File one = folder.newFile("one.txt");
+            Files.write(one.toPath(), " Word \n".getBytes(StandardCharsets.UTF_8));
+            Graph<String> g = MappedCorpus.count(one.toPath(), pool, 1).build();
+            assertEquals(Set.of("word"), g.vertices());
+            assertTrue(g.targets("word").isEmpty());
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    public void testParallelPoet() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("src/poet/mugar-omni-theater.txt"), ForkJoinPool.commonPool());
+        assertEquals("Test of the system.", poet.poem("Test the system."));
+    }
+    
+    // a corpus with hubs, ties, and word pairs with and without bridges
+    private File bridgeCorpus() throws IOException {
+        File corpus = folder.newFile("bridges.txt");
+        StringBuilder text = new StringBuilder();
+        String[] words = { "the", "a", "cat", "dog", "sat", "ran", "on", "the", "mat", "and", "the", "end" };
+        for (int i = 0; i < 400; i++) {
+            text.append(words[(i * i + 3 * i) % words.length]).append(' ');
+        }
+        Files.write(corpus.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+        return corpus;
+    }
+    
+    @Test
+    public void testIndexedPoemsUnchanged() throws IOException {
+        File corpus = bridgeCorpus();
+        GraphPoet plain = new GraphPoet(corpus);
+        GraphPoet indexed = new GraphPoet(corpus);
+        String input = "The cat and the dog ran on a mat and sat the end zebra the";
+        String expected = plain.poem(input);
+        for (long budget : new long[] { 1, 5, 20, 1000, 0 }) {
+            indexed.indexBridges(budget);
+            assertEquals("budget " + budget, expected, indexed.poem(input));
+        }
+    }
+    
+    @Test
+    public void testBridgeIndexCoverage() throws IOException {
+        File corpus = bridgeCorpus();
+        Graph<String> graph = countSequentially(corpus);
+        BridgeIndex all = BridgeIndex.build(graph, Long.MAX_VALUE);
+        for (String w : graph.vertices()) {
+            assertTrue(all.covers(w));
+        }
+        assertNull(all.get("the", "zebra"));
+        
+        BridgeIndex none = BridgeIndex.build(graph, 0);
+        assertEquals(0, none.size());
+        assertFalse(none.covers("the"));
+        
+        BridgeIndex some = BridgeIndex.build(graph, all.size() / 2);
+        assertTrue(some.size() <= all.size() / 2);
+        for (String w : graph.vertices()) {
+            if (!some.covers(w)) continue;
+            for (String w2 : graph.vertices()) {
+                assertEquals(all.get(w, w2), some.get(w, w2));
+            }
+        }
+    }
+    
+    @Test
+    public void testBridgeSearchMatchesFullScan() {
+        // hubs have more neighbours than SORT_THRESHOLD, so both the plain
+        // and the ranked walk are exercised, from either side
+        Random random = new Random(13);
+        GraphBuilder<String> builder = new GraphBuilder<>();
+        int words = 200;
+        for (int i = 0; i < 4000; i++) {
+            int s = random.nextInt(words);
+            int t = random.nextInt(words);
+            if (random.nextInt(4) == 0) s = random.nextInt(3);
+            if (random.nextInt(4) == 0) t = random.nextInt(3);
+            builder.add("w" + s, "w" + t, 1 + random.nextInt(3));
+        }
+        Graph<String> graph = builder.build();
+        BridgeIndex all = BridgeIndex.build(graph, Long.MAX_VALUE);
+        for (BridgeSearch search : List.of(BridgeSearch.of(graph),
+                BridgeSearch.of(graph, BridgeSearch.SORT_THRESHOLD * 10), BridgeSearch.of(graph, 1))) {
+            for (String w1 : graph.vertices()) {
+                for (String w2 : graph.vertices()) {
+                    assertEquals(w1 + " " + w2, all.get(w1, w2), search.bridge(w1, w2));
+                }
+            }
+            assertNull(search.bridge("w0", "missing"));
+        }
+    }
+    
+    @Test
+    public void testCachedPoemsUnchanged() throws IOException {
+        File corpus = bridgeCorpus();
+        GraphPoet plain = new GraphPoet(corpus);
+        GraphPoet cached = new GraphPoet(corpus);
+        cached.cache(1000, 3);
+        String[] inputs = { "The cat and the dog", "ran on a mat", "The cat and the dog",
+                "the end zebra the", "ran on a mat", "The cat and the dog" };
+        for (String input : inputs) {
+            assertEquals(plain.poem(input), cached.poem(input));
+        }
+        CacheStats poems = cached.poemCacheStats();
+        assertEquals(3, poems.hits());
+        assertEquals(3, poems.misses());
+        assertEquals(3, poems.size());
+        CacheStats bridges = cached.bridgeCacheStats();
+        assertTrue(bridges.misses() > 0);
+        assertTrue(bridges.size() <= 3);
+        assertEquals(CacheStats.NONE, plain.poemCacheStats());
+        
+        cached.cache(0, 0);
+        assertEquals(CacheStats.NONE, cached.poemCacheStats());
+        assertEquals(plain.poem("the cat the cat"), cached.poem("the cat the cat"));
+    }
+    
+    @Test
+    public void testCachedBridgesUnchanged() throws IOException {
+        File corpus = bridgeCorpus();
+        GraphPoet plain = new GraphPoet(corpus);
+        GraphPoet cached = new GraphPoet(corpus);
+        cached.cache(0, 100);
+        String input = "The cat and the dog ran on a mat and sat the end zebra the";
+        for (int i = 0; i < 3; i++) {
+            assertEquals(plain.poem(input), cached.poem(input));
+        }
+        CacheStats bridges = cached.bridgeCacheStats();
+        assertEquals(2 * bridges.misses(), bridges.hits());
+        assertEquals(1. * 2 / 3, bridges.hitRate(), 1e-9);
+    }
+    
+    @Test
+    public void testCachedPoemsConcurrently() throws Exception {
+        File corpus = bridgeCorpus();
+        GraphPoet plain = new GraphPoet(corpus);
+        GraphPoet cached = new GraphPoet(corpus);
+        cached.cache(200, 4);
+        String[] inputs = { "the cat the", "a mat and the end", "dog ran on a mat", "the zebra",
+                "and sat the cat", "The Dog the Cat" };
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            pool.submit(() -> IntStream.range(0, 2000).parallel().forEach(i -> {
+                String input = inputs[i % inputs.length];
+                assertEquals(plain.poem(input), cached.poem(input));
+            })).get();
+        } finally {
+            pool.shutdown();
+        }
+        CacheStats stats = cached.poemCacheStats();
+        assertEquals(2000, stats.hits() + stats.misses());
+    }
+    
+    @Test
+    public void testLruCacheEvictsLeastRecentlyUsed() {
+        LruCache<String, String> cache = new LruCache<>(3, (k, v) -> 1);
+        long generation = cache.generation();
+        cache.put("a", "1", generation);
+        cache.put("b", "2", generation);
+        cache.put("c", "3", generation);
+        assertEquals("1", cache.get("a"));
+        cache.put("d", "4", generation);
+        assertNull(cache.get("b"));
+        assertEquals("1", cache.get("a"));
+        assertEquals("3", cache.get("c"));
+        assertEquals("4", cache.get("d"));
+        assertEquals(new CacheStats(4, 1, 1, 3), cache.stats());
+    }
+    
+    @Test
+    public void testLruCacheWeight() {
+        LruCache<String, String> cache = new LruCache<>(10, (k, v) -> v.length());
+        long generation = cache.generation();
+        cache.put("a", "aaaa", generation);
+        cache.put("b", "bbbb", generation);
+        cache.put("huge", "hhhhhhhhhhh", generation);
+        assertNull(cache.get("huge"));
+        assertEquals(2, cache.stats().size());
+        cache.put("c", "cccc", generation);
+        assertNull(cache.get("a"));
+        cache.put("b", "b", generation);
+        cache.put("d", "ddddd", generation);
+        assertEquals("b", cache.get("b"));
+        assertEquals("cccc", cache.get("c"));
+        assertEquals("ddddd", cache.get("d"));
+    }
+    
+    @Test
+    public void testLruCacheDropsStalePuts() {
+        LruCache<String, String> cache = new LruCache<>(10, (k, v) -> 1);
+        long before = cache.generation();
+        cache.put("a", "1", before);
+        cache.clear();
+        assertNull(cache.get("a"));
+        cache.put("b", "2", before);
+        assertNull(cache.get("b"));
+        cache.put("b", "2", cache.generation());
+        assertEquals("2", cache.get("b"));
+        assertEquals(1, cache.stats().size());
+    }
+    
+    @Test
+    public void testLruCacheRemove() {
+        LruCache<String, String> cache = new LruCache<>(4, (k, v) -> v.length());
+        long generation = cache.generation();
+        cache.put("a", "aa", generation);
+        cache.put("b", "bb", generation);
+        cache.remove("a");
+        cache.remove("missing");
+        assertNull(cache.get("a"));
+        assertEquals(generation, cache.generation());
+        cache.put("c", "cc", generation);
+        assertEquals("bb", cache.get("b"));
+        assertEquals("cc", cache.get("c"));
+        assertEquals(0, cache.stats().evictions());
+    }
+    
+    @Test(expected=IllegalArgumentException.class)
+    public void testLruCacheNonPositiveBound() {
+        new LruCache<String, String>(0, (k, v) -> 1);
+    }
+    
+    @Test
+    public void testBatchPoemsInOrder() throws IOException {
+        GraphPoet poet = new GraphPoet(bridgeCorpus());
+        List<String> inputs = new ArrayList<>();
+        String[] lines = { "The cat and the dog", "ran on a mat", "", "  the end zebra the",
+                "THE CAT THE DOG", "a" };
+        for (int i = 0; i < 500; i++) {
+            inputs.add(lines[i % lines.length] + (i % 7 == 0 ? " the" : ""));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Set<Thread> searchers = ConcurrentHashMap.newKeySet();
+        poet.listen(new PoetListener() {
+            @Override
+            public void bridgeSearched(String w1, String w2, int outDegree, int inDegree, int scanned, long nanos) {
+                searchers.add(Thread.currentThread());
+            }
+        });
+        try {
+            List<String> poems = poet.poems(inputs, pool);
+            poet.listen(null);
+            assertFalse(searchers.isEmpty());
+            for (Thread searcher : searchers) {
+                // the caller may run tasks while it waits, but no other pool may
+                assertTrue(searcher.toString(), searcher == Thread.currentThread()
+                        || searcher instanceof ForkJoinWorkerThread
+                                && ((ForkJoinWorkerThread) searcher).getPool() == pool);
+            }
+            assertEquals(inputs.size(), poems.size());
+            for (int i = 0; i < inputs.size(); i++) {
+                assertEquals(inputs.get(i), poet.poem(inputs.get(i)), poems.get(i));
+            }
+            assertEquals(List.of(), poet.poems(List.of(), pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    public void testBatchPoemsSearchConcurrently() throws IOException {
+        GraphPoet poet = new GraphPoet(bridgeCorpus());
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            inputs.add(i % 2 == 0 ? "The cat and the dog" : "ran on a mat the end");
+        }
+        // each search waits for a second one to be under way at the same time
+        CountDownLatch searching = new CountDownLatch(2);
+        Set<Boolean> met = ConcurrentHashMap.newKeySet();
+        poet.listen(new PoetListener() {
+            @Override
+            public void bridgeSearched(String w1, String w2, int outDegree, int inDegree, int scanned, long nanos) {
+                searching.countDown();
+                try {
+                    met.add(searching.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        });
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<String> poems = poet.poems(inputs, pool);
+            assertEquals(Set.of(true), met);
+            for (int i = 0; i < inputs.size(); i++) {
+                assertEquals(inputs.get(i), poet.poem(inputs.get(i)), poems.get(i));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    public void testStreamingPoemSameAsPoem() throws IOException {
+        GraphPoet poet = new GraphPoet(bridgeCorpus());
+        String[] inputs = { "", " \r\n ", "The", "The cat and the dog", "  the end\r\nzebra  the\n",
+                "THE Cat the DOG ran" };
+        for (String input : inputs) {
+            StringBuilder out = new StringBuilder();
+            poet.poem(new StringReader(input), out);
+            assertEquals(input, poet.poem(input), out.toString());
+        }
+        
+        StringBuilder big = new StringBuilder();
+        while (big.length() < 200_000) {
+            big.append("The cat  and the\ndog ran on a mat ");
+        }
+        StringWriter out = new StringWriter();
+        poet.poem(new StringReader(big.toString()), out);
+        assertEquals(poet.poem(big.toString()), out.toString());
+    }
+    
+    @Test
+    public void testStreamingPoemDoesNotBlockAddCorpus() throws Exception {
+        GraphPoet poet = new GraphPoet(new File("test/poet/hello.txt"));
+        List<Boolean> added = new ArrayList<>();
+        // gives "a ", then adds to the corpus from another thread before giving "c"
+        Reader stalling = new Reader() {
+            private final String[] parts = { "a ", "c" };
+            private int part = 0;
+            
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                if (part == parts.length) return -1;
+                if (part == 1) {
+                    Thread writer = new Thread(() -> poet.addCorpus("a b c"));
+                    writer.start();
+                    try {
+                        writer.join(10_000);
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    }
+                    added.add(!writer.isAlive());
+                }
+                String text = parts[part++];
+                text.getChars(0, text.length(), buffer, offset);
+                return text.length();
+            }
+            
+            @Override
+            public void close() {}
+        };
+        StringBuilder out = new StringBuilder();
+        poet.poem(stalling, out);
+        assertEquals(List.of(true), added);
+        assertEquals("a b c", out.toString());
+    }
+    
+    @Test
+    public void testWordReaderKeepsCase() throws IOException {
+        WordReader words = new WordReader(new StringReader(" The cAt\r\nthe"), false);
+        assertEquals("The", words.next());
+        assertEquals("cAt", words.next());
+        assertEquals("the", words.next());
+        assertNull(words.next());
+    }
+    
+    @Test
+    public void testAddCorpus() throws IOException {
+        File more = folder.newFile("more.txt");
+        Files.write(more.toPath(), "Bye world\nhello, moon".getBytes(StandardCharsets.UTF_8));
+        GraphPoet poet = new GraphPoet(new File("test/poet/hello.txt"));
+        String before = poet.toString();
+        poet.addCorpus("");
+        poet.addCorpus(new StringReader(" \r\n"));
+        assertEquals(before, poet.toString());
+        
+        poet.addCorpus(more);
+        poet.addCorpus("moon goodbye");
+        assertTrue(poet.toString().contains("world"));
+        assertEquals("Bye world hello, moon goodbye", poet.poem("Bye hello, goodbye"));
+    }
+    
+    @Test
+    public void testAddCorpusChangesBridges() throws IOException {
+        File corpus = bridgeCorpus();
+        GraphPoet plain = new GraphPoet(corpus);
+        GraphPoet fast = new GraphPoet(corpus);
+        fast.indexBridges(30);
+        fast.cache(1000, 100);
+        String input = "The cat and the dog ran on a mat and sat the end zebra the";
+        assertEquals(plain.poem(input), fast.poem(input));
+        
+        String[] more = { "cat zebra dog zebra cat zebra dog", "the cat the cat the zebra end zebra the",
+                "and moon sat moon sat moon on moon mat", "" };
+        for (String text : more) {
+            plain.addCorpus(text);
+            fast.addCorpus(text);
+            assertEquals(text, plain.poem(input), fast.poem(input));
+            assertEquals(text, plain.poems(List.of(input), ForkJoinPool.commonPool()),
+                    fast.poems(List.of(input), ForkJoinPool.commonPool()));
+        }
+        assertNotEquals(plain.poem(input), new GraphPoet(new File("test/poet/hello.txt")).poem(input));
+    }
+    
+    @Test
+    public void testAddCorpusConcurrently() throws Exception {
+        File corpus = folder.newFile("two.txt");
+        Files.write(corpus.toPath(), "a x b a x b".getBytes(StandardCharsets.UTF_8));
+        GraphPoet poet = new GraphPoet(corpus);
+        poet.cache(100, 10);
+        poet.indexBridges(10);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Future<?> readers = pool.submit(() -> IntStream.range(0, 4).parallel().forEach(r -> {
+                boolean switched = false;
+                for (int i = 0; i < 2000; i++) {
+                    String poem = poet.poem("a b");
+                    if (poem.equals("a y b")) {
+                        switched = true;
+                    } else {
+                        assertFalse("went back after switching", switched);
+                        assertEquals("a x b", poem);
+                    }
+                }
+            }));
+            for (int i = 0; i < 3; i++) {
+                poet.addCorpus("a y b");
+            }
+            readers.get();
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals("a y b", poet.poem("a b"));
+    }
+    
+    @Test
+    public void testBridgeIndexUpdate() {
+        MergeableGraph<String> graph = new GraphBuilder<String>()
+                .add("a", "b", 1).add("b", "c", 1).add("a", "d", 1).add("d", "c", 1)
+                .add("c", "a", 2).add("e", "a", 1).add("a", "e", 1).build();
+        BridgeIndex index = BridgeIndex.build(graph, 6);
+        for (String[] edge : new String[][] { { "d", "c" }, { "a", "f" }, { "f", "c" }, { "c", "c" } }) {
+            graph.increment(edge[0], edge[1], 2);
+            index = index.update(graph, Set.of(edge[0]));
+            BridgeSearch search = BridgeSearch.of(graph);
+            assertTrue(index.size() <= 6);
+            for (String w1 : graph.vertices()) {
+                if (!index.covers(w1)) continue;
+                for (String w2 : graph.vertices()) {
+                    assertEquals(w1 + " " + w2, search.bridge(w1, w2), index.get(w1, w2));
+                }
+            }
+        }
+        assertSame(index, index.update(graph, Set.of("nowhere")));
+    }
+    
+    @Test
+    public void testSnapshotRoundTrip() throws IOException {
+        File corpus = bridgeCorpus();
+        GraphPoet poet = new GraphPoet(corpus);
+        File snapshot = folder.newFile("bridges.graph");
+        poet.saveSnapshot(snapshot);
+        GraphPoet loaded = GraphPoet.loadSnapshot(snapshot);
+        assertSameGraph(countSequentially(corpus), GraphSnapshot.read(snapshot.toPath()).build());
+        String input = "The cat and the dog ran on a mat and sat the end zebra the";
+        assertEquals(poet.poem(input), loaded.poem(input));
+        
+        poet.addCorpus("cat zebra dog zebra cat zebra dog");
+        loaded.addCorpus("cat zebra dog zebra cat zebra dog");
+        assertEquals(poet.poem(input), loaded.poem(input));
+    }
+    
+    @Test
+    public void testMappedPoet() throws IOException {
+        File corpus = bridgeCorpus();
+        GraphPoet poet = new GraphPoet(corpus);
+        File mapped = folder.newFile("bridges.csr");
+        poet.saveMapped(mapped);
+        GraphPoet opened = GraphPoet.openMapped(mapped);
+        String input = "The cat and the dog ran on a mat and sat the end zebra the";
+        assertEquals(poet.poem(input), opened.poem(input));
+        opened.indexBridges(20);
+        opened.cache(1000, 10);
+        assertEquals(poet.poem(input), opened.poem(input));
+        assertEquals(poet.poem(input), opened.poem(input));
+        try {
+            opened.addCorpus("the cat");
+            fail("expected UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        assertEquals(poet.poem(input), opened.poem(input));
+    }
+    
+    @Test
+    public void testListen() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/hello.txt"));
+        List<String> told = new ArrayList<>();
+        poet.listen(new PoetListener() {
+            @Override
+            public synchronized void bridgeSearched(String w1, String w2, int outDegree, int inDegree,
+                    int scanned, long nanos) {
+                assertTrue(nanos >= 0);
+                told.add(w1 + " " + w2 + " " + outDegree + " " + inDegree + " " + scanned);
+            }
+        });
+        assertEquals("hello, hello, goodbye!", poet.poem("hello, goodbye!"));
+        assertEquals(List.of("hello, goodbye! 2 1 1"), told);
+        
+        poet.cache(0, 10);
+        poet.poem("hello, goodbye! hello,");
+        poet.poem("hello, goodbye!");
+        assertEquals(List.of("hello, goodbye! 2 1 1", "hello, goodbye! 2 1 1",
+                "goodbye! hello, 0 1 0"), told);
+        
+        poet.listen(null);
+        poet.cache(0, 0);
+        poet.poem("hello, goodbye!");
+        assertEquals(3, told.size());
+    }
+    
+    @Test
+    public void testInstrumented() throws IOException {
+        File corpus = bridgeCorpus();
+        GraphMetrics graphMetrics = new GraphMetrics();
+        GraphPoet poet = GraphPoet.instrumented(graphMetrics);
+        PoetMetrics metrics = PoetMetrics.attach(poet);
+        assertEquals("the cat", poet.poem("the cat"));
+        poet.addCorpus(corpus);
+        assertEquals(400, metrics.getWordsAdded());
+        long merges = graphMetrics.getMergeCalls();
+        assertTrue(merges > 0);
+        
+        String input = "The cat and the dog ran on a mat";
+        assertEquals(new GraphPoet(corpus).poem(input), poet.poem(input));
+        assertEquals(merges, graphMetrics.getMergeCalls());
+        assertTrue(graphMetrics.getTargetsCalls() > 0);
+        assertTrue(graphMetrics.getSourcesCalls() > 0);
+    }
+    
+    @Test
+    public void testPoetMetrics() throws IOException {
+        File corpus = bridgeCorpus();
+        GraphPoet poet = new GraphPoet(corpus);
+        PoetMetrics metrics = PoetMetrics.attach(poet);
+        poet.poem("The cat and the dog ran on a mat and sat the end zebra the");
+        assertEquals(14, metrics.getBridgeSearches());
+        assertTrue(metrics.getNeighboursScanned() >= metrics.getMaxNeighboursScanned());
+        assertTrue(metrics.getMaxNeighboursScanned() > 0);
+        assertTrue(metrics.getMaxDegree() >= metrics.getMaxNeighboursScanned());
+        assertEquals(0, metrics.getWordsAdded());
+        assertEquals(0, metrics.getWordsPerSecond(), 0);
+        
+        poet.addCorpus("cat zebra dog zebra\ncat");
+        assertEquals(5, metrics.getWordsAdded());
+        assertTrue(metrics.getWordsPerSecond() > 0);
+        assertTrue(metrics.getEdgesPerSecond() > 0);
+        assertTrue(metrics.getEdgesPerSecond() < metrics.getWordsPerSecond());
+        
+        poet.cache(1000, 0);
+        poet.poem("the cat");
+        poet.poem("the cat");
+        assertEquals(0.5, metrics.getPoemCacheHitRate(), 1e-9);
+        assertEquals(0, metrics.getBridgeCacheHitRate(), 0);
+        
+        metrics.reset();
+        assertEquals(0, metrics.getBridgeSearches());
+        assertEquals(0, metrics.getMaxNeighboursScanned());
+        assertEquals(0, metrics.getWordsAdded());
+    }
+    
+    @Test
+    public void testBridgeHops() throws IOException {
+        File corpus = folder.newFile("hops.txt");
+        Files.write(corpus.toPath(), "one two three four one two three four one two five four"
+                .getBytes(StandardCharsets.UTF_8));
+        GraphPoet poet = new GraphPoet(corpus);
+        poet.cache(1000, 1000);
+        assertEquals("One four", poet.poem("One four"));
+        assertEquals("one two three", poet.poem("one three"));
+        
+        poet.bridgeHops(3);
+        assertEquals("One two three four", poet.poem("One four"));
+        assertEquals("one two three", poet.poem("one three"));
+        assertEquals("four one", poet.poem("four one"));
+        assertEquals("three six", poet.poem("three six"));
+        poet.addCorpus("four six");
+        assertEquals("three four six", poet.poem("three six"));
+        
+        poet.bridgeHops(2);
+        assertEquals("One four", poet.poem("One four"));
+        assertEquals("three four six", poet.poem("three six"));
+        try {
+            poet.bridgeHops(1);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
     
 }